@@ -0,0 +1,502 @@
+package HMS.example.HospitalManagementSystem.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Booking-rush load generator. Each virtual user is one patient account with its own
+ * cookie jar, and repeats: login, dashboard, free slots of a random doctor, book one
+ * of them, open the confirmation page, logout.
+ *
+ * It talks to an already running instance over HTTP and uses only the JDK, so it runs
+ * from the {@code loadtest} Maven profile or directly with {@code java BookingRush.java}.
+ * Settings are system properties ({@code loadtest.*}, see {@link #main}); accounts
+ * come from {@code seed-patients.sql}.
+ *
+ * Every request is timed separately (redirects are not followed). A booking that the
+ * app turns down because the slot was taken meanwhile counts as "rejected", not as an
+ * error: under a rush that is the expected outcome. Results go to stdout and, as JSON
+ * and CSV, to {@code loadtest.out}.
+ *
+ * When the app runs with the fake SMTP server (loadtest profile), the harness also
+ * counts the mail it captured. With a relay delay set, a median booking slower than
+ * that delay means booking still waits on SMTP, and the run fails.
+ */
+public class BookingRush {
+
+    enum Step { LOGIN, DASHBOARD, SLOTS, BOOK, CONFIRMATION, LOGOUT }
+
+    private static final Pattern DOCTOR_ID = Pattern.compile("\"doctorId\"\\s*:\\s*(\\d+)");
+    private static final Pattern DAY = Pattern.compile("\"date\"\\s*:\\s*\"([0-9-]+)\"\\s*,\\s*\"times\"\\s*:\\s*\\[([^\\]]*)\\]");
+    private static final Pattern TIME = Pattern.compile("\"([0-9:]+)\"");
+    private static final Pattern MAIL_RECEIVED = Pattern.compile("\"received\"\\s*:\\s*(\\d+)");
+    private static final Pattern MAIL_DELAY = Pattern.compile("\"delayMs\"\\s*:\\s*(\\d+)");
+    private static final Pattern HIDDEN_KEY = Pattern.compile("name=\"idempotencyKey\"\\s+value=\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final int users;
+    private final int iterations;
+    private final Duration ramp;
+    private final String userPattern;
+    private final int userOffset;
+    private final String password;
+    private final int days;
+    private final Duration timeout;
+
+    private final List<Recorder> recorders = new ArrayList<>();
+    private volatile List<Long> doctorIds = List.of();
+
+    BookingRush(Map<String, String> cfg) {
+        this.baseUrl = cfg.get("baseUrl").replaceAll("/+$", "");
+        this.users = Integer.parseInt(cfg.get("users"));
+        this.iterations = Integer.parseInt(cfg.get("iterations"));
+        this.ramp = Duration.ofSeconds(Long.parseLong(cfg.get("rampSeconds")));
+        this.userPattern = cfg.get("userPattern");
+        this.userOffset = Integer.parseInt(cfg.get("userOffset"));
+        this.password = cfg.get("password");
+        this.days = Integer.parseInt(cfg.get("days"));
+        this.timeout = Duration.ofSeconds(Long.parseLong(cfg.get("timeoutSeconds")));
+    }
+
+    /**
+     * System properties, with defaults: loadtest.baseUrl (http://localhost:8080),
+     * loadtest.users (50), loadtest.iterations per user (5), loadtest.rampSeconds (10),
+     * loadtest.userPattern (loadtest%d@example.test), loadtest.userOffset (1),
+     * loadtest.password (loadtest), loadtest.days of slots to pick from (14),
+     * loadtest.timeoutSeconds (30), loadtest.out (target/loadtest).
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> cfg = new LinkedHashMap<>();
+        cfg.put("baseUrl", prop("baseUrl", "http://localhost:8080"));
+        cfg.put("users", prop("users", "50"));
+        cfg.put("iterations", prop("iterations", "5"));
+        cfg.put("rampSeconds", prop("rampSeconds", "10"));
+        cfg.put("userPattern", prop("userPattern", "loadtest%d@example.test"));
+        cfg.put("userOffset", prop("userOffset", "1"));
+        cfg.put("password", prop("password", "loadtest"));
+        cfg.put("days", prop("days", "14"));
+        cfg.put("timeoutSeconds", prop("timeoutSeconds", "30"));
+        Path out = Path.of(prop("out", "target/loadtest"));
+
+        BookingRush rush = new BookingRush(cfg);
+        boolean fakeSmtp = rush.clearMail();
+        Report report = rush.run();
+        if (fakeSmtp) rush.readMail(report);
+        report.print(System.out, cfg);
+        Files.createDirectories(out);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path json = out.resolve("booking-rush-" + stamp + ".json");
+        Path csv = out.resolve("booking-rush-" + stamp + ".csv");
+        report.writeJson(json, cfg);
+        report.writeCsv(csv);
+        System.out.println("Report written to " + json + " and " + csv);
+
+        // nothing booked at all usually means a wrong URL, missing seed accounts or no doctors
+        if (report.totals.get(Step.BOOK).ok == 0) System.exit(1);
+        if (report.bookingWaitsOnMail()) {
+            System.out.println("FAILED: median booking takes longer than the " + report.mailDelayMs
+                    + " ms SMTP delay, so confirmation mail is still sent on the request thread");
+            System.exit(2);
+        }
+    }
+
+    private static String prop(String key, String def) {
+        String v = System.getProperty("loadtest." + key);
+        return v != null && !v.isBlank() ? v.trim() : def;
+    }
+
+    // =================================================================================
+    // RUN
+    // =================================================================================
+
+    Report run() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(users);
+        CountDownLatch done = new CountDownLatch(users);
+        long rampStepNanos = users > 1 ? ramp.toNanos() / (users - 1) : 0;
+
+        long start = System.nanoTime();
+        for (int u = 0; u < users; u++) {
+            Recorder rec = new Recorder();
+            recorders.add(rec);
+            String username = String.format(Locale.ROOT, userPattern, userOffset + u);
+            long delay = u * rampStepNanos;
+            pool.execute(() -> {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                    new VirtualUser(username, rec).run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        return new Report(recorders, elapsed);
+    }
+
+    // ---------- one patient session, run on its own thread ----------
+    private final class VirtualUser {
+        final String username;
+        final Recorder rec;
+        final HttpClient http;
+
+        VirtualUser(String username, Recorder rec) {
+            this.username = username;
+            this.rec = rec;
+            this.http = HttpClient.newBuilder()
+                    .cookieHandler(new CookieManager())
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(timeout)
+                    .build();
+        }
+
+        void run() {
+            for (int i = 0; i < iterations; i++) {
+                try {
+                    iteration();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        void iteration() throws InterruptedException {
+            HttpResponse<String> login = send(Step.LOGIN, post("/login",
+                    "username", username, "password", password, "role", "patient"));
+            // the app answers a good login with a redirect and a bad one with the login page again
+            if (login == null || login.statusCode() != 302) {
+                if (login != null) rec.fail(Step.LOGIN);
+                return;
+            }
+            rec.ok(Step.LOGIN);
+
+            try {
+                HttpResponse<String> dash = send(Step.DASHBOARD, get("/patient/dashboard"));
+                if (dash == null) return;
+                if (dash.statusCode() != 200) { rec.fail(Step.DASHBOARD); return; }
+                rec.ok(Step.DASHBOARD);
+                String idemKey = firstGroup(HIDDEN_KEY, dash.body());
+
+                Long doctorId = pickDoctor();
+                if (doctorId == null) { rec.fail(Step.SLOTS); return; }
+                HttpResponse<String> slots = send(Step.SLOTS, get("/appointments/availability/" + doctorId
+                        + "?from=" + LocalDate.now() + "&days=" + days));
+                if (slots == null) return;
+                if (slots.statusCode() != 200) { rec.fail(Step.SLOTS); return; }
+                rec.ok(Step.SLOTS);
+                String slot = pickSlot(slots.body());
+                if (slot == null) { rec.reject(Step.BOOK); return; }
+
+                HttpResponse<String> book = send(Step.BOOK, post("/patient/appointments/book",
+                        "doctorId", doctorId.toString(), "time", slot, "notes", "load test",
+                        "idempotencyKey", idemKey != null ? idemKey : ""));
+                if (book == null) return;
+                String location = book.headers().firstValue("Location").orElse("");
+                if (book.statusCode() == 302 && location.contains("/patient/appointments/confirmation/")) {
+                    rec.ok(Step.BOOK);
+                } else if (book.statusCode() == 200) {
+                    // re-rendered form: slot was taken between reading and booking
+                    rec.reject(Step.BOOK);
+                    return;
+                } else {
+                    rec.fail(Step.BOOK);
+                    return;
+                }
+
+                HttpResponse<String> conf = send(Step.CONFIRMATION, get(path(location)));
+                if (conf == null) return;
+                if (conf.statusCode() == 200) rec.ok(Step.CONFIRMATION);
+                else rec.fail(Step.CONFIRMATION);
+            } finally {
+                // the app allows one live session per account, so always log out
+                HttpResponse<String> out = send(Step.LOGOUT, get("/patient/logout"));
+                if (out != null) {
+                    if (out.statusCode() == 200) rec.ok(Step.LOGOUT);
+                    else rec.fail(Step.LOGOUT);
+                }
+            }
+        }
+
+        // times the call; transport errors are counted here and yield null
+        HttpResponse<String> send(Step step, HttpRequest req) throws InterruptedException {
+            long t0 = System.nanoTime();
+            try {
+                HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+                rec.latency(step, System.nanoTime() - t0);
+                return res;
+            } catch (IOException e) {
+                rec.latency(step, System.nanoTime() - t0);
+                rec.fail(step);
+                return null;
+            }
+        }
+
+        Long pickDoctor() throws InterruptedException {
+            List<Long> ids = doctorIds;
+            if (ids.isEmpty()) {
+                // first caller fills the list from the browse endpoint; others may repeat it harmlessly
+                HttpResponse<String> res = send(Step.SLOTS, get("/appointments/availability?days=" + days));
+                if (res == null || res.statusCode() != 200) return null;
+                List<Long> found = new ArrayList<>();
+                Matcher m = DOCTOR_ID.matcher(res.body());
+                while (m.find()) found.add(Long.valueOf(m.group(1)));
+                doctorIds = ids = List.copyOf(found);
+                if (ids.isEmpty()) return null;
+            }
+            return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout).GET().build();
+    }
+
+    private HttpRequest post(String path, String... form) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < form.length; i += 2) {
+            if (body.length() > 0) body.append('&');
+            body.append(URLEncoder.encode(form[i], StandardCharsets.UTF_8)).append('=')
+                .append(URLEncoder.encode(form[i + 1], StandardCharsets.UTF_8));
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    // Location may be absolute or relative
+    private String path(String location) {
+        return location.startsWith(baseUrl) ? location.substring(baseUrl.length()) : URI.create(location).getRawPath();
+    }
+
+    // a random free slot, as the yyyy-MM-ddTHH:mm the booking form posts
+    private static String pickSlot(String json) {
+        List<String> slots = new ArrayList<>();
+        Matcher day = DAY.matcher(json);
+        while (day.find()) {
+            Matcher t = TIME.matcher(day.group(2));
+            while (t.find()) slots.add(day.group(1) + "T" + t.group(1));
+        }
+        return slots.isEmpty() ? null : slots.get(ThreadLocalRandom.current().nextInt(slots.size()));
+    }
+
+    private static String firstGroup(Pattern p, String s) {
+        Matcher m = p.matcher(s);
+        return m.find() ? m.group(1) : null;
+    }
+
+    // =================================================================================
+    // FAKE SMTP
+    // =================================================================================
+
+    // false when the app has no fake SMTP server (404) or cannot be reached
+    boolean clearMail() {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(timeout).build();
+        try {
+            HttpResponse<Void> res = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/dev/mail/clear"))
+                    .timeout(timeout).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return res.statusCode() == 204;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void readMail(Report report) {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(timeout).build();
+        try {
+            // mail goes out in the background, so give the queue a moment to drain
+            Thread.sleep(2000);
+            HttpResponse<String> res = http.send(get("/dev/mail?limit=0"), HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() != 200) return;
+            String received = firstGroup(MAIL_RECEIVED, res.body());
+            String delay = firstGroup(MAIL_DELAY, res.body());
+            report.mailCaptured = received != null ? Long.parseLong(received) : -1;
+            report.mailDelayMs = delay != null ? Long.parseLong(delay) : 0;
+        } catch (IOException e) {
+            // leave the mail figures unset
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // =================================================================================
+    // RESULTS
+    // =================================================================================
+
+    // per virtual user, so recording needs no locking; merged once the run is over
+    static final class Recorder {
+        final Map<Step, long[]> latencies = new EnumMap<>(Step.class);
+        final Map<Step, Integer> sizes = new EnumMap<>(Step.class);
+        final Map<Step, int[]> outcomes = new EnumMap<>(Step.class); // ok, rejected, failed
+
+        void latency(Step step, long nanos) {
+            long[] a = latencies.computeIfAbsent(step, s -> new long[64]);
+            int n = sizes.getOrDefault(step, 0);
+            if (n == a.length) latencies.put(step, a = Arrays.copyOf(a, n * 2));
+            a[n] = nanos;
+            sizes.put(step, n + 1);
+        }
+
+        void ok(Step step) { outcomes.computeIfAbsent(step, s -> new int[3])[0]++; }
+        void reject(Step step) { outcomes.computeIfAbsent(step, s -> new int[3])[1]++; }
+        void fail(Step step) { outcomes.computeIfAbsent(step, s -> new int[3])[2]++; }
+    }
+
+    static final class StepStats {
+        final Step step;
+        int ok;
+        int rejected;
+        int failed;
+        long[] sorted = new long[0];
+
+        StepStats(Step step) { this.step = step; }
+
+        int requests() { return sorted.length; }
+        int attempts() { return ok + rejected + failed; }
+        double errorRate() { return attempts() == 0 ? 0 : (double) failed / attempts(); }
+
+        // nearest-rank percentile, in milliseconds
+        double percentile(double p) {
+            if (sorted.length == 0) return 0;
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+        }
+    }
+
+    static final class Report {
+        final Map<Step, StepStats> totals = new EnumMap<>(Step.class);
+        final long elapsedNanos;
+        final int flows;
+        long mailCaptured = -1; // -1: no fake SMTP server
+        long mailDelayMs;
+
+        Report(List<Recorder> recorders, long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+            for (Step step : Step.values()) {
+                StepStats s = new StepStats(step);
+                int total = 0;
+                for (Recorder r : recorders) total += r.sizes.getOrDefault(step, 0);
+                long[] all = new long[total];
+                int at = 0;
+                for (Recorder r : recorders) {
+                    int n = r.sizes.getOrDefault(step, 0);
+                    if (n > 0) System.arraycopy(r.latencies.get(step), 0, all, at, n);
+                    at += n;
+                    int[] o = r.outcomes.get(step);
+                    if (o != null) {
+                        s.ok += o[0];
+                        s.rejected += o[1];
+                        s.failed += o[2];
+                    }
+                }
+                Arrays.sort(all);
+                s.sorted = all;
+                totals.put(step, s);
+            }
+            this.flows = totals.get(Step.CONFIRMATION).ok;
+        }
+
+        double seconds() { return elapsedNanos / 1e9; }
+
+        // only meaningful with a delay well above normal booking latency
+        boolean bookingWaitsOnMail() {
+            StepStats book = totals.get(Step.BOOK);
+            return mailCaptured >= 0 && mailDelayMs >= 200 && book.ok > 0 && book.percentile(50) >= mailDelayMs;
+        }
+
+        void print(PrintStream out, Map<String, String> cfg) {
+            out.printf(Locale.ROOT, "%nBooking rush against %s: %s users x %s iterations in %.1f s%n",
+                    cfg.get("baseUrl"), cfg.get("users"), cfg.get("iterations"), seconds());
+            out.printf(Locale.ROOT, "%-13s %7s %7s %7s %7s %7s %8s %8s %8s %8s %8s%n",
+                    "step", "reqs", "ok", "reject", "failed", "err%", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+            for (StepStats s : totals.values()) {
+                out.printf(Locale.ROOT, "%-13s %7d %7d %7d %7d %6.2f%% %8.1f %8.1f %8.1f %8.1f %8.1f%n",
+                        s.step, s.requests(), s.ok, s.rejected, s.failed, 100 * s.errorRate(),
+                        s.requests() / seconds(), s.percentile(50), s.percentile(95), s.percentile(99), s.percentile(100));
+            }
+            out.printf(Locale.ROOT, "Completed bookings: %d (%.1f/s)%n", flows, flows / seconds());
+            if (mailCaptured >= 0) {
+                out.printf(Locale.ROOT, "Mail captured by fake SMTP: %d (relay delay %d ms)%n", mailCaptured, mailDelayMs);
+            }
+        }
+
+        void writeCsv(Path file) throws IOException {
+            try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+                w.println("step,requests,ok,rejected,failed,error_rate,req_per_s,p50_ms,p90_ms,p95_ms,p99_ms,max_ms");
+                for (StepStats s : totals.values()) {
+                    w.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%.4f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                            s.step, s.requests(), s.ok, s.rejected, s.failed, s.errorRate(), s.requests() / seconds(),
+                            s.percentile(50), s.percentile(90), s.percentile(95), s.percentile(99), s.percentile(100));
+                }
+            }
+        }
+
+        void writeJson(Path file, Map<String, String> cfg) throws IOException {
+            try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+                w.println("{");
+                w.println("  \"config\": {");
+                int i = 0;
+                for (Map.Entry<String, String> e : cfg.entrySet()) {
+                    w.printf("    \"%s\": \"%s\"%s%n", e.getKey(), e.getValue().replace("\"", "\\\""),
+                            ++i < cfg.size() ? "," : "");
+                }
+                w.println("  },");
+                w.printf(Locale.ROOT, "  \"elapsedSeconds\": %.3f,%n", seconds());
+                w.printf(Locale.ROOT, "  \"completedBookings\": %d,%n", flows);
+                w.printf(Locale.ROOT, "  \"mailCaptured\": %d,%n", mailCaptured);
+                w.printf(Locale.ROOT, "  \"mailDelayMs\": %d,%n", mailDelayMs);
+                w.printf(Locale.ROOT, "  \"bookingWaitsOnMail\": %s,%n", bookingWaitsOnMail());
+                w.printf(Locale.ROOT, "  \"bookingsPerSecond\": %.3f,%n", flows / seconds());
+                w.println("  \"steps\": [");
+                i = 0;
+                for (StepStats s : totals.values()) {
+                    w.printf(Locale.ROOT, "    {\"step\": \"%s\", \"requests\": %d, \"ok\": %d, \"rejected\": %d, \"failed\": %d, "
+                            + "\"errorRate\": %.4f, \"requestsPerSecond\": %.3f, \"p50Ms\": %.2f, \"p90Ms\": %.2f, "
+                            + "\"p95Ms\": %.2f, \"p99Ms\": %.2f, \"maxMs\": %.2f}%s%n",
+                            s.step, s.requests(), s.ok, s.rejected, s.failed, s.errorRate(), s.requests() / seconds(),
+                            s.percentile(50), s.percentile(90), s.percentile(95), s.percentile(99), s.percentile(100),
+                            ++i < totals.size() ? "," : "");
+                }
+                w.println("  ]");
+                w.println("}");
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Patient accounts for the booking-rush load test (MySQL 8).
+-- loadtest1@example.test .. loadtest500@example.test, password "loadtest", already verified.
+-- The patient rows themselves are created by the app on first login.
+-- Raise the 500 for runs with more virtual users; re-running is harmless.
+
+insert ignore into login (username, password, role, email_verified, is_logged_in)
+with recursive seq (n) as (
+    select 1
+    union all
+    select n + 1 from seq where n < 500
+)
+select concat('loadtest', n, '@example.test'), 'loadtest', 'patient', 1, 0 from seq;
+
+-- To remove them again:
+-- delete a from appointment a join patient p on p.id = a.patient_id where p.email like 'loadtest%@example.test';
+-- delete from patient where email like 'loadtest%@example.test';
+-- delete from login where username like 'loadtest%@example.test';
@@ -0,0 +1,10 @@
+package HMS.example.HospitalManagementSystem.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Enables @Scheduled background jobs (report tiering, ...)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
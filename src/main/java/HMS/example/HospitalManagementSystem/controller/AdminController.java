@@ -5,17 +5,34 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import HMS.example.HospitalManagementSystem.model.Contact;
 import HMS.example.HospitalManagementSystem.model.Doctor;
 import HMS.example.HospitalManagementSystem.model.Login; // ✅ Added Login Import
 import HMS.example.HospitalManagementSystem.model.Patient;
+import HMS.example.HospitalManagementSystem.service.AdminCounters;
+import HMS.example.HospitalManagementSystem.service.AnalyticsService;
+import HMS.example.HospitalManagementSystem.service.BulkImportService;
+import HMS.example.HospitalManagementSystem.service.ExportService;
+import HMS.example.HospitalManagementSystem.service.MessageService;
+import HMS.example.HospitalManagementSystem.service.PatientSearchIndex;
+import HMS.example.HospitalManagementSystem.service.RecordSearchService;
 import jakarta.servlet.http.HttpSession;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
@@ -25,35 +42,55 @@ public class AdminController {
     @Autowired
     private SessionFactory sf;
 
+    @Autowired
+    private PatientSearchIndex patientIndex;
+
+    // Full-text index over record text; told about deletes after commit
+    @Autowired
+    private RecordSearchService recordSearch;
+
+    // Live dashboard totals
+    @Autowired
+    private AdminCounters adminCounters;
+
+    // Rollup-backed analytics queries
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    // Streaming CSV / NDJSON exports
+    @Autowired
+    private ExportService exportService;
+
+    // Background CSV imports of patients / doctors
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    // Patient inbox, incl. batched fan-out to many patients
+    @Autowired
+    private MessageService messageService;
+
+    @Value("${app.admin.dashboard.pending-limit:50}")
+    private int pendingListLimit;
+
     // ----------------- DASHBOARD -----------------
     @GetMapping("/dashboard")
     public String dashboard(Model model, HttpSession session) {
 
+        // Totals come from the in-memory counters, not count(*) queries
+        AdminCounters.Snapshot counts = adminCounters.snapshot();
+        model.addAttribute("counts", counts);
+        model.addAttribute("totalDoctors", counts.getDoctors());
+        model.addAttribute("pendingCount", counts.getPendingDoctors());
+        model.addAttribute("approvedCount", counts.getApprovedDoctors());
+
         Session ss = sf.openSession();
         try {
-            Long totalDoctors = ss.createQuery(
-                    "select count(d.id) from Doctor d", Long.class
-            ).uniqueResult();
-
-            Long pendingCount = ss.createQuery(
-                    "select count(d.id) from Doctor d where d.approved = false or d.approved is null",
-                    Long.class
-            ).uniqueResult();
-
-            Long approvedCount = ss.createQuery(
-                    "select count(d.id) from Doctor d where d.approved = true",
-                    Long.class
-            ).uniqueResult();
-
-            // Pending doctor list
+            // Pending doctor list (first page only; the total is in pendingCount)
             List<Doctor> pendingDoctors = ss.createQuery(
                     "from Doctor d where d.approved = false or d.approved is null order by d.name",
                     Doctor.class
-            ).list();
+            ).setMaxResults(pendingListLimit).list();
 
-            model.addAttribute("totalDoctors", totalDoctors != null ? totalDoctors : 0L);
-            model.addAttribute("pendingCount", pendingCount != null ? pendingCount : 0L);
-            model.addAttribute("approvedCount", approvedCount != null ? approvedCount : 0L);
             model.addAttribute("pendingDoctors", pendingDoctors);
 
         } finally {
@@ -63,6 +100,177 @@ public class AdminController {
         return "admin_dashboard";
     }
 
+    // ----------------- ANALYTICS (reads daily rollups only) -----------------
+    @GetMapping("/analytics")
+    public String analytics(@RequestParam(value = "from", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                            @RequestParam(value = "to", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                            @RequestParam(value = "specialization", required = false) String specialization,
+                            HttpSession httpSession,
+                            Model model) {
+
+        Object roleObj = httpSession.getAttribute("role");
+        if (roleObj == null || !"admin".equalsIgnoreCase(roleObj.toString())) {
+            model.addAttribute("msg", "Please login as admin.");
+            return "home";
+        }
+
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(89);
+        if (start.isAfter(end)) start = end;
+        String spec = (specialization == null || specialization.isBlank()) ? null : specialization.trim();
+
+        List<AnalyticsService.Totals> daily = analyticsService.daily(start, end, spec);
+        List<String> labels = new ArrayList<>();
+        List<Long> booked = new ArrayList<>();
+        List<Long> cancelled = new ArrayList<>();
+        List<Long> completed = new ArrayList<>();
+        List<Long> noShows = new ArrayList<>();
+        List<Long> records = new ArrayList<>();
+        for (AnalyticsService.Totals t : daily) {
+            labels.add(t.getLabel());
+            booked.add(t.getBooked());
+            cancelled.add(t.getCancelled());
+            completed.add(t.getCompleted());
+            noShows.add(t.getNoShows());
+            records.add(t.getRecordsCreated());
+        }
+
+        model.addAttribute("from", start);
+        model.addAttribute("to", end);
+        model.addAttribute("specialization", spec);
+        model.addAttribute("labels", labels);
+        model.addAttribute("booked", booked);
+        model.addAttribute("cancelled", cancelled);
+        model.addAttribute("completed", completed);
+        model.addAttribute("noShows", noShows);
+        model.addAttribute("records", records);
+        model.addAttribute("bySpecialization", analyticsService.bySpecialization(start, end));
+        model.addAttribute("topDoctors", analyticsService.topDoctors(start, end, spec, 20));
+        return "admin_analytics";
+    }
+
+    // ----------------- EXPORT (patients / appointments / records) -----------------
+    // Rows are scrolled and written straight to the response; nothing is buffered.
+    @GetMapping("/export/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable("dataset") String dataset,
+                                                        @RequestParam(value = "format", defaultValue = "csv") String format,
+                                                        HttpSession httpSession) {
+
+        Object roleObj = httpSession.getAttribute("role");
+        if (roleObj == null || !"admin".equalsIgnoreCase(roleObj.toString())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        ExportService.Dataset ds = ExportService.Dataset.of(dataset);
+        if (ds == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ExportService.Format fmt = ExportService.Format.of(format);
+        String filename = ds.name().toLowerCase() + "-" + LocalDate.now() + "." + fmt.getExtension();
+
+        StreamingResponseBody body = out -> exportService.write(ds, fmt, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fmt.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(body);
+    }
+
+    // ----------------- BULK IMPORT (CSV upload, runs in the background) -----------------
+    @GetMapping("/import")
+    public String importPage(@RequestParam(value = "job", required = false) String jobId,
+                             HttpSession httpSession,
+                             Model model) {
+
+        Object roleObj = httpSession.getAttribute("role");
+        if (roleObj == null || !"admin".equalsIgnoreCase(roleObj.toString())) {
+            model.addAttribute("msg", "Please login as admin.");
+            return "home";
+        }
+
+        model.addAttribute("jobs", bulkImportService.recent());
+        model.addAttribute("currentJob", bulkImportService.get(jobId));
+        return "admin_import";
+    }
+
+    @PostMapping("/import")
+    public String startImport(@RequestParam("kind") String kind,
+                              @RequestParam("file") MultipartFile file,
+                              HttpSession httpSession,
+                              RedirectAttributes ra) {
+
+        Object roleObj = httpSession.getAttribute("role");
+        if (roleObj == null || !"admin".equalsIgnoreCase(roleObj.toString())) {
+            ra.addFlashAttribute("msg", "Please login as admin.");
+            return "redirect:/";
+        }
+        if (file == null || file.isEmpty()) {
+            ra.addFlashAttribute("msg", "Please choose a CSV file to import.");
+            return "redirect:/admin/import";
+        }
+
+        BulkImportService.Kind k = "doctors".equalsIgnoreCase(kind)
+                ? BulkImportService.Kind.DOCTORS
+                : BulkImportService.Kind.PATIENTS;
+        try {
+            BulkImportService.Job job = bulkImportService.start(k, file);
+            return "redirect:/admin/import?job=" + job.getId();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            ra.addFlashAttribute("msg", "Could not start import: " + ex.getMessage());
+            return "redirect:/admin/import";
+        }
+    }
+
+    // Progress polled by admin_import.html
+    @GetMapping("/import/{id}")
+    public ResponseEntity<BulkImportService.Job> importProgress(@PathVariable("id") String id,
+                                                               HttpSession httpSession) {
+        Object roleObj = httpSession.getAttribute("role");
+        if (roleObj == null || !"admin".equalsIgnoreCase(roleObj.toString())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        BulkImportService.Job job = bulkImportService.get(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    // ----------------- BROADCAST MESSAGE TO PATIENTS -----------------
+    @PostMapping("/messages/broadcast")
+    public String broadcast(@RequestParam("audience") String audience,
+                            @RequestParam(value = "doctorId", required = false) Long doctorId,
+                            @RequestParam("text") String text,
+                            HttpSession httpSession,
+                            RedirectAttributes ra) {
+
+        Object roleObj = httpSession.getAttribute("role");
+        if (roleObj == null || !"admin".equalsIgnoreCase(roleObj.toString())) {
+            ra.addFlashAttribute("msg", "Please login as admin.");
+            return "redirect:/";
+        }
+        if (text == null || text.isBlank()) {
+            ra.addFlashAttribute("msg", "Message text is required.");
+            return "redirect:/admin/dashboard";
+        }
+
+        MessageService.Audience a = "doctor".equalsIgnoreCase(audience)
+                ? MessageService.Audience.DOCTOR_PATIENTS
+                : MessageService.Audience.ALL_PATIENTS;
+        if (a == MessageService.Audience.DOCTOR_PATIENTS && doctorId == null) {
+            ra.addFlashAttribute("msg", "Choose the doctor whose patients should receive the message.");
+            return "redirect:/admin/dashboard";
+        }
+        try {
+            int sent = messageService.broadcast(a, doctorId, "Clinic", text.trim());
+            ra.addFlashAttribute("msg", "Message sent to " + sent + " patient(s).");
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            ra.addFlashAttribute("msg", "Broadcast failed: " + ex.getMessage());
+        }
+        return "redirect:/admin/dashboard";
+    }
+
     // ----------------- DOCTORS LIST PAGE (ONLY APPROVED DOCTORS) -----------------
     @GetMapping("/doctors")
     public String doctorsPage(Model model) {
@@ -237,8 +445,15 @@ public class AdminController {
                 }
             }
 
+            // records written by this doctor leave the search index once the delete commits
+            List<Integer> recordIds = ss.createQuery(
+                    "select m.id from MedicalRecord m where m.doctor.id = :did", Integer.class)
+                .setParameter("did", id)
+                .list();
+
             ss.delete(d);
             tx.commit();
+            for (Integer recordId : recordIds) recordSearch.recordDeleted(recordId);
 
             ra.addFlashAttribute("msg", "Doctor '" + d.getName() + "' deleted successfully.");
             return "redirect:/admin/doctors";
@@ -266,6 +481,19 @@ public class AdminController {
         }
     }
 
+    // Typeahead lookup for the patient screens (JSON), served from the in-memory index
+    @GetMapping("/patients/search")
+    @ResponseBody
+    public ResponseEntity<List<PatientSearchIndex.Hit>> searchPatients(@RequestParam("q") String q,
+                                                                       @RequestParam(value = "limit", defaultValue = "10") int limit,
+                                                                       HttpSession httpSession) {
+        Object roleObj = httpSession.getAttribute("role");
+        if (roleObj == null || !"admin".equalsIgnoreCase(roleObj.toString())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(patientIndex.search(q, limit));
+    }
+
     @GetMapping("/patients/new")
     public String newPatientForm(Model model) {
         model.addAttribute("patient", new Patient());
@@ -282,6 +510,7 @@ public class AdminController {
             tx = ss.beginTransaction();
             ss.save(patient);
             tx.commit();
+            patientIndex.upsert(patient);
 
             ra.addFlashAttribute("msg", "Patient '" + patient.getName() + "' added successfully.");
             return "redirect:/admin/patients";
@@ -340,6 +569,7 @@ public class AdminController {
 
             ss.update(p);
             tx.commit();
+            patientIndex.upsert(p);
 
             ra.addFlashAttribute("msg", "Patient updated successfully.");
             return "redirect:/admin/patients";
@@ -370,6 +600,8 @@ public class AdminController {
 
             ss.delete(p);
             tx.commit();
+            recordSearch.patientDeleted(id);
+            patientIndex.remove(id);
 
             ra.addFlashAttribute("msg", "Patient '" + p.getName() + "' deleted successfully.");
             return "redirect:/admin/patients";
@@ -426,6 +658,17 @@ public class AdminController {
                 return "redirect:/admin/contacts";
             }
 
+            if (!contact.isRead()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    contact.setRead(Boolean.TRUE);
+                    tx.commit();
+                } catch (Exception e) {
+                    tx.rollback();
+                    e.printStackTrace();
+                }
+            }
+
             model.addAttribute("contact", contact);
             return "admin_contact_view"; 
 
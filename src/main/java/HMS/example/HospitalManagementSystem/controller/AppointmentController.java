@@ -4,14 +4,22 @@ import org.hibernate.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import HMS.example.HospitalManagementSystem.model.*;
+import HMS.example.HospitalManagementSystem.service.AppointmentNumberService;
+import HMS.example.HospitalManagementSystem.service.AvailabilityService;
 import HMS.example.HospitalManagementSystem.service.EmailService;
+import HMS.example.HospitalManagementSystem.service.IdempotencyStore;
+import HMS.example.HospitalManagementSystem.service.WaitlistService;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.servlet.http.HttpSession;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -27,6 +35,18 @@ public class AppointmentController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private AppointmentNumberService appointmentNumbers;
+
+    @Autowired
+    private IdempotencyStore idempotency;
+
+    @Autowired
+    private AvailabilityService availability;
+
+    @Autowired
+    private WaitlistService waitlist;
+
     /* ================= UTIL ================= */
     private Long getID(HttpSession session, String key) {
         Object v = session.getAttribute(key);
@@ -39,6 +59,8 @@ public class AppointmentController {
     @PostMapping("/book")
     public String book(@RequestParam Long doctorId,
                        @RequestParam String timeRaw,
+                       @RequestParam(required = false) String idempotencyKey,
+                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
                        Model model,
                        HttpSession session) {
 
@@ -56,6 +78,21 @@ public class AppointmentController {
         if (appointmentTime.isBefore(LocalDateTime.now()))
             return msg(model, "Cannot book past appointment", "patient_doctors");
 
+        // 🔁 repeated submit of the same form -> same confirmation, no second booking
+        // (before the slot check: the first submit's own booking now fills the slot)
+        IdempotencyStore.Claim claim = idempotency.claim(
+                "book:" + patientId + ":" + doctorId + ":" + appointmentTime,
+                IdempotencyStore.key(idempotencyKey, idempotencyHeader));
+        if (claim.isReplay()) return claim.getReplay();
+        if (claim.isInProgress()) return msg(model, "Booking is still being processed", "patient_doctors");
+
+        // 🗓️ outside working hours or already taken (from the in-memory calendar)
+        if (!availability.isBookable(doctorId, appointmentTime)
+                || waitlist.heldForOther(doctorId, appointmentTime, patientId)) {
+            claim.release();
+            return msg(model, "Time slot unavailable", "patient_doctors");
+        }
+
         Session ss = sf.openSession();
         Transaction tx = ss.beginTransaction();
 
@@ -79,47 +116,66 @@ public class AppointmentController {
             if (clash != null && clash > 0)
                 return msg(model, "Time slot unavailable", "patient_doctors");
 
-            /* ===== STEP 1: SAVE ===== */
             Appointment ap = new Appointment();
             ap.setDoctor(doctor);
             ap.setPatient(patient);
             ap.setAppointmentTime(appointmentTime);
             ap.setStatus(AppointmentStatus.BOOKED);
             ap.setNotes("Booked via system");
+            ap.setAppointmentNumber(appointmentNumbers.next());
 
             ss.save(ap);
-            ss.flush(); // 🔥 forces AUTO_INCREMENT
-
-            /* ===== STEP 2: GENERATE APPOINTMENT NUMBER ===== */
-            String appointmentNo =
-                    "APT-" +
-                    String.format("%06d", ap.getId()) +
-                    "-" +
-                    String.format("%06d", patient.getId());
-
-            ap.setAppointmentNumber(appointmentNo);
-
-            ss.update(ap);
             tx.commit();
 
             // 📧 email
             if (patient.getEmail() != null) {
                 try {
-                    emailService.sendAppointmentConfirmation(patient.getEmail(), ap);
+                    emailService.sendAppointmentConfirmationLater(patient.getEmail(), ap);
                 } catch (Exception ignore) {}
             }
 
-            return "redirect:/appointments/confirmation/" + ap.getId();
+            return claim.complete("redirect:/appointments/confirmation/" + ap.getId());
 
         } catch (Exception e) {
-            tx.rollback();
+            if (tx.isActive()) tx.rollback();
             log.error("Booking failed", e);
             return msg(model, "Booking failed: " + e.getMessage(), "patient_doctors");
         } finally {
+            claim.release();
             ss.close();
         }
     }
 
+    /* ================= AVAILABILITY ================= */
+    // free slots of one doctor, e.g. /appointments/availability/3?from=2026-10-20&days=7
+    @GetMapping("/availability/{doctorId}")
+    public ResponseEntity<List<AvailabilityService.FreeDay>> freeSlots(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "7") int days,
+            HttpSession session) {
+
+        if (getID(session, "patientId") == null && getID(session, "doctorId") == null)
+            return ResponseEntity.status(401).build();
+
+        return ResponseEntity.ok(availability.freeSlots(doctorId, from, Math.min(days, 60)));
+    }
+
+    // free-slot counts per day for every approved doctor
+    @GetMapping("/availability")
+    public ResponseEntity<List<AvailabilityService.DoctorAvailability>> browse(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(required = false) String specialization,
+            HttpSession session) {
+
+        if (getID(session, "patientId") == null && getID(session, "doctorId") == null)
+            return ResponseEntity.status(401).build();
+
+        String spec = specialization != null && !specialization.isBlank() ? specialization.trim() : null;
+        return ResponseEntity.ok(availability.browse(from, Math.min(days, 60), spec));
+    }
+
     /* ================= CONFIRMATION ================= */
     @GetMapping("/confirmation/{id}")
     public String confirmation(@PathVariable Long id, Model model, HttpSession session) {
@@ -179,30 +235,50 @@ public class AppointmentController {
 
     /* ================= CANCEL ================= */
     @PostMapping("/{id}/cancel")
-    public String cancel(@PathVariable Long id, HttpSession session) {
+    public String cancel(@PathVariable Long id,
+                         @RequestParam(required = false) String idempotencyKey,
+                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
+                         HttpSession session) {
 
         Long did = getID(session, "doctorId");
         Long pid = getID(session, "patientId");
+        String done = (did != null) ? "redirect:/doctor/dashboard"
+                                    : "redirect:/appointments/patient";
+
+        IdempotencyStore.Claim claim = idempotency.claim(
+                "cancel:" + (did != null ? "doctor:" + did : "patient:" + pid) + ":" + id,
+                IdempotencyStore.key(idempotencyKey, idempotencyHeader));
+        if (claim.isReplay()) return claim.getReplay();
 
         Session ss = sf.openSession();
         Transaction tx = ss.beginTransaction();
 
-        Appointment ap = ss.get(Appointment.class, id);
-
-        if (ap != null && (
-                (did != null && did.equals(ap.getDoctor().getId())) ||
-                (pid != null && pid.equals(ap.getPatient().getId()))
-        )) {
-            ap.setStatus(AppointmentStatus.CANCELLED);
-            ss.update(ap);
-            tx.commit();
-        } else {
+        try {
+            Appointment ap = ss.get(Appointment.class, id);
+
+            if (ap != null && (
+                    (did != null && did.equals(ap.getDoctor().getId())) ||
+                    (pid != null && pid.equals(ap.getPatient().getId()))
+            )) {
+                if (ap.getStatus() != AppointmentStatus.CANCELLED) {
+                    ap.setStatus(AppointmentStatus.CANCELLED);
+                    ss.update(ap);
+                }
+                tx.commit();
+                return claim.complete(done);
+            }
             tx.rollback();
-        }
+            return done;
 
-        ss.close();
-        return (did != null) ? "redirect:/doctor/dashboard"
-                             : "redirect:/appointments/patient";
+        } catch (OptimisticLockException | StaleStateException e) {
+            // changed concurrently (e.g. completed by the doctor): leave it as the other side set it
+            if (tx.isActive()) tx.rollback();
+            log.info("Cancel of appointment {} lost to a concurrent update", id);
+            return done;
+        } finally {
+            claim.release();
+            ss.close();
+        }
     }
 
     /* ================= HELPERS ================= */
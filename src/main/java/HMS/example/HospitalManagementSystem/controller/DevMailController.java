@@ -0,0 +1,54 @@
+package HMS.example.HospitalManagementSystem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import HMS.example.HospitalManagementSystem.service.FakeSmtpServer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mail captured by the fake SMTP server, for load tests and local checks. Not mapped at
+ * all outside the loadtest and test profiles, and answers 404 unless the server is enabled.
+ */
+@Controller
+@Profile({"loadtest", "test"})
+public class DevMailController {
+
+    @Autowired
+    private FakeSmtpServer smtp;
+
+    @GetMapping("/dev/mail")
+    public ResponseEntity<Map<String, Object>> mail(@RequestParam(defaultValue = "50") int limit) {
+        if (!smtp.isEnabled()) return ResponseEntity.notFound().build();
+
+        List<FakeSmtpServer.CapturedMail> all = smtp.messages();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("received", smtp.getReceived());
+        body.put("delayMs", smtp.getDelayMs());
+        body.put("messages", all.subList(0, Math.min(Math.max(limit, 0), all.size())));
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/dev/mail/clear")
+    public ResponseEntity<Void> clear() {
+        if (!smtp.isEnabled()) return ResponseEntity.notFound().build();
+        smtp.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    // simulate a slower or faster relay without restarting
+    @PostMapping("/dev/mail/delay")
+    public ResponseEntity<Void> delay(@RequestParam("ms") long ms) {
+        if (!smtp.isEnabled()) return ResponseEntity.notFound().build();
+        smtp.setDelayMs(ms);
+        return ResponseEntity.noContent().build();
+    }
+}
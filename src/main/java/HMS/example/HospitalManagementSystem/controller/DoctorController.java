@@ -2,57 +2,96 @@ package HMS.example.HospitalManagementSystem.controller;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import HMS.example.HospitalManagementSystem.model.Appointment;
 import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
 import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.model.DoctorWorkingHours;
 import HMS.example.HospitalManagementSystem.model.MedicalRecord;
 import HMS.example.HospitalManagementSystem.model.Patient;
-// If you have a RecordReport model for database tracking of files, import it here
-// import HMS.example.HospitalManagementSystem.model.RecordReport; 
+import HMS.example.HospitalManagementSystem.model.RecordReport;
+import HMS.example.HospitalManagementSystem.service.AppointmentArchiveService;
+import HMS.example.HospitalManagementSystem.service.AvailabilityService;
+import HMS.example.HospitalManagementSystem.service.DoctorAppointmentCounters;
+import HMS.example.HospitalManagementSystem.service.DoctorScheduleService;
 import HMS.example.HospitalManagementSystem.service.EmailService;
+import HMS.example.HospitalManagementSystem.service.IdempotencyStore;
+import HMS.example.HospitalManagementSystem.service.RecordSearchService;
+import HMS.example.HospitalManagementSystem.service.ReportStorageService;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.servlet.http.HttpSession;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/doctor")
 public class DoctorController {
 
+    private static final Logger log = LoggerFactory.getLogger(DoctorController.class);
+
     @Autowired
     private SessionFactory sf;
 
     @Autowired
     private EmailService emailService;
 
-    // Define storage location for uploaded files
-    private final Path storageDir = Paths.get(System.getProperty("user.dir"), "uploads", "reports");
+    // Replays repeated cancel submits instead of cancelling (and mailing) twice
+    @Autowired
+    private IdempotencyStore idempotency;
 
-    public DoctorController() {
-        // Create upload directory if it doesn't exist
-        try {
-            Files.createDirectories(storageDir);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
+    // Stores uploaded report files and their metadata
+    @Autowired
+    private ReportStorageService reportStorage;
+
+    // Full-text index over record text
+    @Autowired
+    private RecordSearchService recordSearch;
+
+    // Maintained per-doctor appointment counts
+    @Autowired
+    private DoctorAppointmentCounters appointmentCounters;
+
+    // Free-slot calendars; reloaded when a doctor edits their hours
+    @Autowired
+    private AvailabilityService availability;
+
+    // Appointments moved out of the live table; read only for "include archived"
+    @Autowired
+    private AppointmentArchiveService archive;
+
+    // Cancels or shifts a whole range of appointments at once
+    @Autowired
+    private DoctorScheduleService schedule;
+
+    // Hard cap on rows rendered for one dashboard window
+    @Value("${app.doctor.dashboard.max-rows:200}")
+    private int dashboardMaxRows;
+
+    @Value("${app.doctor.manage.page-size:25}")
+    private int managePageSize;
 
     // ---------------------------------------------------
     // Helper
@@ -67,7 +106,10 @@ public class DoctorController {
     // DOCTOR DASHBOARD (UPCOMING APPOINTMENTS ONLY)
     // ===================================================
     @GetMapping({"", "/", "/dashboard"})
-    public String dashboard(Model model, HttpSession session) {
+    public String dashboard(@RequestParam(value = "view", defaultValue = "week") String view,
+                            @RequestParam(value = "date", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                            Model model, HttpSession session) {
 
         Long doctorId = toLong(session.getAttribute("doctorId"));
         if (doctorId == null) {
@@ -87,23 +129,44 @@ public class DoctorController {
             model.addAttribute("doctorName", doctor.getName());
             model.addAttribute("detailsCompleted", doctor.getDetailsCompleted());
 
-            // 🔹 UPCOMING APPOINTMENTS ONLY
+            // 🔹 UPCOMING APPOINTMENTS, ONE DAY OR WEEK AT A TIME
+            boolean dayView = "day".equalsIgnoreCase(view);
+            LocalDate today = LocalDate.now();
+            LocalDate anchor = (date != null && !date.isBefore(today)) ? date : today;
+            LocalDate from = dayView ? anchor : anchor.with(DayOfWeek.MONDAY);
+            LocalDate to = dayView ? from.plusDays(1) : from.plusWeeks(1);
+
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime windowStart = from.atStartOfDay().isBefore(now) ? now : from.atStartOfDay();
+
             Query<Appointment> q = ss.createQuery(
                 "from Appointment a " +
                 "where a.doctor.id = :did " +
-                "and a.appointmentTime >= :now " +
+                "and a.appointmentTime >= :start and a.appointmentTime < :end " +
                 "and a.status <> :cancelled " +
                 "order by a.appointmentTime asc",
                 Appointment.class
             );
 
             q.setParameter("did", doctorId);
-            q.setParameter("now", LocalDateTime.now());
+            q.setParameter("start", windowStart);
+            q.setParameter("end", to.atStartOfDay());
             q.setParameter("cancelled", AppointmentStatus.CANCELLED);
+            q.setMaxResults(dashboardMaxRows + 1);
 
             List<Appointment> appointments = q.list();
+            boolean truncated = appointments.size() > dashboardMaxRows;
+            if (truncated) appointments = appointments.subList(0, dashboardMaxRows);
             model.addAttribute("appointments",
                     appointments != null ? appointments : Collections.emptyList());
+            model.addAttribute("truncated", truncated);
+
+            model.addAttribute("view", dayView ? "day" : "week");
+            model.addAttribute("windowFrom", from);
+            model.addAttribute("windowTo", to.minusDays(1));
+            model.addAttribute("prevDate", from.isAfter(today) ? (dayView ? from.minusDays(1) : from.minusWeeks(1)) : null);
+            model.addAttribute("nextDate", to);
+            model.addAttribute("counts", appointmentCounters.get(doctorId));
 
             return "doctor_dashboard";
 
@@ -112,6 +175,200 @@ public class DoctorController {
         }
     }
 
+    // ===================================================
+    // WORKING HOURS / AVAILABILITY
+    // ===================================================
+    @GetMapping("/availability")
+    public String availability(Model model, HttpSession session) {
+
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        if (doctorId == null) {
+            model.addAttribute("msg", "Please login as doctor.");
+            return "home";
+        }
+
+        Session ss = sf.openSession();
+        try {
+            Doctor doctor = ss.get(Doctor.class, doctorId);
+            if (doctor == null) {
+                model.addAttribute("msg", "Doctor record not found.");
+                return "home";
+            }
+
+            // one row per ISO weekday; a missing row is a day off
+            DoctorWorkingHours[] week = new DoctorWorkingHours[7];
+            for (DoctorWorkingHours h : ss.createQuery(
+                    "from DoctorWorkingHours h where h.doctorId = :did", DoctorWorkingHours.class)
+                    .setParameter("did", doctorId)
+                    .list()) {
+                week[h.getDayOfWeek() - 1] = h;
+            }
+            List<DoctorWorkingHours> days = new ArrayList<>(7);
+            for (int i = 0; i < 7; i++) {
+                days.add(week[i] != null ? week[i] : new DoctorWorkingHours(doctorId, i + 1, null, null, null, null));
+            }
+
+            model.addAttribute("doctor", doctor);
+            model.addAttribute("doctorName", doctor.getName());
+            model.addAttribute("days", days);
+            model.addAttribute("usingDefault", Arrays.stream(week).allMatch(h -> h == null));
+            model.addAttribute("slotMinutes", availability.slotMinutes(doctorId));
+            model.addAttribute("slotSizes", AvailabilityService.SLOT_SIZES.stream().sorted().toList());
+            model.addAttribute("freeDays", availability.freeSlots(doctorId, LocalDate.now(), 7));
+            return "doctor_availability";
+        } finally {
+            ss.close();
+        }
+    }
+
+    // form fields per ISO weekday d: start_d, end_d, breakStart_d, breakEnd_d (blank start = day off)
+    @PostMapping("/availability")
+    public String saveAvailability(@RequestParam("slotMinutes") int slotMinutes,
+                                   @RequestParam Map<String, String> form,
+                                   RedirectAttributes redirect,
+                                   HttpSession session, Model model) {
+
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        if (doctorId == null) {
+            model.addAttribute("msg", "Please login as doctor.");
+            return "home";
+        }
+        if (!AvailabilityService.SLOT_SIZES.contains(slotMinutes)) {
+            redirect.addFlashAttribute("msg", "Unsupported slot length.");
+            return "redirect:/doctor/availability";
+        }
+
+        List<DoctorWorkingHours> rows = new ArrayList<>();
+        try {
+            for (int d = 1; d <= 7; d++) {
+                LocalTime start = time(form.get("start_" + d));
+                LocalTime end = time(form.get("end_" + d));
+                if (start == null && end == null) continue;
+                if (start == null || end == null || !start.isBefore(end)) {
+                    redirect.addFlashAttribute("msg", "Each working day needs a start before its end (" + DayOfWeek.of(d) + ").");
+                    return "redirect:/doctor/availability";
+                }
+                LocalTime breakStart = time(form.get("breakStart_" + d));
+                LocalTime breakEnd = time(form.get("breakEnd_" + d));
+                if ((breakStart == null) != (breakEnd == null)
+                        || (breakStart != null && (!breakStart.isBefore(breakEnd) || breakStart.isBefore(start) || breakEnd.isAfter(end)))) {
+                    redirect.addFlashAttribute("msg", "The break must lie inside the working hours (" + DayOfWeek.of(d) + ").");
+                    return "redirect:/doctor/availability";
+                }
+                rows.add(new DoctorWorkingHours(doctorId, d, start, end, breakStart, breakEnd));
+            }
+        } catch (DateTimeParseException ex) {
+            redirect.addFlashAttribute("msg", "Invalid time, please use HH:mm.");
+            return "redirect:/doctor/availability";
+        }
+
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            Doctor doctor = ss.get(Doctor.class, doctorId);
+            if (doctor == null) {
+                tx.rollback();
+                model.addAttribute("msg", "Doctor record not found.");
+                return "home";
+            }
+            doctor.setSlotMinutes(slotMinutes);
+
+            Query<?> del = ss.createQuery("delete from DoctorWorkingHours h where h.doctorId = :did");
+            del.setParameter("did", doctorId);
+            del.executeUpdate();
+            for (DoctorWorkingHours h : rows) ss.persist(h);
+
+            tx.commit();
+        } catch (Exception ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            redirect.addFlashAttribute("msg", "Could not save working hours: " + ex.getMessage());
+            return "redirect:/doctor/availability";
+        } finally {
+            ss.close();
+        }
+
+        availability.reloadDoctor(doctorId);
+        redirect.addFlashAttribute("msg", rows.isEmpty()
+                ? "Working hours cleared; the default clinic hours apply."
+                : "Working hours saved.");
+        return "redirect:/doctor/availability";
+    }
+
+    private static LocalTime time(String raw) {
+        return raw == null || raw.isBlank() ? null : LocalTime.parse(raw.trim());
+    }
+
+    // ===================================================
+    // BULK SCHEDULE CHANGES
+    // ===================================================
+    @GetMapping("/schedule")
+    public String schedulePage(@RequestParam(value = "job", required = false) String jobId,
+                               Model model, HttpSession session) {
+
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        if (doctorId == null) {
+            model.addAttribute("msg", "Please login as doctor.");
+            return "home";
+        }
+        model.addAttribute("today", LocalDate.now());
+        model.addAttribute("job", schedule.job(doctorId, jobId));
+        return "doctor_schedule";
+    }
+
+    // cancels, or moves by shiftMinutes, every open appointment on date between fromTime and toTime
+    @PostMapping("/schedule/bulk")
+    public String bulkSchedule(@RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                               @RequestParam(value = "toDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+                               @RequestParam(value = "fromTime", required = false) String fromTime,
+                               @RequestParam(value = "toTime", required = false) String toTime,
+                               @RequestParam("action") DoctorScheduleService.Action action,
+                               @RequestParam(value = "shiftMinutes", defaultValue = "0") int shiftMinutes,
+                               @RequestParam(required = false) String idempotencyKey,
+                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
+                               HttpSession session, RedirectAttributes ra) {
+
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        if (doctorId == null) return "redirect:/";
+
+        IdempotencyStore.Claim claim = idempotency.claim(
+                "schedule:doctor:" + doctorId, IdempotencyStore.key(idempotencyKey, idempotencyHeader));
+        if (claim.isReplay()) return claim.getReplay();
+
+        try {
+            LocalTime start = time(fromTime);
+            LocalTime end = time(toTime);
+            LocalDateTime from = date.atTime(start != null ? start : LocalTime.MIN);
+            LocalDateTime to = end != null
+                    ? (toDate != null ? toDate : date).atTime(end)
+                    : (toDate != null ? toDate : date).plusDays(1).atStartOfDay();
+
+            DoctorScheduleService.BulkJob job = schedule.apply(doctorId, action, from, to, shiftMinutes);
+            ra.addFlashAttribute("msg", job.getAffected() == 0
+                    ? "No open appointments in that range."
+                    : (action == DoctorScheduleService.Action.CANCEL ? "Cancelled " : "Moved ")
+                            + job.getAffected() + " appointment(s). Patients are being notified.");
+            return claim.complete("redirect:/doctor/schedule?job=" + job.getId());
+        } catch (DateTimeParseException ex) {
+            ra.addFlashAttribute("msg", "Invalid time, please use HH:mm.");
+            return "redirect:/doctor/schedule";
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            ra.addFlashAttribute("msg", ex.getMessage());
+            return "redirect:/doctor/schedule";
+        } finally {
+            claim.release();
+        }
+    }
+
+    // polled by the schedule page while notifications go out
+    @GetMapping("/schedule/jobs/{id}")
+    public ResponseEntity<DoctorScheduleService.BulkJob> bulkJob(@PathVariable("id") String id, HttpSession session) {
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        if (doctorId == null) return ResponseEntity.status(401).build();
+        DoctorScheduleService.BulkJob job = schedule.job(doctorId, id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
     // ===================================================
     // VIEW SINGLE APPOINTMENT (EXISTING)
     // ===================================================
@@ -183,8 +440,10 @@ public class DoctorController {
                                     @RequestParam String appointmentTime,
                                     @RequestParam String status,
                                     @RequestParam(required = false) String notes,
+                                    @RequestParam(required = false) Long version,
                                     HttpSession session,
-                                    Model model) {
+                                    Model model,
+                                    RedirectAttributes ra) {
 
         Long doctorId = toLong(session.getAttribute("doctorId"));
         if (doctorId == null) {
@@ -204,6 +463,13 @@ public class DoctorController {
                 return "redirect:/doctor/dashboard";
             }
 
+            // the form was rendered from an older copy: don't overwrite the newer change
+            if (version != null && version != ap.getVersion()) {
+                tx.rollback();
+                ra.addFlashAttribute("msg", "This appointment was changed while you were editing. Please review it and edit again.");
+                return "redirect:/doctor/dashboard";
+            }
+
             // ✅ CAPTURE OLD TIME BEFORE UPDATE
             LocalDateTime oldTime = ap.getAppointmentTime();
 
@@ -234,8 +500,12 @@ public class DoctorController {
 
             return "redirect:/doctor/appointments/" + id;
 
+        } catch (OptimisticLockException | StaleStateException e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            ra.addFlashAttribute("msg", "This appointment was changed while you were editing. Please review it and edit again.");
+            return "redirect:/doctor/dashboard";
         } catch (Exception e) {
-            if (tx != null) tx.rollback();
+            if (tx != null && tx.isActive()) tx.rollback();
             e.printStackTrace();
             model.addAttribute("msg", "Update failed.");
             return "redirect:/doctor/dashboard";
@@ -249,8 +519,11 @@ public class DoctorController {
     // ===================================================
     @PostMapping("/appointments/{id}/cancel")
     public String cancelAppointment(@PathVariable Long id,
+                                    @RequestParam(required = false) String idempotencyKey,
+                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
                                     HttpSession session,
-                                    Model model) {
+                                    Model model,
+                                    RedirectAttributes ra) {
 
         Long doctorId = toLong(session.getAttribute("doctorId"));
         if (doctorId == null) {
@@ -258,6 +531,10 @@ public class DoctorController {
             return "home";
         }
 
+        IdempotencyStore.Claim claim = idempotency.claim(
+                "cancel:doctor:" + doctorId + ":" + id, IdempotencyStore.key(idempotencyKey, idempotencyHeader));
+        if (claim.isReplay()) return claim.getReplay();
+
         Session ss = sf.openSession();
         Transaction tx = null;
 
@@ -270,6 +547,12 @@ public class DoctorController {
                 return "redirect:/doctor/dashboard";
             }
 
+            // already cancelled, or the visit is over: nothing to write and no email
+            if (ap.getStatus() == AppointmentStatus.CANCELLED || (ap.getStatus() != null && ap.getStatus().isFinished())) {
+                tx.commit();
+                return claim.complete("redirect:/doctor/dashboard");
+            }
+
             // 1️⃣ Capture details for email BEFORE update
             Patient patient = ap.getPatient();
             String doctorName = ap.getDoctor().getName();
@@ -293,13 +576,18 @@ public class DoctorController {
                 }
             }
 
-            return "redirect:/doctor/dashboard";
+            return claim.complete("redirect:/doctor/dashboard");
 
+        } catch (OptimisticLockException | StaleStateException e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            ra.addFlashAttribute("msg", "This appointment was just changed by someone else, so it was not cancelled.");
+            return "redirect:/doctor/dashboard";
         } catch (Exception e) {
-            if (tx != null) tx.rollback();
+            if (tx != null && tx.isActive()) tx.rollback();
             model.addAttribute("msg", "Cancel failed.");
             return "redirect:/doctor/dashboard";
         } finally {
+            claim.release();
             ss.close();
         }
     }
@@ -308,7 +596,9 @@ public class DoctorController {
     // MANAGE APPOINTMENTS (PAST)
     // ===================================================
     @GetMapping("/appointments/manage")
-    public String manageAppointments(Model model, HttpSession session) {
+    public String manageAppointments(@RequestParam(value = "before", required = false) String before,
+                                     @RequestParam(value = "archived", defaultValue = "false") boolean includeArchived,
+                                     Model model, HttpSession session) {
 
         Long doctorId = toLong(session.getAttribute("doctorId"));
         if (doctorId == null) {
@@ -318,18 +608,56 @@ public class DoctorController {
 
         Session ss = sf.openSession();
         try {
+            // Keyset paging over (appointmentTime, id), newest first.
+            // Cursor is "<appointmentTime>_<id>" of the last row on the previous page.
+            LocalDateTime cTime = null;
+            Long cId = null;
+            if (before != null) {
+                int sep = before.lastIndexOf('_');
+                try {
+                    cTime = LocalDateTime.parse(before.substring(0, sep));
+                    cId = Long.valueOf(before.substring(sep + 1));
+                } catch (Exception e) {
+                    cTime = null; // malformed cursor: first page
+                }
+            }
+
             Query<Appointment> q = ss.createQuery(
                 "from Appointment a " +
                 "where a.doctor.id = :did " +
                 "and a.appointmentTime < :now " +
-                "order by a.appointmentTime desc",
+                (cTime != null ? "and (a.appointmentTime < :cTime or (a.appointmentTime = :cTime and a.id < :cId)) " : "") +
+                "order by a.appointmentTime desc, a.id desc",
                 Appointment.class
             );
 
+            LocalDateTime now = LocalDateTime.now();
             q.setParameter("did", doctorId);
-            q.setParameter("now", LocalDateTime.now());
+            q.setParameter("now", now);
+            if (cTime != null) {
+                q.setParameter("cTime", cTime);
+                q.setParameter("cId", cId);
+            }
+            q.setMaxResults(managePageSize + 1);
+
+            List<Appointment> page = q.list();
+            if (includeArchived) {
+                // same keyset over the archive, then one page of the merged order
+                page = AppointmentArchiveService.mergeNewestFirst(page,
+                        archive.doctorHistory(doctorId, now, cTime, cId, managePageSize + 1),
+                        managePageSize + 1);
+            }
+            boolean hasMore = page.size() > managePageSize;
+            if (hasMore) page = page.subList(0, managePageSize);
 
-            model.addAttribute("appointments", q.list());
+            model.addAttribute("appointments", page);
+            if (hasMore && !page.isEmpty()) {
+                Appointment last = page.get(page.size() - 1);
+                model.addAttribute("nextCursor", last.getAppointmentTime() + "_" + last.getId());
+            }
+            model.addAttribute("firstPage", cTime == null);
+            model.addAttribute("includeArchived", includeArchived);
+            model.addAttribute("counts", appointmentCounters.get(doctorId));
             return "doctor_manage_appointments";
 
         } finally {
@@ -398,7 +726,7 @@ public class DoctorController {
 
         Session ss = sf.openSession();
         Transaction tx = null;
-        List<File> savedFilesForEmail = new ArrayList<>();
+        List<RecordReport> stored = null;
 
         try {
             tx = ss.beginTransaction();
@@ -424,33 +752,9 @@ public class DoctorController {
 
             ss.persist(record);
 
-            // 📁 Handle File Uploads
-            if (files != null) {
-                for (MultipartFile f : files) {
-                    if (f != null && !f.isEmpty()) {
-                        String original = StringUtils.cleanPath(f.getOriginalFilename());
-                        String ext = "";
-                        int idx = original.lastIndexOf('.');
-                        if (idx >= 0) ext = original.substring(idx);
-
-                        String uniqueName = UUID.randomUUID().toString() + ext;
-                        Path targetPath = storageDir.resolve(uniqueName);
-                        
-                        // Save to Disk
-                        Files.copy(f.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-                        
-                        // Add to list for Email Attachment
-                        savedFilesForEmail.add(targetPath.toFile());
-
-                        // (Optional) Save metadata to DB if you have a RecordReport entity
-                        // RecordReport rr = new RecordReport();
-                        // rr.setFileName(uniqueName);
-                        // rr.setMedicalRecord(record);
-                        // ss.save(rr);
-                    }
-                }
-            }
-            
+            // 📁 Handle File Uploads (file + RecordReport metadata)
+            stored = reportStorage.ingestAll(files, record, ss);
+
             // Mark appointment complete
             if (appointment != null) {
                 appointment.setStatus(AppointmentStatus.COMPLETED);
@@ -458,17 +762,17 @@ public class DoctorController {
             }
 
             tx.commit();
+            recordSearch.recordChanged(record.getId());
 
             // 📧 Send Email with Attachments
             try {
                 if (patient.getEmail() != null && !patient.getEmail().isEmpty()) {
-                    System.out.println("Sending Medical Record Email with " + savedFilesForEmail.size() + " attachments.");
-                    
+                    log.debug("Sending medical record {} to patient with {} report(s)", record.getId(), stored.size());
                     emailService.sendMedicalRecordToPatient(
                         patient.getEmail(),
                         doctor.getName(),
                         record,
-                        savedFilesForEmail // Passing list of files
+                        stored // streamed as attachments, large ones as download links
                     );
                 }
             } catch (Exception e) {
@@ -480,6 +784,7 @@ public class DoctorController {
 
         } catch (Exception e) {
             if (tx != null) tx.rollback();
+            reportStorage.discard(stored);
             e.printStackTrace();
             return "redirect:/doctor/dashboard";
         } finally {
@@ -520,6 +825,7 @@ public class DoctorController {
 
             ss.delete(record);
             tx.commit();
+            recordSearch.recordDeleted(id);
 
             return "redirect:/doctor/records";
 
@@ -2,6 +2,7 @@ package HMS.example.HospitalManagementSystem.controller;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
@@ -11,9 +12,21 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import HMS.example.HospitalManagementSystem.model.Contact;
 import HMS.example.HospitalManagementSystem.model.*;
+import HMS.example.HospitalManagementSystem.service.AdminCounters;
+import HMS.example.HospitalManagementSystem.service.AppointmentArchiveService;
+import HMS.example.HospitalManagementSystem.service.AppointmentNumberService;
+import HMS.example.HospitalManagementSystem.service.AvailabilityService;
+import HMS.example.HospitalManagementSystem.service.DoctorAppointmentCounters;
 import HMS.example.HospitalManagementSystem.service.EmailService;
+import HMS.example.HospitalManagementSystem.service.IdempotencyStore;
+import HMS.example.HospitalManagementSystem.service.MessageService;
+import HMS.example.HospitalManagementSystem.service.PatientSearchIndex;
+import HMS.example.HospitalManagementSystem.service.RecordSearchService;
+import HMS.example.HospitalManagementSystem.service.WaitlistService;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
@@ -27,7 +40,6 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Random;
 import java.util.UUID;
 
 @Controller
@@ -51,6 +63,45 @@ public class HMSController {
     @Autowired
     private EmailService emailService;
 
+    // Full-text index over medical record text
+    @Autowired
+    private RecordSearchService recordSearch;
+
+    // Admin typeahead index over patient name / email / phone
+    @Autowired
+    private PatientSearchIndex patientIndex;
+
+    // Per-doctor appointment counts (bulk deletes must evict)
+    @Autowired
+    private DoctorAppointmentCounters appointmentCounters;
+
+    // Admin dashboard totals (bulk deletes must reconcile)
+    @Autowired
+    private AdminCounters adminCounters;
+
+    // Unique APT-<date>-<node>-<seq> numbers, no DB round trip
+    @Autowired
+    private AppointmentNumberService appointmentNumbers;
+
+    // Replays repeated booking / cancel submits instead of acting twice
+    @Autowired
+    private IdempotencyStore idempotency;
+
+    // Free-slot calendars (bulk deletes must reload)
+    @Autowired
+    private AvailabilityService availability;
+
+    // Patient inbox and unread counters
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private AppointmentArchiveService archive;
+
+    // freed slots held for waitlisted patients are not bookable by others
+    @Autowired
+    private WaitlistService waitlist;
+
     // ---------- helper to check if patient profile is incomplete ----------
     private boolean isPatientProfileIncomplete(Patient p) {
         if (p == null) return true;
@@ -197,16 +248,19 @@ public class HMSController {
                     pq.setParameter("e", uname.toLowerCase());
                     patient = pq.uniqueResult();
 
+                    boolean created = false;
                     if (patient == null) {
                         patient = new Patient();
                         patient.setEmail(uname);
                         patient.setName(uname);
                         // ... set defaults
                         session.save(patient);
+                        created = true;
                     }
 
                     boolean incomplete = isPatientProfileIncomplete(patient);
                     tx.commit();
+                    if (created) patientIndex.upsert(patient);
 
                     httpSession.setAttribute("patientId", patient.getId());
                     httpSession.setAttribute("patientName", patient.getName());
@@ -547,6 +601,15 @@ public class HMSController {
                 Query<?> qAppt = ss.createQuery("delete from Appointment a where a.doctor.id = :did");
                 qAppt.setParameter("did", doctorId);
                 qAppt.executeUpdate();
+                ss.createQuery("delete from ArchivedAppointment a where a.doctor.id = :did")
+                  .setParameter("did", doctorId)
+                  .executeUpdate();
+                Query<?> qHours = ss.createQuery("delete from DoctorWorkingHours h where h.doctorId = :did");
+                qHours.setParameter("did", doctorId);
+                qHours.executeUpdate();
+                ss.createQuery("delete from WaitlistEntry w where w.doctorId = :did")
+                  .setParameter("did", doctorId)
+                  .executeUpdate();
 
                 // 3. Delete Doctor Profile
                 ss.delete(d);
@@ -558,6 +621,10 @@ public class HMSController {
             }
 
             tx.commit();
+            // the bulk appointment delete bypassed the counter events
+            appointmentCounters.evict(doctorId);
+            adminCounters.reconcile();
+            availability.reloadDoctor(doctorId);
 
             // 5. Logout
             activeUserSessions.remove(username);
@@ -593,6 +660,7 @@ public class HMSController {
 
         Session ss = sf.openSession();
         Transaction tx = null;
+        List<Long> doctorIds = new ArrayList<>();
         try {
             tx = ss.beginTransaction();
 
@@ -601,15 +669,31 @@ public class HMSController {
             Login l = ss.get(Login.class, username);
 
             if (p != null) {
+                // doctors whose calendars and counters the bulk delete below changes
+                doctorIds = ss.createQuery(
+                        "select distinct a.doctor.id from Appointment a where a.patient.id = :pid and a.doctor is not null",
+                        Long.class)
+                    .setParameter("pid", patientId)
+                    .list();
+
                 // --- STEP A: Delete Appointments (Foreign Key Constraint) ---
                 ss.createQuery("delete from Appointment a where a.patient.id = :pid")
                   .setParameter("pid", patientId)
                   .executeUpdate();
+                ss.createQuery("delete from ArchivedAppointment a where a.patient.id = :pid")
+                  .setParameter("pid", patientId)
+                  .executeUpdate();
 
                 // --- STEP B: Delete Messages ---
                 ss.createQuery("delete from Message m where m.patient.id = :pid")
                   .setParameter("pid", patientId)
                   .executeUpdate();
+                ss.createQuery("delete from InboxCounter c where c.patientId = :pid")
+                  .setParameter("pid", patientId)
+                  .executeUpdate();
+                ss.createQuery("delete from WaitlistEntry w where w.patientId = :pid")
+                  .setParameter("pid", patientId)
+                  .executeUpdate();
 
                 // --- STEP C: Delete Medical Records ---
                 ss.createQuery("delete from MedicalRecord m where m.patient.id = :pid")
@@ -626,6 +710,14 @@ public class HMSController {
             }
 
             tx.commit();
+            recordSearch.patientDeleted(patientId);
+            patientIndex.remove(patientId);
+            // bulk appointment delete bypassed the events: refresh just this patient's doctors
+            for (Long doctorId : doctorIds) {
+                appointmentCounters.evict(doctorId);
+                availability.reloadDoctor(doctorId);
+            }
+            adminCounters.reconcile();
 
             // 3. Logout the user
             activeUserSessions.remove(username);
@@ -915,6 +1007,7 @@ public class HMSController {
 
             session.update(p);
             tx.commit();
+            patientIndex.upsert(p);
 
             httpSession.setAttribute("patientName", p.getName());
 
@@ -1155,6 +1248,7 @@ public class HMSController {
         Transaction tx = null;
         try {
             tx = session.beginTransaction();
+            contact.setRead(Boolean.FALSE);
             session.save(contact);
             tx.commit();
         } finally {
@@ -1233,8 +1327,9 @@ public class HMSController {
 
             List<PrescriptionRow> prescriptions = new ArrayList<>();
             try {
+                // truncated DB-side: the prescription column is a lazy LOB
                 Query<Object[]> pq = ss.createQuery(
-                        "select m.doctor.name, m.recordDate, m.prescription " +
+                        "select m.doctor.name, m.recordDate, substring(m.prescription, 1, 200), length(m.prescription) " +
                                 "from MedicalRecord m " +
                                 "where m.patient.id = :pid and m.prescription is not null " +
                                 "order by m.recordDate desc", Object[].class);
@@ -1245,7 +1340,7 @@ public class HMSController {
                     String doctorName = r[0] != null ? r[0].toString() : "-";
                     LocalDate date = r[1] != null ? (LocalDate) r[1] : null;
                     String summary = r[2] != null ? r[2].toString() : "-";
-                    if (summary.length() > 200) summary = summary.substring(0, 200) + "...";
+                    if (r[3] != null && ((Number) r[3]).intValue() > 200) summary = summary + "...";
                     prescriptions.add(new PrescriptionRow(doctorName, date, summary));
                 }
             } catch (Exception ex) {
@@ -1253,16 +1348,15 @@ public class HMSController {
             }
             model.addAttribute("prescriptions", prescriptions);
 
-            List<Message> messages = new ArrayList<>();
+            List<MessageService.MessageView> messages = new ArrayList<>();
+            int unreadMessages = 0;
             try {
-                Query<Message> mq = ss.createQuery(
-                        "from Message m where m.patient.id = :pid order by m.sentAt desc",
-                        Message.class);
-                mq.setParameter("pid", patientId);
-                mq.setMaxResults(10);
-                messages = mq.list();
+                // newest 10 over the (patient_id, id) index; unread is one counter row
+                messages = messageService.latest(patientId, 10);
+                unreadMessages = messageService.unread(patientId);
             } catch (Exception ex) { }
             model.addAttribute("messages", messages);
+            model.addAttribute("unreadMessages", unreadMessages);
 
             try {
                 Query<Appointment> apq = ss.createQuery(
@@ -1289,7 +1383,8 @@ public class HMSController {
     // ---------- list appointments ----------
     @GetMapping("/patient/appointments")
     public String listAppointmentsMerged(Model model, HttpSession session,
-                                         @RequestParam(value = "showCancelled", defaultValue = "false") boolean showCancelled) {
+                                         @RequestParam(value = "showCancelled", defaultValue = "false") boolean showCancelled,
+                                         @RequestParam(value = "archived", defaultValue = "false") boolean includeArchived) {
         Object pidObj = session.getAttribute("patientId");
         if (pidObj == null) {
             model.addAttribute("msg", "Please login first.");
@@ -1298,23 +1393,28 @@ public class HMSController {
         Long patientId = (pidObj instanceof Long) ? (Long) pidObj : Long.parseLong(pidObj.toString());
 
         model.addAttribute("showCancelled", showCancelled);
+        model.addAttribute("includeArchived", includeArchived);
 
         Session ss = sf.openSession();
         try {
             Query<Appointment> q;
             if (showCancelled) {
                 q = ss.createQuery(
-                        "from Appointment a where a.patient.id = :pid order by a.appointmentTime desc",
+                        "from Appointment a where a.patient.id = :pid order by a.appointmentTime desc, a.id desc",
                         Appointment.class);
                 q.setParameter("pid", patientId);
             } else {
                 q = ss.createQuery(
-                        "from Appointment a where a.patient.id = :pid and a.status != :st order by a.appointmentTime desc",
+                        "from Appointment a where a.patient.id = :pid and a.status != :st order by a.appointmentTime desc, a.id desc",
                         Appointment.class);
                 q.setParameter("pid", patientId);
                 q.setParameter("st", AppointmentStatus.CANCELLED);
             }
             List<Appointment> list = q.list();
+            if (includeArchived) {
+                List<Appointment> archivedRows = archive.patientHistory(patientId, showCancelled ? null : AppointmentStatus.CANCELLED);
+                list = AppointmentArchiveService.mergeNewestFirst(list, archivedRows, list.size() + archivedRows.size());
+            }
             model.addAttribute("appointments", list);
             return "patient_appointments";
         } finally {
@@ -1388,6 +1488,10 @@ public class HMSController {
                 model.addAttribute("msg", "Appointment not found or access denied.");
                 return "patient_appointments";
             }
+            if (ap.getStatus() != null && ap.getStatus().isFinished()) {
+                model.addAttribute("msg", "This appointment is already over and can no longer be changed.");
+                return "patient_appointments";
+            }
 
             // 🔴 Only approved doctors in dropdown
             Query<Doctor> dq = ss.createQuery(
@@ -1409,7 +1513,8 @@ public class HMSController {
                                         @RequestParam("doctorId") Long doctorId,
                                         @RequestParam("time") String appointmentTimeRaw,
                                         @RequestParam(value="notes", required=false) String notes,
-                                        Model model, HttpSession session) {
+                                        @RequestParam(value="version", required=false) Long version,
+                                        Model model, HttpSession session, RedirectAttributes ra) {
         Object pidObj = session.getAttribute("patientId");
         if (pidObj == null) {
             model.addAttribute("msg", "Please login first.");
@@ -1435,6 +1540,27 @@ public class HMSController {
                 if (tx != null) tx.rollback();
                 return "patient_appointments";
             }
+            // COMPLETED / NO_SHOW are final; re-booking would reopen a closed visit
+            if (ap.getStatus() != null && ap.getStatus().isFinished()) {
+                model.addAttribute("msg", "This appointment is already over and can no longer be changed.");
+                if (tx != null) tx.rollback();
+                return "patient_appointments";
+            }
+
+            // the form was rendered from an older copy (e.g. the doctor cancelled or moved it since):
+            // don't overwrite the newer change
+            if (version != null && version != ap.getVersion()) {
+                tx.rollback();
+                ra.addFlashAttribute("msg", "This appointment was changed while you were editing. Please review it and edit again.");
+                return "redirect:/patient/appointments/" + id + "/edit";
+            }
+
+            // a cancelled appointment comes back through restore, not through a reschedule
+            if (ap.getStatus() == AppointmentStatus.CANCELLED) {
+                model.addAttribute("msg", "This appointment is cancelled. Restore it before rescheduling.");
+                if (tx != null) tx.rollback();
+                return "patient_appointments";
+            }
 
             Doctor doc = ss.get(Doctor.class, doctorId);
             if (doc == null) {
@@ -1450,6 +1576,16 @@ public class HMSController {
                 return "redirect:/patient/appointments/" + id + "/edit";
             }
 
+            // moving to another doctor/time: the new slot must be free in the calendar
+            boolean moved = ap.getDoctor() == null || !doctorId.equals(ap.getDoctor().getId())
+                    || !appointmentTime.equals(ap.getAppointmentTime());
+            if (moved && (!availability.isBookable(doctorId, appointmentTime)
+                    || waitlist.heldForOther(doctorId, appointmentTime, patientId))) {
+                model.addAttribute("msg", "Selected time is not available. Please choose another time.");
+                if (tx != null) tx.rollback();
+                return "redirect:/patient/appointments/" + id + "/edit";
+            }
+
             Query<Long> conflictQ = ss.createQuery(
                     "select count(a.id) from Appointment a where a.doctor.id = :did and a.appointmentTime = :t and a.status = :st and a.id != :id",
                     Long.class);
@@ -1474,6 +1610,10 @@ public class HMSController {
 
             model.addAttribute("msg", "Appointment updated.");
             return "redirect:/patient/appointments";
+        } catch (OptimisticLockException | StaleStateException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            model.addAttribute("msg", "This appointment was changed by someone else. Please review it and try again.");
+            return "redirect:/patient/appointments/" + id + "/edit";
         } catch (Exception ex) {
             if (tx != null) tx.rollback();
             model.addAttribute("msg", "Error updating appointment: " + ex.getMessage());
@@ -1488,6 +1628,8 @@ public class HMSController {
     public String bookAppointmentMerged(@RequestParam("doctorId") Long doctorId,
                                         @RequestParam("time") String appointmentTimeRaw,
                                         @RequestParam(value="notes", required=false) String notes,
+                                        @RequestParam(value="idempotencyKey", required=false) String idemKey,
+                                        @RequestHeader(value="Idempotency-Key", required=false) String idemHeader,
                                         Model model, HttpSession session) {
         Object pidObj = session.getAttribute("patientId");
         if (pidObj == null) {
@@ -1509,6 +1651,24 @@ public class HMSController {
             return "patient_doctors";
         }
 
+        // same patient + slot + key = a repeated submit of one form: answer with the first result
+        // (checked before availability, which the first submit's booking has since used up)
+        IdempotencyStore.Claim claim = idempotency.claim(
+                "book:" + patientId + ":" + doctorId + ":" + appointmentTime, IdempotencyStore.key(idemKey, idemHeader));
+        if (claim.isReplay()) return claim.getReplay();
+        if (claim.isInProgress()) {
+            model.addAttribute("msg", "Your booking is still being processed.");
+            return "patient_appointments";
+        }
+
+        // outside the doctor's working hours or already taken, per the in-memory calendar
+        if (!availability.isBookable(doctorId, appointmentTime)
+                || waitlist.heldForOther(doctorId, appointmentTime, patientId)) {
+            claim.release();
+            model.addAttribute("msg", "Selected time is not available. Please choose another time.");
+            return "patient_doctors";
+        }
+
         Session ss = sf.openSession();
         Transaction tx = null;
         Appointment persisted = null;
@@ -1559,9 +1719,7 @@ public class HMSController {
             ap.setNotes(notes != null ? notes : "Booked from patient dashboard");
             ap.setStatus(AppointmentStatus.BOOKED);
 
-            String datePart = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
-            String rnd = String.format("%06d", new Random().nextInt(1_000_000));
-            ap.setAppointmentNumber("APT-" + datePart + "-" + rnd);
+            ap.setAppointmentNumber(appointmentNumbers.next());
 
             ss.save(ap);
             tx.commit();
@@ -1569,11 +1727,11 @@ public class HMSController {
 
             try {
                 if (patient.getEmail() != null && !patient.getEmail().trim().isEmpty()) {
-                    boolean sent = emailService.sendAppointmentConfirmation(patient.getEmail(), persisted);
-                    if (!sent) {
-                        log.warn("Appointment saved but confirmation email failed to send to {}", patient.getEmail());
+                    boolean queued = emailService.sendAppointmentConfirmationLater(patient.getEmail(), persisted);
+                    if (!queued) {
+                        log.warn("Appointment saved but confirmation email could not be prepared for {}", patient.getEmail());
                     } else {
-                        log.info("Confirmation email sent to {}", patient.getEmail());
+                        log.info("Confirmation email queued for {}", patient.getEmail());
                     }
                 } else {
                     log.info("Patient id {} has no email, skipping confirmation email.", patient.getId());
@@ -1582,19 +1740,23 @@ public class HMSController {
                 log.error("Failed to send appointment confirmation email: {}", mailEx.toString(), mailEx);
             }
 
-            return "redirect:/patient/appointments/confirmation/" + persisted.getId();
+            return claim.complete("redirect:/patient/appointments/confirmation/" + persisted.getId());
         } catch (Exception ex) {
-            if (tx != null) tx.rollback();
+            if (tx != null && tx.isActive()) tx.rollback();
             model.addAttribute("msg", "Error booking appointment: " + ex.getMessage());
             return "patient_appointments";
         } finally {
+            claim.release();
             ss.close();
         }
     }
 
     // ---------- cancel appointment ----------
     @PostMapping("/patient/appointments/{id}/cancel")
-    public String cancelAppointmentMerged(@PathVariable("id") Long id, Model model, HttpSession session) {
+    public String cancelAppointmentMerged(@PathVariable("id") Long id,
+                                          @RequestParam(value="idempotencyKey", required=false) String idemKey,
+                                          @RequestHeader(value="Idempotency-Key", required=false) String idemHeader,
+                                          Model model, HttpSession session) {
         Object pidObj = session.getAttribute("patientId");
         if (pidObj == null) {
             model.addAttribute("msg", "Please login first.");
@@ -1602,6 +1764,10 @@ public class HMSController {
         }
         Long patientId = (pidObj instanceof Long) ? (Long) pidObj : Long.parseLong(pidObj.toString());
 
+        IdempotencyStore.Claim claim = idempotency.claim(
+                "cancel:patient:" + patientId + ":" + id, IdempotencyStore.key(idemKey, idemHeader));
+        if (claim.isReplay()) return claim.getReplay();
+
         Session ss = sf.openSession();
         Transaction tx = null;
         try {
@@ -1613,16 +1779,30 @@ public class HMSController {
                 return "patient_appointments";
             }
 
-            ap.setStatus(AppointmentStatus.CANCELLED);
-            ss.update(ap);
+            if (ap.getStatus() != null && ap.getStatus().isFinished()) {
+                model.addAttribute("msg", "This appointment is already over and cannot be canceled.");
+                if (tx != null) tx.rollback();
+                return "patient_appointments";
+            }
+
+            // already cancelled (e.g. a retry without a key): nothing to write
+            if (ap.getStatus() != AppointmentStatus.CANCELLED) {
+                ap.setStatus(AppointmentStatus.CANCELLED);
+                ss.update(ap);
+            }
             tx.commit();
             model.addAttribute("msg", "Appointment canceled.");
-            return "redirect:/patient/appointments";
+            return claim.complete("redirect:/patient/appointments");
+        } catch (OptimisticLockException | StaleStateException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            model.addAttribute("msg", "This appointment was just changed by someone else. Please check it and try again.");
+            return "patient_appointments";
         } catch (Exception ex) {
-            if (tx != null) tx.rollback();
+            if (tx != null && tx.isActive()) tx.rollback();
             model.addAttribute("msg", "Error canceling appointment: " + ex.getMessage());
             return "patient_appointments";
         } finally {
+            claim.release();
             ss.close();
         }
     }
@@ -1648,11 +1828,24 @@ public class HMSController {
                 return "patient_appointments";
             }
 
-            ap.setStatus(AppointmentStatus.BOOKED);
-            ss.update(ap);
+            // only a cancelled appointment comes back; a finished one stays closed
+            if (ap.getStatus() != null && ap.getStatus().isFinished()) {
+                model.addAttribute("msg", "This appointment is already over and cannot be restored.");
+                if (tx != null) tx.rollback();
+                return "patient_appointments";
+            }
+
+            if (ap.getStatus() == AppointmentStatus.CANCELLED) {
+                ap.setStatus(AppointmentStatus.BOOKED);
+                ss.update(ap);
+            }
             tx.commit();
             model.addAttribute("msg", "Appointment restored.");
             return "redirect:/patient/appointments";
+        } catch (OptimisticLockException | StaleStateException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            model.addAttribute("msg", "This appointment was just changed by someone else. Please check it and try again.");
+            return "patient_appointments";
         } catch (Exception ex) {
             if (tx != null) tx.rollback();
             model.addAttribute("msg", "Error restoring appointment: " + ex.getMessage());
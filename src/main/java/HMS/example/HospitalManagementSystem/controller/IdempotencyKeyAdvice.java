@@ -0,0 +1,20 @@
+package HMS.example.HospitalManagementSystem.controller;
+
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+import java.util.UUID;
+
+/**
+ * Gives every patient/doctor page a fresh {@code idempotencyKey}. Booking and
+ * cancel forms post it back as a hidden field, so a double submit of the same
+ * rendered form is recognised by {@link HMS.example.HospitalManagementSystem.service.IdempotencyStore}.
+ */
+@ControllerAdvice(assignableTypes = {HMSController.class, DoctorController.class, AppointmentController.class})
+public class IdempotencyKeyAdvice {
+
+    @ModelAttribute("idempotencyKey")
+    public String idempotencyKey() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,48 @@
+package HMS.example.HospitalManagementSystem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import HMS.example.HospitalManagementSystem.service.LiveEventBus;
+import HMS.example.HospitalManagementSystem.service.LiveUpdateHub;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Server-sent event stream for the patient and doctor dashboards. The topic comes
+ * from the session, so a user only ever receives their own appointment changes.
+ */
+@Controller
+public class LiveUpdateController {
+
+    @Autowired
+    private LiveUpdateHub hub;
+
+    @GetMapping(path = "/live/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(HttpSession session) {
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        Long patientId = toLong(session.getAttribute("patientId"));
+
+        String topic;
+        if (doctorId != null) topic = LiveEventBus.doctorTopic(doctorId);
+        else if (patientId != null) topic = LiveEventBus.patientTopic(patientId);
+        else return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+
+        SseEmitter emitter = hub.open(topic);
+        if (emitter == null) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no") // nginx: do not buffer the stream
+                .body(emitter);
+    }
+
+    private Long toLong(Object obj) {
+        if (obj == null) return null;
+        if (obj instanceof Number) return ((Number) obj).longValue();
+        try { return Long.parseLong(obj.toString()); } catch (Exception e) { return null; }
+    }
+}
@@ -5,21 +5,31 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import HMS.example.HospitalManagementSystem.model.*;
+import HMS.example.HospitalManagementSystem.service.RecordSearchService;
+import HMS.example.HospitalManagementSystem.service.ReportLinkService;
+import HMS.example.HospitalManagementSystem.service.ReportStorageService;
 import jakarta.servlet.http.HttpSession;
 
-import java.nio.file.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 @Controller
 public class MedicalRecordController {
@@ -27,18 +37,40 @@ public class MedicalRecordController {
     @Autowired
     private SessionFactory sf;
 
-    // Define storage location for uploaded files
-    private final Path storageDir = Paths.get(System.getProperty("user.dir"), "uploads", "reports");
+    // Stores uploaded report files and their metadata
+    @Autowired
+    private ReportStorageService reportStorage;
 
-    public MedicalRecordController() {
-        // Create upload directory if it doesn't exist
-        try {
-            Files.createDirectories(storageDir);
-        } catch (Exception e) {
-            System.out.println("Could not create storage dir: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
+    // Verifies signed download links sent by email
+    @Autowired
+    private ReportLinkService reportLinks;
+
+    // Full-text index over record text
+    @Autowired
+    private RecordSearchService recordSearch;
+
+    // List screens show this many characters of diagnosis / prescription
+    private static final int SUMMARY_LENGTH = 200;
+
+    // Columns for RecordSummary; text is cut DB-side so full LOBs never leave MySQL
+    private static final String SUMMARY_SELECT =
+            "select m.id, m.recordDate, " +
+            "substring(m.diagnosis, 1, " + SUMMARY_LENGTH + "), length(m.diagnosis), " +
+            "substring(m.prescription, 1, " + SUMMARY_LENGTH + "), length(m.prescription), " +
+            "d.id, d.name, p.id, p.name, coalesce(a.id, m.archivedAppointmentId) " +
+            "from MedicalRecord m join m.doctor d join m.patient p left join m.appointment a ";
+
+    // Keyset paging on (recordDate, id), newest first; served by the idx_mr_*_date indexes
+    private static final String KEYSET_PREDICATE =
+            "and (m.recordDate < :cDate or (m.recordDate = :cDate and m.id < :cId)) ";
+    private static final String KEYSET_ORDER = "order by m.recordDate desc, m.id desc";
+
+    @Value("${app.records.page-size:20}")
+    private int pageSize;
+
+    // Max ids per IN (...) list when loading report metadata for a page
+    @Value("${app.records.in-batch-size:100}")
+    private int inBatchSize;
 
     // ---------- helper: convert various session-stored id types to Long ----------
     private Long toLong(Object obj) {
@@ -59,6 +91,7 @@ public class MedicalRecordController {
     // List all records for the logged-in patient
     @GetMapping("/patient/records")
     public String patientRecords(@RequestParam(value = "doctorId", required = false) Long doctorId,
+                                 @RequestParam(value = "before", required = false) String before,
                                  Model model, HttpSession session) {
 
         Long patientId = toLong(session.getAttribute("patientId"));
@@ -74,15 +107,14 @@ public class MedicalRecordController {
             List<Doctor> allDoctors = allDocQ.list();
             model.addAttribute("doctors", allDoctors);
 
-            // Fetch records
-            String hql = "select distinct m from MedicalRecord m " +
-                         "left join fetch m.reports r " +
-                         "left join fetch m.doctor d " +
-                         "where m.patient.id = :pid " +
-                         (doctorId != null ? "and d.id = :did " : "") +
-                         "order by m.recordDate desc";
-
-            Query<MedicalRecord> q = ss.createQuery(hql, MedicalRecord.class);
+            // Fetch one page of record summaries (full text stays in the DB until a record is opened)
+            PageCursor cursor = PageCursor.parse(before);
+            Query<Object[]> q = ss.createQuery(
+                    SUMMARY_SELECT +
+                    "where p.id = :pid " +
+                    (doctorId != null ? "and d.id = :did " : "") +
+                    (cursor != null ? KEYSET_PREDICATE : "") +
+                    KEYSET_ORDER, Object[].class);
             q.setParameter("pid", patientId);
             if (doctorId != null) {
                 q.setParameter("did", doctorId);
@@ -91,8 +123,7 @@ public class MedicalRecordController {
                 model.addAttribute("selectedDoctorId", null);
             }
 
-            List<MedicalRecord> list = q.list();
-            model.addAttribute("records", list);
+            addPage(ss, q, cursor, model);
             model.addAttribute("patientName", session.getAttribute("patientName"));
             return "patient_medical_records";
         } finally {
@@ -125,6 +156,7 @@ public class MedicalRecordController {
                 model.addAttribute("msg", "Record not found or access denied.");
                 return "redirect:/patient/records";
             }
+            mr.getDiagnosis(); // load the lazy text columns before the session closes
             model.addAttribute("record", mr);
             model.addAttribute("patientName", session.getAttribute("patientName"));
             return "patient_record_details";
@@ -139,7 +171,8 @@ public class MedicalRecordController {
 
     // List all records created by this doctor
     @GetMapping("/doctor/records")
-    public String doctorAllRecords(Model model, HttpSession session) {
+    public String doctorAllRecords(@RequestParam(value = "before", required = false) String before,
+                                   Model model, HttpSession session) {
 
         Long doctorId = toLong(session.getAttribute("doctorId"));
         if (doctorId == null) {
@@ -149,18 +182,17 @@ public class MedicalRecordController {
 
         Session ss = sf.openSession();
         try {
-            Query<MedicalRecord> q = ss.createQuery(
-                "select distinct m from MedicalRecord m " +
-                "left join fetch m.patient p " +
-                "left join fetch m.reports r " +
-                "where m.doctor.id = :docId " +
-                "order by m.recordDate desc",
-                MedicalRecord.class
+            PageCursor cursor = PageCursor.parse(before);
+            Query<Object[]> q = ss.createQuery(
+                SUMMARY_SELECT +
+                "where d.id = :docId " +
+                (cursor != null ? KEYSET_PREDICATE : "") +
+                KEYSET_ORDER,
+                Object[].class
             );
             q.setParameter("docId", doctorId);
 
-            List<MedicalRecord> list = q.list();
-            model.addAttribute("records", list);
+            addPage(ss, q, cursor, model);
             model.addAttribute("doctorName", session.getAttribute("doctorName"));
 
             return "doctor_record_details"; 
@@ -169,6 +201,41 @@ public class MedicalRecordController {
         }
     }
 
+    // =========================================================================
+    //                             SEARCH
+    // =========================================================================
+
+    // Full-text search over the logged-in patient's records (optional doctor filter)
+    @GetMapping("/patient/records/search")
+    @ResponseBody
+    public ResponseEntity<List<RecordSearchService.Hit>> searchPatientRecords(
+            @RequestParam("q") String q,
+            @RequestParam(value = "doctorId", required = false) Long doctorId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            HttpSession session) throws Exception {
+
+        Long patientId = toLong(session.getAttribute("patientId"));
+        if (patientId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(recordSearch.search(q, patientId, doctorId, limit));
+    }
+
+    // Full-text search over the records written by the logged-in doctor
+    @GetMapping("/doctor/records/search")
+    @ResponseBody
+    public ResponseEntity<List<RecordSearchService.Hit>> searchDoctorRecords(
+            @RequestParam("q") String q,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            HttpSession session) throws Exception {
+
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        if (doctorId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(recordSearch.search(q, null, doctorId, limit));
+    }
+
     // Show form to add NEW record
     @GetMapping("/doctor/records/new")
     public String newRecordForm(@RequestParam(value = "appointmentId", required = false) Long appointmentId,
@@ -234,6 +301,7 @@ public class MedicalRecordController {
                 return "redirect:/doctor/records";
             }
 
+            mr.getDiagnosis(); // load the lazy text columns before the session closes
             model.addAttribute("record", mr);
             model.addAttribute("patient", mr.getPatient()); 
             
@@ -261,6 +329,7 @@ public class MedicalRecordController {
 
         Session ss = sf.openSession();
         Transaction tx = null;
+        List<RecordReport> stored = null;
 
         try {
             tx = ss.beginTransaction();
@@ -281,13 +350,15 @@ public class MedicalRecordController {
             ss.update(mr);
 
             // Add NEW files (existing files remain untouched)
-            handleFileUploads(files, mr, ss);
+            stored = reportStorage.ingestAll(files, mr, ss);
 
             tx.commit();
+            recordSearch.recordChanged(mr.getId());
             return "redirect:/doctor/records"; // Success
 
         } catch (Exception ex) {
             if (tx != null) tx.rollback();
+            reportStorage.discard(stored);
             ex.printStackTrace();
             model.addAttribute("msg", "Error updating record: " + ex.getMessage());
             return "doctor_edit_record";
@@ -300,54 +371,42 @@ public class MedicalRecordController {
     //                             UTILITIES
     // =========================================================================
 
-    // Helper method to save files to disk and DB
-    private void handleFileUploads(MultipartFile[] files, MedicalRecord mr, Session ss) throws Exception {
-        if (files != null) {
-            for (MultipartFile f : files) {
-                if (f != null && !f.isEmpty()) {
-                    String original = StringUtils.cleanPath(f.getOriginalFilename());
-                    String ext = "";
-                    int idx = original.lastIndexOf('.');
-                    if (idx >= 0) ext = original.substring(idx);
-
-                    String unique = UUID.randomUUID().toString() + ext;
-                    Path target = storageDir.resolve(unique);
-                    Files.copy(f.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-
-                    RecordReport rr = new RecordReport();
-                    rr.setFileName(unique);
-                    rr.setOriginalName(original);
-                    rr.setContentType(f.getContentType());
-                    rr.setMedicalRecord(mr);
-                    rr.setUploadedAt(LocalDateTime.now());
-
-                    ss.save(rr);
-                }
-            }
-        }
-    }
-
-    // Download File Endpoint
+    // Download File Endpoint (streams from either tier, headers come from stored metadata)
+    // Allowed for the owning patient / authoring doctor, or with a signed link from an email
     @GetMapping("/records/files/{id}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable("id") Integer id) {
+    public ResponseEntity<Resource> downloadFile(@PathVariable("id") Integer id,
+                                                 @RequestParam(value = "token", required = false) String token,
+                                                 HttpSession session) {
         Session ss = sf.openSession();
         try {
             RecordReport rr = ss.get(RecordReport.class, id);
             if (rr == null) return ResponseEntity.notFound().build();
 
-            Path file = storageDir.resolve(rr.getFileName());
+            if (!canDownload(ss, id, token, session)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            Path file = reportStorage.resolve(rr);
             if (!Files.exists(file)) return ResponseEntity.notFound().build();
 
-            byte[] data = Files.readAllBytes(file);
+            // Legacy rows (stored before metadata was recorded) fall back to the file system
+            long length = rr.getFileSize() != null ? rr.getFileSize() : Files.size(file);
+
+            // Cold-tier copies are gzip-compressed: decompress while streaming
+            Resource body = rr.isCompressed()
+                    ? new InputStreamResource(reportStorage.openStream(rr))
+                    : new FileSystemResource(file);
 
-            return ResponseEntity.ok()
+            ResponseEntity.BodyBuilder res = ResponseEntity.ok()
                 .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"" + rr.getOriginalName() + "\"")
                 .header(org.springframework.http.HttpHeaders.CONTENT_TYPE,
                         rr.getContentType() != null ? rr.getContentType() : "application/pdf")
-                .header(org.springframework.http.HttpHeaders.CONTENT_LENGTH,
-                        String.valueOf(data.length))
-                .body(data);
+                .contentLength(length);
+            if (rr.getChecksum() != null) {
+                res.eTag(rr.getChecksum());
+            }
+            return res.body(body);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -356,4 +415,138 @@ public class MedicalRecordController {
             ss.close();
         }
     }
-}
\ No newline at end of file
+
+    // ---------- helper: map SUMMARY_SELECT rows and attach their report metadata ----------
+    private List<RecordSummary> toSummaries(Session ss, List<Object[]> rows) {
+        List<RecordSummary> out = new ArrayList<>(rows.size());
+        Map<Integer, RecordSummary> byId = new HashMap<>();
+        for (Object[] r : rows) {
+            RecordSummary rs = new RecordSummary(
+                    (Integer) r[0], (LocalDate) r[1],
+                    summarize((String) r[2], (Number) r[3]),
+                    summarize((String) r[4], (Number) r[5]),
+                    toLong(r[6]), (String) r[7], toLong(r[8]), (String) r[9], toLong(r[10]));
+            out.add(rs);
+            byId.put(rs.getId(), rs);
+        }
+        if (byId.isEmpty()) return out;
+
+        List<Integer> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += inBatchSize) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + inBatchSize, ids.size()));
+            List<Object[]> reports = ss.createQuery(
+                    "select rr.medicalRecord.id, rr from RecordReport rr " +
+                    "where rr.medicalRecord.id in :ids order by rr.id", Object[].class)
+                .setParameter("ids", chunk)
+                .list();
+            for (Object[] r : reports) {
+                RecordSummary rs = byId.get((Integer) r[0]);
+                if (rs != null) rs.getReports().add((RecordReport) r[1]);
+            }
+        }
+        return out;
+    }
+
+    // ---------- helper: run a keyset page query and expose records + next cursor ----------
+    private void addPage(Session ss, Query<Object[]> q, PageCursor cursor, Model model) {
+        if (cursor != null) {
+            q.setParameter("cDate", cursor.date);
+            q.setParameter("cId", cursor.id);
+        }
+        // one extra row tells us whether an older page exists
+        q.setMaxResults(pageSize + 1);
+        List<Object[]> rows = q.list();
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) rows = rows.subList(0, pageSize);
+
+        List<RecordSummary> list = toSummaries(ss, rows);
+        model.addAttribute("records", list);
+        model.addAttribute("nextCursor", hasMore && !list.isEmpty()
+                ? PageCursor.of(list.get(list.size() - 1)) : null);
+        model.addAttribute("firstPage", cursor == null);
+    }
+
+    private static String summarize(String head, Number fullLength) {
+        if (head == null) return null;
+        return (fullLength != null && fullLength.intValue() > SUMMARY_LENGTH) ? head + "..." : head;
+    }
+
+    private boolean canDownload(Session ss, Integer reportId, String token, HttpSession session) {
+        if (token != null) return reportLinks.isValid(reportId, token);
+
+        Long patientId = toLong(session.getAttribute("patientId"));
+        Long doctorId = toLong(session.getAttribute("doctorId"));
+        if (patientId == null && doctorId == null) return false;
+
+        Object[] owners = ss.createQuery(
+                "select m.patient.id, m.doctor.id from RecordReport r join r.medicalRecord m where r.id = :id",
+                Object[].class)
+            .setParameter("id", reportId)
+            .uniqueResult();
+        if (owners == null) return false;
+
+        return (patientId != null && patientId.equals(toLong(owners[0])))
+            || (doctorId != null && doctorId.equals(toLong(owners[1])));
+    }
+
+    // ---------- keyset position: "<recordDate>_<id>" of the last row shown ----------
+    private static final class PageCursor {
+        final LocalDate date;
+        final Integer id;
+        private PageCursor(LocalDate date, Integer id) {
+            this.date = date;
+            this.id = id;
+        }
+        static PageCursor parse(String raw) {
+            if (raw == null || raw.isBlank()) return null;
+            int sep = raw.indexOf('_');
+            if (sep <= 0) return null;
+            try {
+                return new PageCursor(LocalDate.parse(raw.substring(0, sep)),
+                                      Integer.valueOf(raw.substring(sep + 1)));
+            } catch (Exception e) {
+                return null; // malformed cursor: start from the first page
+            }
+        }
+        static String of(RecordSummary last) {
+            return last.getRecordDate() + "_" + last.getId();
+        }
+    }
+
+    // ---------- DTO for record list screens (no full text) ----------
+    public static class RecordSummary {
+        private final Integer id;
+        private final LocalDate recordDate;
+        private final String diagnosisSummary;
+        private final String prescriptionSummary;
+        private final Long doctorId;
+        private final String doctorName;
+        private final Long patientId;
+        private final String patientName;
+        private final Long appointmentId;
+        private final List<RecordReport> reports = new ArrayList<>();
+        public RecordSummary(Integer id, LocalDate recordDate, String diagnosisSummary, String prescriptionSummary,
+                             Long doctorId, String doctorName, Long patientId, String patientName, Long appointmentId) {
+            this.id = id;
+            this.recordDate = recordDate;
+            this.diagnosisSummary = diagnosisSummary;
+            this.prescriptionSummary = prescriptionSummary;
+            this.doctorId = doctorId;
+            this.doctorName = doctorName;
+            this.patientId = patientId;
+            this.patientName = patientName;
+            this.appointmentId = appointmentId;
+        }
+        public Integer getId() { return id; }
+        public LocalDate getRecordDate() { return recordDate; }
+        public String getDiagnosisSummary() { return diagnosisSummary; }
+        public String getPrescriptionSummary() { return prescriptionSummary; }
+        public Long getDoctorId() { return doctorId; }
+        public String getDoctorName() { return doctorName; }
+        public Long getPatientId() { return patientId; }
+        public String getPatientName() { return patientName; }
+        public Long getAppointmentId() { return appointmentId; }
+        public List<RecordReport> getReports() { return reports; }
+    }
+}
@@ -0,0 +1,82 @@
+package HMS.example.HospitalManagementSystem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+
+import HMS.example.HospitalManagementSystem.service.MessageService;
+import jakarta.servlet.http.HttpSession;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+@RequestMapping("/patient/messages")
+public class MessageController {
+
+    @Autowired
+    private MessageService messages;
+
+    private Long patientId(HttpSession session) {
+        Object v = session.getAttribute("patientId");
+        if (v == null) return null;
+        if (v instanceof Number) return ((Number) v).longValue();
+        try { return Long.parseLong(v.toString()); } catch (Exception e) { return null; }
+    }
+
+    // ---------- inbox page (keyset paging: ?before=<last id of the previous page>) ----------
+    @GetMapping
+    public String inbox(@RequestParam(value = "before", required = false) Long before,
+                        Model model, HttpSession session) {
+        Long pid = patientId(session);
+        if (pid == null) {
+            model.addAttribute("msg", "Please login first.");
+            return "home";
+        }
+
+        MessageService.Page page = messages.inbox(pid, before, null);
+        model.addAttribute("messages", page.getMessages());
+        model.addAttribute("nextBefore", page.getNextBefore());
+        model.addAttribute("firstPage", before == null);
+        model.addAttribute("unread", messages.unread(pid));
+        model.addAttribute("patientName", session.getAttribute("patientName"));
+        return "patient_messages";
+    }
+
+    // ---------- incremental fetch: messages around and after the newest one the client has ----------
+    @GetMapping("/since")
+    public ResponseEntity<List<MessageService.MessageView>> since(@RequestParam(value = "after", required = false)
+                                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+                                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                                  HttpSession session) {
+        Long pid = patientId(session);
+        if (pid == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(messages.since(pid, after, limit));
+    }
+
+    @GetMapping("/unread")
+    public ResponseEntity<Map<String, Integer>> unread(HttpSession session) {
+        Long pid = patientId(session);
+        if (pid == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(Map.of("unread", messages.unread(pid)));
+    }
+
+    @PostMapping("/{id}/read")
+    public String markRead(@PathVariable("id") Long id, HttpSession session) {
+        Long pid = patientId(session);
+        if (pid != null) messages.markRead(pid, id);
+        return "redirect:/patient/messages";
+    }
+
+    @PostMapping("/read-all")
+    public String markAllRead(HttpSession session) {
+        Long pid = patientId(session);
+        if (pid != null) messages.markAllRead(pid);
+        return "redirect:/patient/messages";
+    }
+}
@@ -0,0 +1,129 @@
+package HMS.example.HospitalManagementSystem.controller;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.service.WaitlistService;
+import jakarta.servlet.http.HttpSession;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Controller
+public class WaitlistController {
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Autowired
+    private WaitlistService waitlist;
+
+    private Long sessionId(HttpSession session, String key) {
+        Object v = session.getAttribute(key);
+        if (v == null) return null;
+        if (v instanceof Number) return ((Number) v).longValue();
+        try { return Long.parseLong(v.toString()); } catch (Exception e) { return null; }
+    }
+
+    // ===================================================
+    // PATIENT
+    // ===================================================
+    @GetMapping("/patient/waitlist")
+    public String patientWaitlist(Model model, HttpSession session) {
+        Long pid = sessionId(session, "patientId");
+        if (pid == null) {
+            model.addAttribute("msg", "Please login first.");
+            return "home";
+        }
+
+        Session ss = sf.openSession();
+        try {
+            List<Doctor> doctors = ss.createQuery(
+                    "from Doctor d where d.approved = true order by d.name", Doctor.class).list();
+            model.addAttribute("doctors", doctors);
+        } finally {
+            ss.close();
+        }
+        model.addAttribute("entries", waitlist.forPatient(pid));
+        model.addAttribute("patientName", session.getAttribute("patientName"));
+        return "patient_waitlist";
+    }
+
+    @PostMapping("/patient/waitlist")
+    public String join(@RequestParam("doctorId") Long doctorId,
+                       @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       HttpSession session, RedirectAttributes ra) {
+        Long pid = sessionId(session, "patientId");
+        if (pid == null) return "redirect:/";
+        try {
+            waitlist.join(pid, doctorId,
+                    from != null ? from.atStartOfDay() : null,
+                    to != null ? to.plusDays(1).atStartOfDay() : null);
+            ra.addFlashAttribute("msg", "You are on the waitlist. We will message you when a slot opens up.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            ra.addFlashAttribute("msg", e.getMessage());
+        }
+        return "redirect:/patient/waitlist";
+    }
+
+    @PostMapping("/patient/waitlist/{id}/accept")
+    public String accept(@PathVariable("id") Long id, HttpSession session, RedirectAttributes ra) {
+        Long pid = sessionId(session, "patientId");
+        if (pid == null) return "redirect:/";
+        try {
+            Appointment ap = waitlist.accept(pid, id);
+            return "redirect:/patient/appointments/confirmation/" + ap.getId();
+        } catch (IllegalStateException e) {
+            ra.addFlashAttribute("msg", e.getMessage());
+            return "redirect:/patient/waitlist";
+        }
+    }
+
+    @PostMapping("/patient/waitlist/{id}/decline")
+    public String decline(@PathVariable("id") Long id, HttpSession session, RedirectAttributes ra) {
+        Long pid = sessionId(session, "patientId");
+        if (pid == null) return "redirect:/";
+        if (waitlist.decline(pid, id)) ra.addFlashAttribute("msg", "Offer declined. You keep your place on the waitlist.");
+        return "redirect:/patient/waitlist";
+    }
+
+    @PostMapping("/patient/waitlist/{id}/leave")
+    public String leave(@PathVariable("id") Long id, HttpSession session, RedirectAttributes ra) {
+        Long pid = sessionId(session, "patientId");
+        if (pid == null) return "redirect:/";
+        if (waitlist.leave(pid, id)) ra.addFlashAttribute("msg", "You have left the waitlist.");
+        return "redirect:/patient/waitlist";
+    }
+
+    // ===================================================
+    // DOCTOR
+    // ===================================================
+    @GetMapping("/doctor/waitlist")
+    public String doctorWaitlist(Model model, HttpSession session) {
+        Long did = sessionId(session, "doctorId");
+        if (did == null) {
+            model.addAttribute("msg", "Please login.");
+            return "home";
+        }
+        model.addAttribute("entries", waitlist.forDoctor(did));
+        return "doctor_waitlist";
+    }
+
+    @PostMapping("/doctor/waitlist/{id}/priority")
+    public String priority(@PathVariable("id") Long id, @RequestParam("priority") int priority,
+                           HttpSession session, RedirectAttributes ra) {
+        Long did = sessionId(session, "doctorId");
+        if (did == null) return "redirect:/";
+        if (!waitlist.setPriority(did, id, priority)) ra.addFlashAttribute("msg", "That entry is no longer on your waitlist.");
+        return "redirect:/doctor/waitlist";
+    }
+}
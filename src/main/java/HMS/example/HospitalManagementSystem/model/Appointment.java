@@ -4,11 +4,19 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointment")
+@Table(name = "appointment", indexes = {
+        // doctor schedule windows and history paging
+        @Index(name = "idx_appt_doctor_time", columnList = "doctor_id, appointment_time, id"),
+        // change feed for the analytics rollup
+        @Index(name = "idx_appt_updated", columnList = "updated_at, id"),
+        // lifecycle job: open appointments whose time has passed
+        @Index(name = "idx_appt_status_time", columnList = "status, appointment_time")
+})
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id;
 
     // -------------------- RELATIONS --------------------
@@ -35,6 +43,23 @@ public class Appointment {
     @Column(name = "appointment_number", unique = true, length = 64)
     private String appointmentNumber;
 
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // bumped on every change; bulk HQL updates must set it too (analytics reads from it)
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // optimistic lock: a commit based on a stale copy fails instead of overwriting
+    // (the column default fills rows that existed before versioning)
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    // set on read-only copies built from appointment_archive rows, never stored
+    @Transient
+    private boolean archived;
+
     // -------------------- CONSTRUCTORS --------------------
     public Appointment() {}
 
@@ -46,6 +71,18 @@ public class Appointment {
         this.status = AppointmentStatus.BOOKED;
     }
 
+    // lifecycle callbacks to maintain timestamps
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
     // -------------------- GETTERS & SETTERS --------------------
 
     public Long getId() { return id; }
@@ -69,6 +106,17 @@ public class Appointment {
     public String getAppointmentNumber() { return appointmentNumber; }
     public void setAppointmentNumber(String appointmentNumber) { this.appointmentNumber = appointmentNumber; }
 
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getVersion() { return version; }
+
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
+
     // -------------------- TO STRING --------------------
     @Override
     public String toString() {
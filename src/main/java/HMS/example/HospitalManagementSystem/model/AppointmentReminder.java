@@ -0,0 +1,41 @@
+package HMS.example.HospitalManagementSystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One reminder that went out. The unique key makes sending at-most-once across
+ * restarts and instances; it includes the appointment time, so a rescheduled
+ * appointment gets its reminders again for the new time.
+ */
+@Entity
+@Table(name = "appointment_reminder",
+       uniqueConstraints = @UniqueConstraint(name = "uk_reminder_appt_offset_time",
+               columnNames = {"appointment_id", "offset_minutes", "appointment_time"}))
+public class AppointmentReminder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    // minutes before the appointment, e.g. 1440 or 60
+    @Column(name = "offset_minutes", nullable = false)
+    private int offsetMinutes;
+
+    @Column(name = "appointment_time", nullable = false)
+    private LocalDateTime appointmentTime;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    public AppointmentReminder() {}
+
+    public Long getId() { return id; }
+    public Long getAppointmentId() { return appointmentId; }
+    public int getOffsetMinutes() { return offsetMinutes; }
+    public LocalDateTime getAppointmentTime() { return appointmentTime; }
+    public LocalDateTime getSentAt() { return sentAt; }
+}
@@ -4,5 +4,11 @@ public enum AppointmentStatus {
     BOOKED,
     SCHEDULED,
     COMPLETED,
-    CANCELLED
+    CANCELLED,
+    NO_SHOW;
+
+    /** The visit is over (seen, or closed as missed): no editing, cancelling or restoring. */
+    public boolean isFinished() {
+        return this == COMPLETED || this == NO_SHOW;
+    }
 }
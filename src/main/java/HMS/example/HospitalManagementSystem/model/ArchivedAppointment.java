@@ -0,0 +1,79 @@
+package HMS.example.HospitalManagementSystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An appointment moved out of the live table by the archive job. Same columns and
+ * id as the original row, read-only afterwards; only history screens read it.
+ */
+@Entity
+@Table(name = "appointment_archive", indexes = {
+        @Index(name = "idx_appt_arch_doctor_time", columnList = "doctor_id, appointment_time, id"),
+        @Index(name = "idx_appt_arch_patient_time", columnList = "patient_id, appointment_time, id")
+})
+public class ArchivedAppointment {
+
+    // the original appointment id, not generated
+    @Id
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "patient_id")
+    private Patient patient;
+
+    @ManyToOne
+    @JoinColumn(name = "doctor_id")
+    private Doctor doctor;
+
+    @Column(name = "appointment_time", nullable = false)
+    private LocalDateTime appointmentTime;
+
+    @Column(name = "notes")
+    private String notes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private AppointmentStatus status;
+
+    @Column(name = "appointment_number", length = 64)
+    private String appointmentNumber;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public ArchivedAppointment() {}
+
+    /** Detached, read-only Appointment view so history templates can render both kinds alike. */
+    public Appointment toAppointment() {
+        Appointment a = new Appointment();
+        a.setId(id);
+        a.setPatient(patient);
+        a.setDoctor(doctor);
+        a.setAppointmentTime(appointmentTime);
+        a.setNotes(notes);
+        a.setStatus(status);
+        a.setAppointmentNumber(appointmentNumber);
+        a.setCreatedAt(createdAt);
+        a.setUpdatedAt(updatedAt);
+        a.setArchived(true);
+        return a;
+    }
+
+    public Long getId() { return id; }
+    public Patient getPatient() { return patient; }
+    public Doctor getDoctor() { return doctor; }
+    public LocalDateTime getAppointmentTime() { return appointmentTime; }
+    public String getNotes() { return notes; }
+    public AppointmentStatus getStatus() { return status; }
+    public String getAppointmentNumber() { return appointmentNumber; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
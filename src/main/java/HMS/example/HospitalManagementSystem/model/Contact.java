@@ -16,6 +16,10 @@ public class Contact {
     
     @Column(length = 1000)
     private String message;
+
+    // Set once an admin opens the submission; null for rows created before this column existed
+    @Column(name = "is_read")
+    private Boolean read = Boolean.FALSE;
     
     // Default constructor
     public Contact() {
@@ -49,6 +53,10 @@ public class Contact {
     public String getMessage() {
         return message;
     }
+
+    public boolean isRead() {
+        return Boolean.TRUE.equals(read);
+    }
     
     // Setter methods
     public void setId(Long id) {
@@ -70,6 +78,10 @@ public class Contact {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    public void setRead(Boolean read) {
+        this.read = read;
+    }
     
     @Override
     public String toString() {
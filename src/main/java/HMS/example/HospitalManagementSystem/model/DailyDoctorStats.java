@@ -0,0 +1,86 @@
+package HMS.example.HospitalManagementSystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized per-doctor, per-day appointment and record totals.
+ * Written only by AnalyticsRollupJob; the analytics page reads nothing else.
+ */
+@Entity
+@Table(name = "daily_doctor_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_dds_day_doctor", columnNames = {"stat_date", "doctor_id"}),
+       indexes = @Index(name = "idx_dds_spec_day", columnList = "specialization, stat_date"))
+public class DailyDoctorStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    // copied from Doctor at rollup time so reads need no join
+    @Column(name = "specialization", length = 100)
+    private String specialization;
+
+    // appointments falling on this day, any status
+    @Column(name = "booked", nullable = false)
+    private long booked;
+
+    @Column(name = "cancelled", nullable = false)
+    private long cancelled;
+
+    @Column(name = "completed", nullable = false)
+    private long completed;
+
+    @Column(name = "no_shows", nullable = false)
+    private long noShows;
+
+    @Column(name = "records_created", nullable = false)
+    private long recordsCreated;
+
+    @Column(name = "refreshed_at")
+    private LocalDateTime refreshedAt;
+
+    public DailyDoctorStats() {}
+
+    public DailyDoctorStats(LocalDate statDate, Long doctorId) {
+        this.statDate = statDate;
+        this.doctorId = doctorId;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getStatDate() { return statDate; }
+    public void setStatDate(LocalDate statDate) { this.statDate = statDate; }
+
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public String getSpecialization() { return specialization; }
+    public void setSpecialization(String specialization) { this.specialization = specialization; }
+
+    public long getBooked() { return booked; }
+    public void setBooked(long booked) { this.booked = booked; }
+
+    public long getCancelled() { return cancelled; }
+    public void setCancelled(long cancelled) { this.cancelled = cancelled; }
+
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+
+    public long getNoShows() { return noShows; }
+    public void setNoShows(long noShows) { this.noShows = noShows; }
+
+    public long getRecordsCreated() { return recordsCreated; }
+    public void setRecordsCreated(long recordsCreated) { this.recordsCreated = recordsCreated; }
+
+    public LocalDateTime getRefreshedAt() { return refreshedAt; }
+    public void setRefreshedAt(LocalDateTime refreshedAt) { this.refreshedAt = refreshedAt; }
+}
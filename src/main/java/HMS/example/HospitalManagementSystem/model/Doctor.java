@@ -10,7 +10,9 @@ public class Doctor {
     // ---------------- PRIMARY KEY ----------------
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence (a table on MySQL) so inserts can be JDBC-batched; see IdSequenceAligner
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctor_seq")
+    @SequenceGenerator(name = "doctor_seq", sequenceName = "doctor_seq", allocationSize = 50)
     private Long id;
 
     // ---------------- BASIC DETAILS ----------------
@@ -51,6 +53,12 @@ public class Doctor {
     @Column(name = "approved_at")
     private LocalDateTime approvedAt;
 
+    // ---------------- AVAILABILITY ----------------
+
+    // booking grid in minutes (5, 10, 15 ...); null = app default
+    @Column(name = "slot_minutes")
+    private Integer slotMinutes;
+
     // ---------------- CONSTRUCTORS ----------------
 
     public Doctor() {}
@@ -153,6 +161,14 @@ public class Doctor {
         this.approvedAt = approvedAt;
     }
 
+    public Integer getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    public void setSlotMinutes(Integer slotMinutes) {
+        this.slotMinutes = slotMinutes;
+    }
+
     // ---------------- TO STRING ----------------
 
     @Override
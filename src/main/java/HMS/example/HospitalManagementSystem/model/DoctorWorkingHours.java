@@ -0,0 +1,70 @@
+package HMS.example.HospitalManagementSystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalTime;
+
+/**
+ * One weekday of a doctor's weekly template. A weekday without a row is a day off;
+ * a doctor without any rows gets the app-wide default template.
+ */
+@Entity
+@Table(name = "doctor_working_hours",
+       uniqueConstraints = @UniqueConstraint(name = "uk_dwh_doctor_day", columnNames = {"doctor_id", "day_of_week"}))
+public class DoctorWorkingHours {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    // ISO day of week, 1 = Monday ... 7 = Sunday
+    @Column(name = "day_of_week", nullable = false)
+    private int dayOfWeek;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+
+    // optional unbookable gap inside the day (lunch)
+    @Column(name = "break_start")
+    private LocalTime breakStart;
+
+    @Column(name = "break_end")
+    private LocalTime breakEnd;
+
+    public DoctorWorkingHours() {}
+
+    public DoctorWorkingHours(Long doctorId, int dayOfWeek, LocalTime startTime, LocalTime endTime,
+                              LocalTime breakStart, LocalTime breakEnd) {
+        this.doctorId = doctorId;
+        this.dayOfWeek = dayOfWeek;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.breakStart = breakStart;
+        this.breakEnd = breakEnd;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public int getDayOfWeek() { return dayOfWeek; }
+    public void setDayOfWeek(int dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+
+    public LocalTime getStartTime() { return startTime; }
+    public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
+
+    public LocalTime getEndTime() { return endTime; }
+    public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
+
+    public LocalTime getBreakStart() { return breakStart; }
+    public void setBreakStart(LocalTime breakStart) { this.breakStart = breakStart; }
+
+    public LocalTime getBreakEnd() { return breakEnd; }
+    public void setBreakEnd(LocalTime breakEnd) { this.breakEnd = breakEnd; }
+}
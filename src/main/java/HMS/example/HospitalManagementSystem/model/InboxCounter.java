@@ -0,0 +1,26 @@
+package HMS.example.HospitalManagementSystem.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Unread message count of one patient, kept up to date by every message write so
+ * the dashboard badge is a primary-key read instead of a count over the inbox.
+ * A patient without a row has no unread messages.
+ */
+@Entity
+@Table(name = "inbox_counter")
+public class InboxCounter {
+
+    @Id
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(nullable = false)
+    private int unread;
+
+    public InboxCounter() {}
+
+    public Long getPatientId() { return patientId; }
+
+    public int getUnread() { return unread; }
+}
@@ -1,23 +1,35 @@
 package HMS.example.HospitalManagementSystem.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.LazyGroup;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "medical_record")
+@Table(name = "medical_record", indexes = {
+        // keyset paging of a patient's / doctor's history, newest first
+        @Index(name = "idx_mr_patient_date", columnList = "patient_id, record_date, id"),
+        @Index(name = "idx_mr_doctor_date", columnList = "doctor_id, record_date, id"),
+        // change feed for the analytics rollup
+        @Index(name = "idx_mr_updated", columnList = "updated_at, id")
+})
 public class MedicalRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_record_seq")
+    @SequenceGenerator(name = "medical_record_seq", sequenceName = "medical_record_seq", allocationSize = 50)
     private Integer id;           // matches SQL INT
 
     @ManyToOne
     @JoinColumn(name = "appointment_id")
     private Appointment appointment; // nullable
 
+    // the appointment's id once the archive job moved it to appointment_archive (appointment is null then)
+    @Column(name = "archived_appointment_id")
+    private Long archivedAppointmentId;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
@@ -29,20 +41,31 @@ public class MedicalRecord {
     @Column(name = "record_date", nullable = false)
     private LocalDate recordDate;
 
+    // Free-text columns are lazy (one shared fetch group): list screens use
+    // summary projections, only detail/edit views and the indexer read the full text.
+
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("text")
     @Column(name = "diagnosis")
     private String diagnosis;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("text")
     @Column(name = "prescription")
     private String prescription;
 
     // ✅ NEW FIELD ADDED HERE
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("text")
     @Column(name = "treatment")
     private String treatment;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("text")
     @Column(name = "notes")
     private String notes;
 
@@ -76,6 +99,9 @@ public class MedicalRecord {
     public Appointment getAppointment() { return appointment; }
     public void setAppointment(Appointment appointment) { this.appointment = appointment; }
 
+    public Long getArchivedAppointmentId() { return archivedAppointmentId; }
+    public void setArchivedAppointmentId(Long archivedAppointmentId) { this.archivedAppointmentId = archivedAppointmentId; }
+
     public Patient getPatient() { return patient; }
     public void setPatient(Patient patient) { this.patient = patient; }
 
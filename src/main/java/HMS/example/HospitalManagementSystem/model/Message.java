@@ -4,11 +4,17 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "message")
+@Table(name = "message",
+       indexes = {
+           @Index(name = "idx_message_patient_id", columnList = "patient_id, id"),
+           // "since" polling reads a sent_at window
+           @Index(name = "idx_message_patient_sent", columnList = "patient_id, sent_at")
+       })
 public class Message {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
+    @SequenceGenerator(name = "message_seq", sequenceName = "message_seq", allocationSize = 50)
     private Long id;
 
     // who sent message (clinic, system, doctor)
@@ -23,6 +29,10 @@ public class Message {
     @Column(name = "sent_at", nullable = false)
     private LocalDateTime sentAt;
 
+    // null until the patient has read it
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
     // many messages belong to one patient
     @ManyToOne(optional = false)
     @JoinColumn(name = "patient_id")
@@ -50,6 +60,9 @@ public class Message {
     public LocalDateTime getSentAt() { return sentAt; }
     public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
 
+    public LocalDateTime getReadAt() { return readAt; }
+    public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
+
     public Patient getPatient() { return patient; }
     public void setPatient(Patient patient) { this.patient = patient; }
 }
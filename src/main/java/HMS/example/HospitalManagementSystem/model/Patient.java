@@ -7,7 +7,9 @@ import jakarta.persistence.*;
 public class Patient {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence (a table on MySQL) so inserts can be JDBC-batched; see IdSequenceAligner
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_seq")
+    @SequenceGenerator(name = "patient_seq", sequenceName = "patient_seq", allocationSize = 50)
     private Long id;
 
     private String address;
@@ -8,13 +8,15 @@ import java.time.LocalDateTime;
 public class RecordReport {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "record_report_seq")
+    @SequenceGenerator(name = "record_report_seq", sequenceName = "record_report_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "medical_record_id", nullable = false)
     private MedicalRecord medicalRecord;
 
+    // storage key: generated name of the stored file (same key in every tier)
     @Column(name = "file_name", nullable = false, length = 512)
     private String fileName;
 
@@ -24,6 +26,27 @@ public class RecordReport {
     @Column(name = "content_type", length = 120)
     private String contentType;
 
+    // size in bytes of the original file
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    // SHA-256 of the file content (hex)
+    @Column(name = "checksum", length = 64)
+    private String checksum;
+
+    // where the file currently lives (null = HOT, written before tiering existed)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage_tier", length = 16)
+    private StorageTier storageTier = StorageTier.HOT;
+
+    // true when the stored copy is gzip-compressed
+    @Column(name = "compressed")
+    private Boolean compressed = Boolean.FALSE;
+
+    // bytes actually used on disk (differs from fileSize when compressed)
+    @Column(name = "stored_size")
+    private Long storedSize;
+
     @Column(name = "description", length = 1000)
     private String description;
 
@@ -48,6 +71,21 @@ public class RecordReport {
     public String getContentType() { return contentType; }
     public void setContentType(String contentType) { this.contentType = contentType; }
 
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+
+    public StorageTier getStorageTier() { return storageTier != null ? storageTier : StorageTier.HOT; }
+    public void setStorageTier(StorageTier storageTier) { this.storageTier = storageTier; }
+
+    public boolean isCompressed() { return compressed != null && compressed; }
+    public void setCompressed(Boolean compressed) { this.compressed = compressed; }
+
+    public Long getStoredSize() { return storedSize; }
+    public void setStoredSize(Long storedSize) { this.storedSize = storedSize; }
+
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
@@ -0,0 +1,60 @@
+package HMS.example.HospitalManagementSystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * High-water marks of an incremental rollup. One row per pipeline, updated in
+ * the same transaction as the rollup rows it describes.
+ */
+@Entity
+@Table(name = "rollup_state")
+public class RollupState {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    // last (updated_at, id) consumed from the appointment table
+    @Column(name = "appt_hwm_time")
+    private LocalDateTime appointmentHwmTime;
+
+    @Column(name = "appt_hwm_id")
+    private Long appointmentHwmId;
+
+    // last (updated_at, id) consumed from the medical_record table
+    @Column(name = "record_hwm_time")
+    private LocalDateTime recordHwmTime;
+
+    @Column(name = "record_hwm_id")
+    private Integer recordHwmId;
+
+    // days up to and including this one have been re-rolled after they ended
+    @Column(name = "closed_through")
+    private LocalDate closedThrough;
+
+    public RollupState() {}
+
+    public RollupState(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public LocalDateTime getAppointmentHwmTime() { return appointmentHwmTime; }
+    public void setAppointmentHwmTime(LocalDateTime appointmentHwmTime) { this.appointmentHwmTime = appointmentHwmTime; }
+
+    public Long getAppointmentHwmId() { return appointmentHwmId; }
+    public void setAppointmentHwmId(Long appointmentHwmId) { this.appointmentHwmId = appointmentHwmId; }
+
+    public LocalDateTime getRecordHwmTime() { return recordHwmTime; }
+    public void setRecordHwmTime(LocalDateTime recordHwmTime) { this.recordHwmTime = recordHwmTime; }
+
+    public Integer getRecordHwmId() { return recordHwmId; }
+    public void setRecordHwmId(Integer recordHwmId) { this.recordHwmId = recordHwmId; }
+
+    public LocalDate getClosedThrough() { return closedThrough; }
+    public void setClosedThrough(LocalDate closedThrough) { this.closedThrough = closedThrough; }
+}
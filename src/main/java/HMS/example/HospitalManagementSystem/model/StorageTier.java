@@ -0,0 +1,6 @@
+package HMS.example.HospitalManagementSystem.model;
+
+public enum StorageTier {
+    HOT,
+    COLD
+}
@@ -0,0 +1,91 @@
+package HMS.example.HospitalManagementSystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A patient waiting for a freed slot with one doctor, between notBefore and notAfter.
+ * While OFFERED the entry holds one slot (offeredTime) for the patient until
+ * offerExpiresAt; accepting books it, letting it lapse puts the entry back to WAITING.
+ */
+@Entity
+@Table(name = "waitlist_entry", indexes = {
+        @Index(name = "idx_wl_doctor_status", columnList = "doctor_id, status"),
+        @Index(name = "idx_wl_patient", columnList = "patient_id, status")
+})
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "not_before", nullable = false)
+    private LocalDateTime notBefore;
+
+    @Column(name = "not_after", nullable = false)
+    private LocalDateTime notAfter;
+
+    // set by the doctor: 0 normal, 1 high, 2 urgent; higher is offered first, then oldest
+    @Column(name = "priority", nullable = false)
+    private int priority;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "offered_time")
+    private LocalDateTime offeredTime;
+
+    @Column(name = "offer_expires_at")
+    private LocalDateTime offerExpiresAt;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    public WaitlistEntry() {}
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public LocalDateTime getNotBefore() { return notBefore; }
+    public void setNotBefore(LocalDateTime notBefore) { this.notBefore = notBefore; }
+
+    public LocalDateTime getNotAfter() { return notAfter; }
+    public void setNotAfter(LocalDateTime notAfter) { this.notAfter = notAfter; }
+
+    public int getPriority() { return priority; }
+    public void setPriority(int priority) { this.priority = priority; }
+
+    public WaitlistStatus getStatus() { return status; }
+    public void setStatus(WaitlistStatus status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getOfferedTime() { return offeredTime; }
+    public void setOfferedTime(LocalDateTime offeredTime) { this.offeredTime = offeredTime; }
+
+    public LocalDateTime getOfferExpiresAt() { return offerExpiresAt; }
+    public void setOfferExpiresAt(LocalDateTime offerExpiresAt) { this.offerExpiresAt = offerExpiresAt; }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+}
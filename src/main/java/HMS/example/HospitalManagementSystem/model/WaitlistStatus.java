@@ -0,0 +1,9 @@
+package HMS.example.HospitalManagementSystem.model;
+
+public enum WaitlistStatus {
+    WAITING,
+    OFFERED,
+    BOOKED,
+    LEFT,
+    EXPIRED
+}
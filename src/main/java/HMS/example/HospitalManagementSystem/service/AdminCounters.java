@@ -0,0 +1,252 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import HMS.example.HospitalManagementSystem.model.Contact;
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.model.Patient;
+import jakarta.annotation.PostConstruct;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live totals for the admin dashboard.
+ *
+ * Seeded by count queries when the app is ready, then kept current by Hibernate
+ * post-commit events on Doctor, Patient, Appointment and Contact, so a rolled-back
+ * transaction never moves a counter. Bulk HQL deletes bypass those events; the
+ * periodic {@link #reconcile()} (also callable directly) re-counts from the DB.
+ */
+@Service
+public class AdminCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminCounters.class);
+
+    private static final Set<Class<?>> TRACKED = Set.of(Doctor.class, Patient.class, Appointment.class, Contact.class);
+
+    @Autowired
+    private SessionFactory sf;
+
+    private final AtomicLong doctors = new AtomicLong();
+    private final AtomicLong approvedDoctors = new AtomicLong();
+    private final AtomicLong patients = new AtomicLong();
+    private final AtomicLongArray appointments = new AtomicLongArray(AppointmentStatus.values().length);
+    private final AtomicLong contacts = new AtomicLong();
+    private final AtomicLong unreadContacts = new AtomicLong();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = sf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        CounterListener listener = new CounterListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    // =================================================================================
+    // READ
+    // =================================================================================
+
+    public Snapshot snapshot() {
+        if (!ready) reconcile();
+        long[] byStatus = new long[appointments.length()];
+        for (int i = 0; i < byStatus.length; i++) byStatus[i] = appointments.get(i);
+        return new Snapshot(doctors.get(), approvedDoctors.get(), patients.get(),
+                byStatus, contacts.get(), unreadContacts.get());
+    }
+
+    // =================================================================================
+    // RECONCILE
+    // =================================================================================
+
+    /**
+     * Re-counts everything from the DB. Deltas committed while this runs may be
+     * counted twice or not at all; the next run corrects that.
+     */
+    @Scheduled(initialDelayString = "${app.counters.admin.reconcile-ms:900000}",
+               fixedDelayString = "${app.counters.admin.reconcile-ms:900000}")
+    public synchronized void reconcile() {
+        Session ss = sf.openSession();
+        try {
+            long d = count(ss, "select count(d.id) from Doctor d");
+            long ad = count(ss, "select count(d.id) from Doctor d where d.approved = true");
+            long p = count(ss, "select count(p.id) from Patient p");
+            long c = count(ss, "select count(c.id) from Contact c");
+            long uc = count(ss, "select count(c.id) from Contact c where c.read is null or c.read = false");
+
+            long[] byStatus = new long[appointments.length()];
+            List<Object[]> rows = ss.createQuery(
+                    "select a.status, count(a.id) from Appointment a group by a.status", Object[].class).list();
+            for (Object[] r : rows) {
+                if (r[0] != null) byStatus[((AppointmentStatus) r[0]).ordinal()] = ((Number) r[1]).longValue();
+            }
+
+            if (ready && (d != doctors.get() || p != patients.get() || uc != unreadContacts.get())) {
+                log.info("Admin counters drifted (doctors {}→{}, patients {}→{}, unread contacts {}→{}); corrected",
+                        doctors.get(), d, patients.get(), p, unreadContacts.get(), uc);
+            }
+
+            doctors.set(d);
+            approvedDoctors.set(ad);
+            patients.set(p);
+            contacts.set(c);
+            unreadContacts.set(uc);
+            for (int i = 0; i < byStatus.length; i++) appointments.set(i, byStatus[i]);
+            ready = true;
+        } catch (Exception e) {
+            log.error("Admin counter reconcile failed: {}", e.getMessage(), e);
+        } finally {
+            ss.close();
+        }
+    }
+
+    private static long count(Session ss, String hql) {
+        Long n = ss.createQuery(hql, Long.class).uniqueResult();
+        return n != null ? n : 0L;
+    }
+
+    // =================================================================================
+    // POST-COMMIT EVENTS
+    // =================================================================================
+
+    private class CounterListener implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            apply(event.getEntity(), event.getPersister().getPropertyNames(), null, event.getState());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getOldState() == null) {
+                // no snapshot to diff against (detached update): let the next reconcile fix it
+                return;
+            }
+            apply(event.getEntity(), event.getPersister().getPropertyNames(), event.getOldState(), event.getState());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            apply(event.getEntity(), event.getPersister().getPropertyNames(), event.getDeletedState(), null);
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) { }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) { }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) { }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return TRACKED.contains(persister.getMappedClass());
+        }
+    }
+
+    // before == null: insert, after == null: delete
+    private void apply(Object entity, String[] names, Object[] before, Object[] after) {
+        if (!ready) return; // the seeding reconcile reads committed rows
+
+        if (entity instanceof Doctor) {
+            if (before == null) doctors.incrementAndGet();
+            if (after == null) doctors.decrementAndGet();
+            approvedDoctors.addAndGet(flag(names, after, "approved") - flag(names, before, "approved"));
+
+        } else if (entity instanceof Patient) {
+            if (before == null) patients.incrementAndGet();
+            if (after == null) patients.decrementAndGet();
+
+        } else if (entity instanceof Appointment) {
+            Object oldStatus = value(names, before, "status");
+            Object newStatus = value(names, after, "status");
+            if (oldStatus == newStatus) return;
+            if (oldStatus instanceof AppointmentStatus s) appointments.decrementAndGet(s.ordinal());
+            if (newStatus instanceof AppointmentStatus s) appointments.incrementAndGet(s.ordinal());
+
+        } else if (entity instanceof Contact) {
+            if (before == null) contacts.incrementAndGet();
+            if (after == null) contacts.decrementAndGet();
+            long unreadBefore = before == null ? 0 : 1 - flag(names, before, "read");
+            long unreadAfter = after == null ? 0 : 1 - flag(names, after, "read");
+            unreadContacts.addAndGet(unreadAfter - unreadBefore);
+        }
+    }
+
+    private static long flag(String[] names, Object[] state, String property) {
+        return Boolean.TRUE.equals(value(names, state, property)) ? 1 : 0;
+    }
+
+    private static Object value(String[] names, Object[] state, String property) {
+        if (state == null) return null;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return state[i];
+        }
+        return null;
+    }
+
+    // ---------- point-in-time copy for the dashboard ----------
+    public static class Snapshot {
+        private final long doctors;
+        private final long approvedDoctors;
+        private final long patients;
+        private final long[] appointmentsByStatus;
+        private final long contacts;
+        private final long unreadContacts;
+        Snapshot(long doctors, long approvedDoctors, long patients,
+                 long[] appointmentsByStatus, long contacts, long unreadContacts) {
+            this.doctors = doctors;
+            this.approvedDoctors = approvedDoctors;
+            this.patients = patients;
+            this.appointmentsByStatus = appointmentsByStatus;
+            this.contacts = contacts;
+            this.unreadContacts = unreadContacts;
+        }
+        public long getDoctors() { return doctors; }
+        public long getApprovedDoctors() { return approvedDoctors; }
+        public long getPendingDoctors() { return doctors - approvedDoctors; }
+        public long getPatients() { return patients; }
+        public long getBookedAppointments() { return appointmentsByStatus[AppointmentStatus.BOOKED.ordinal()]; }
+        public long getScheduledAppointments() { return appointmentsByStatus[AppointmentStatus.SCHEDULED.ordinal()]; }
+        public long getCompletedAppointments() { return appointmentsByStatus[AppointmentStatus.COMPLETED.ordinal()]; }
+        public long getCancelledAppointments() { return appointmentsByStatus[AppointmentStatus.CANCELLED.ordinal()]; }
+        public long getNoShowAppointments() { return appointmentsByStatus[AppointmentStatus.NO_SHOW.ordinal()]; }
+        public long getOpenAppointments() { return getBookedAppointments() + getScheduledAppointments(); }
+        public long getContacts() { return contacts; }
+        public long getUnreadContacts() { return unreadContacts; }
+    }
+}
@@ -0,0 +1,344 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import HMS.example.HospitalManagementSystem.model.DailyDoctorStats;
+import HMS.example.HospitalManagementSystem.model.RollupState;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Incrementally maintains daily_doctor_stats from the appointment and medical_record tables.
+ *
+ * Each step reads the next batch of changed rows after the stored (updated_at, id)
+ * high-water marks, works out which (day, doctor) buckets they touch, and recomputes
+ * just those buckets from the raw rows with grouped, index-backed queries. Rollup rows
+ * and the new marks are written in one transaction, so a crash simply repeats a batch.
+ *
+ * No-shows depend on the clock rather than on a row change, so every day is re-rolled
+ * once after it ends ("closing"). An appointment moved to another day only refreshes
+ * its new day immediately; the old day is corrected when it closes.
+ */
+@Component
+public class AnalyticsRollupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsRollupJob.class);
+
+    private static final String PIPELINE = "daily_doctor_stats";
+
+    // at most this many finished days are closed per run (catch-up after downtime)
+    private static final int MAX_CLOSE_DAYS = 31;
+
+    private final SessionFactory sf;
+
+    @Value("${app.analytics.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.analytics.rollup.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.analytics.rollup.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    // rows younger than this are left for the next run, so late commits are not skipped
+    @Value("${app.analytics.rollup.lag-seconds:30}")
+    private long lagSeconds;
+
+    public AnalyticsRollupJob(SessionFactory sf) {
+        this.sf = sf;
+    }
+
+    @Scheduled(initialDelayString = "${app.analytics.rollup.initial-delay-ms:30000}",
+               fixedDelayString = "${app.analytics.rollup.interval-ms:300000}")
+    public synchronized void run() {
+        if (!enabled) return;
+        try {
+            stampLegacyRows();
+
+            int batches = 0;
+            int buckets = 0;
+            int touched;
+            while ((touched = step()) >= 0) {
+                buckets += touched;
+                if (++batches >= maxBatchesPerRun) break;
+            }
+            int closed = closeFinishedDays();
+
+            if (buckets > 0 || closed > 0) {
+                log.info("Analytics rollup: refreshed {} bucket(s) in {} batch(es), closed {} day(s)",
+                        buckets, batches, closed);
+            }
+        } catch (Exception e) {
+            log.error("Analytics rollup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // =================================================================================
+    // INCREMENTAL STEP
+    // =================================================================================
+
+    // Rows written before updated_at existed join the change feed once
+    private void stampLegacyRows() {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            LocalDateTime now = LocalDateTime.now();
+            int a = ss.createMutationQuery("update Appointment a set a.updatedAt = :now where a.updatedAt is null")
+                    .setParameter("now", now).executeUpdate();
+            int m = ss.createMutationQuery("update MedicalRecord m set m.updatedAt = :now where m.updatedAt is null")
+                    .setParameter("now", now).executeUpdate();
+            tx.commit();
+            if (a + m > 0) log.info("Analytics rollup: stamped {} appointment(s) and {} record(s) for backfill", a, m);
+        } catch (RuntimeException e) {
+            if (tx != null) tx.rollback();
+            throw e;
+        } finally {
+            ss.close();
+        }
+    }
+
+    /**
+     * Consumes one batch from each change feed.
+     * Returns the number of buckets refreshed, or -1 when both feeds are drained.
+     */
+    private int step() {
+        LocalDateTime upper = LocalDateTime.now().minusSeconds(lagSeconds);
+
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            RollupState state = ss.get(RollupState.class, PIPELINE);
+            if (state == null) {
+                state = new RollupState(PIPELINE);
+                ss.persist(state);
+            }
+
+            Map<LocalDate, Set<Long>> buckets = new TreeMap<>();
+
+            // --- appointments ---
+            Query<Object[]> aq = ss.createQuery(
+                    "select a.id, a.doctor.id, a.appointmentTime, a.updatedAt from Appointment a " +
+                    "where a.updatedAt < :upper " +
+                    (state.getAppointmentHwmTime() != null
+                            ? "and (a.updatedAt > :t or (a.updatedAt = :t and a.id > :id)) " : "") +
+                    "order by a.updatedAt, a.id", Object[].class);
+            aq.setParameter("upper", upper);
+            if (state.getAppointmentHwmTime() != null) {
+                aq.setParameter("t", state.getAppointmentHwmTime());
+                aq.setParameter("id", state.getAppointmentHwmId() != null ? state.getAppointmentHwmId() : 0L);
+            }
+            List<Object[]> appts = aq.setMaxResults(batchSize).list();
+            for (Object[] r : appts) {
+                if (r[1] != null && r[2] != null) {
+                    buckets.computeIfAbsent(((LocalDateTime) r[2]).toLocalDate(), k -> new HashSet<>()).add((Long) r[1]);
+                }
+            }
+            if (!appts.isEmpty()) {
+                Object[] last = appts.get(appts.size() - 1);
+                state.setAppointmentHwmId((Long) last[0]);
+                state.setAppointmentHwmTime((LocalDateTime) last[3]);
+            }
+
+            // --- medical records ---
+            Query<Object[]> mq = ss.createQuery(
+                    "select m.id, m.doctor.id, m.recordDate, m.updatedAt from MedicalRecord m " +
+                    "where m.updatedAt < :upper " +
+                    (state.getRecordHwmTime() != null
+                            ? "and (m.updatedAt > :t or (m.updatedAt = :t and m.id > :id)) " : "") +
+                    "order by m.updatedAt, m.id", Object[].class);
+            mq.setParameter("upper", upper);
+            if (state.getRecordHwmTime() != null) {
+                mq.setParameter("t", state.getRecordHwmTime());
+                mq.setParameter("id", state.getRecordHwmId() != null ? state.getRecordHwmId() : 0);
+            }
+            List<Object[]> records = mq.setMaxResults(batchSize).list();
+            for (Object[] r : records) {
+                if (r[1] != null && r[2] != null) {
+                    buckets.computeIfAbsent((LocalDate) r[2], k -> new HashSet<>()).add((Long) r[1]);
+                }
+            }
+            if (!records.isEmpty()) {
+                Object[] last = records.get(records.size() - 1);
+                state.setRecordHwmId((Integer) last[0]);
+                state.setRecordHwmTime((LocalDateTime) last[3]);
+            }
+
+            int refreshed = 0;
+            for (Map.Entry<LocalDate, Set<Long>> e : buckets.entrySet()) {
+                refreshed += rebuild(ss, e.getKey(), e.getValue());
+            }
+            tx.commit();
+
+            boolean more = appts.size() >= batchSize || records.size() >= batchSize;
+            return (more || refreshed > 0) ? refreshed : -1;
+        } catch (RuntimeException e) {
+            if (tx != null) tx.rollback();
+            throw e;
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // CLOSING FINISHED DAYS
+    // =================================================================================
+
+    private int closeFinishedDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        int closed = 0;
+
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            RollupState state = ss.get(RollupState.class, PIPELINE);
+            if (state == null) {
+                tx.rollback();
+                return 0;
+            }
+            if (state.getClosedThrough() == null) {
+                // first run: the backfill above already saw every past day after it ended
+                state.setClosedThrough(yesterday);
+                tx.commit();
+                return 0;
+            }
+
+            LocalDate day = state.getClosedThrough().plusDays(1);
+            while (!day.isAfter(yesterday) && closed < MAX_CLOSE_DAYS) {
+                Set<Long> doctors = new HashSet<>();
+                doctors.addAll(ss.createQuery(
+                        "select distinct a.doctor.id from Appointment a " +
+                        "where a.appointmentTime >= :from and a.appointmentTime < :to", Long.class)
+                        .setParameter("from", day.atStartOfDay())
+                        .setParameter("to", day.plusDays(1).atStartOfDay())
+                        .list());
+                doctors.addAll(ss.createQuery(
+                        "select distinct m.doctor.id from MedicalRecord m where m.recordDate = :d", Long.class)
+                        .setParameter("d", day)
+                        .list());
+                doctors.addAll(ss.createQuery(
+                        "select s.doctorId from DailyDoctorStats s where s.statDate = :d", Long.class)
+                        .setParameter("d", day)
+                        .list());
+                doctors.remove(null);
+
+                rebuild(ss, day, doctors);
+                state.setClosedThrough(day);
+                closed++;
+                day = day.plusDays(1);
+            }
+            tx.commit();
+            return closed;
+        } catch (RuntimeException e) {
+            if (tx != null) tx.rollback();
+            throw e;
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // BUCKET REBUILD
+    // =================================================================================
+
+    /** Recomputes the given doctors' rows for one day from the raw tables. */
+    private int rebuild(Session ss, LocalDate day, Set<Long> doctorIds) {
+        if (doctorIds.isEmpty()) return 0;
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, Object[]> apptTotals = new HashMap<>();
+        for (Object[] r : ss.createQuery(
+                "select a.doctor.id, count(a.id), " +
+                "sum(case when a.status = :cancelled then 1 else 0 end), " +
+                "sum(case when a.status = :completed then 1 else 0 end), " +
+                "sum(case when a.status = :noShow or ((a.status = :booked or a.status = :scheduled) " +
+                "and a.appointmentTime < :now) then 1 else 0 end) " +
+                "from Appointment a " +
+                "where a.doctor.id in :docs and a.appointmentTime >= :from and a.appointmentTime < :to " +
+                "group by a.doctor.id", Object[].class)
+                .setParameter("cancelled", AppointmentStatus.CANCELLED)
+                .setParameter("completed", AppointmentStatus.COMPLETED)
+                .setParameter("noShow", AppointmentStatus.NO_SHOW)
+                .setParameter("booked", AppointmentStatus.BOOKED)
+                .setParameter("scheduled", AppointmentStatus.SCHEDULED)
+                .setParameter("now", now)
+                .setParameter("docs", doctorIds)
+                .setParameter("from", day.atStartOfDay())
+                .setParameter("to", day.plusDays(1).atStartOfDay())
+                .list()) {
+            apptTotals.put((Long) r[0], r);
+        }
+
+        Map<Long, Long> recordTotals = new HashMap<>();
+        for (Object[] r : ss.createQuery(
+                "select m.doctor.id, count(m.id) from MedicalRecord m " +
+                "where m.doctor.id in :docs and m.recordDate = :d group by m.doctor.id", Object[].class)
+                .setParameter("docs", doctorIds)
+                .setParameter("d", day)
+                .list()) {
+            recordTotals.put((Long) r[0], (Long) r[1]);
+        }
+
+        Map<Long, String> specializations = new HashMap<>();
+        for (Object[] r : ss.createQuery(
+                "select d.id, d.specialization from Doctor d where d.id in :docs", Object[].class)
+                .setParameter("docs", doctorIds)
+                .list()) {
+            specializations.put((Long) r[0], (String) r[1]);
+        }
+
+        Map<Long, DailyDoctorStats> existing = new HashMap<>();
+        for (DailyDoctorStats s : ss.createQuery(
+                "from DailyDoctorStats s where s.statDate = :d and s.doctorId in :docs", DailyDoctorStats.class)
+                .setParameter("d", day)
+                .setParameter("docs", doctorIds)
+                .list()) {
+            existing.put(s.getDoctorId(), s);
+        }
+
+        for (Long doctorId : doctorIds) {
+            Object[] a = apptTotals.get(doctorId);
+            long records = recordTotals.getOrDefault(doctorId, 0L);
+            DailyDoctorStats row = existing.get(doctorId);
+
+            if (a == null && records == 0) {
+                if (row != null) ss.remove(row);
+                continue;
+            }
+            if (row == null) {
+                row = new DailyDoctorStats(day, doctorId);
+                ss.persist(row);
+            }
+            row.setSpecialization(specializations.get(doctorId));
+            row.setBooked(a != null ? num(a[1]) : 0);
+            row.setCancelled(a != null ? num(a[2]) : 0);
+            row.setCompleted(a != null ? num(a[3]) : 0);
+            row.setNoShows(a != null ? num(a[4]) : 0);
+            row.setRecordsCreated(records);
+            row.setRefreshedAt(now);
+        }
+        return doctorIds.size();
+    }
+
+    private static long num(Object o) {
+        return o != null ? ((Number) o).longValue() : 0L;
+    }
+}
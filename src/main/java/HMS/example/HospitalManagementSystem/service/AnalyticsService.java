@@ -0,0 +1,129 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of the analytics rollups. Every query here hits daily_doctor_stats only,
+ * never the raw appointment / medical_record tables.
+ */
+@Service
+public class AnalyticsService {
+
+    private static final String SUMS =
+            "sum(s.booked), sum(s.cancelled), sum(s.completed), sum(s.noShows), sum(s.recordsCreated) ";
+
+    @Autowired
+    private SessionFactory sf;
+
+    /** One row per day in [from, to] that has any activity, oldest first. */
+    public List<Totals> daily(LocalDate from, LocalDate to, String specialization) {
+        Session ss = sf.openSession();
+        try {
+            Query<Object[]> q = ss.createQuery(
+                    "select s.statDate, " + SUMS +
+                    "from DailyDoctorStats s where s.statDate between :from and :to " +
+                    (specialization != null ? "and s.specialization = :spec " : "") +
+                    "group by s.statDate order by s.statDate", Object[].class);
+            bind(q, from, to, specialization);
+
+            List<Totals> out = new ArrayList<>();
+            for (Object[] r : q.list()) out.add(new Totals(String.valueOf(r[0]), r));
+            return out;
+        } finally {
+            ss.close();
+        }
+    }
+
+    public List<Totals> bySpecialization(LocalDate from, LocalDate to) {
+        Session ss = sf.openSession();
+        try {
+            Query<Object[]> q = ss.createQuery(
+                    "select s.specialization, " + SUMS +
+                    "from DailyDoctorStats s where s.statDate between :from and :to " +
+                    "group by s.specialization order by sum(s.booked) desc", Object[].class);
+            bind(q, from, to, null);
+
+            List<Totals> out = new ArrayList<>();
+            for (Object[] r : q.list()) out.add(new Totals(r[0] != null ? (String) r[0] : "General", r));
+            return out;
+        } finally {
+            ss.close();
+        }
+    }
+
+    public List<Totals> topDoctors(LocalDate from, LocalDate to, String specialization, int limit) {
+        Session ss = sf.openSession();
+        try {
+            Query<Object[]> q = ss.createQuery(
+                    "select s.doctorId, " + SUMS +
+                    "from DailyDoctorStats s where s.statDate between :from and :to " +
+                    (specialization != null ? "and s.specialization = :spec " : "") +
+                    "group by s.doctorId order by sum(s.booked) desc", Object[].class);
+            bind(q, from, to, specialization);
+            List<Object[]> rows = q.setMaxResults(limit).list();
+            if (rows.isEmpty()) return new ArrayList<>();
+
+            // names for one page of doctors (primary-key lookup, not an analytics scan)
+            List<Long> ids = new ArrayList<>();
+            for (Object[] r : rows) ids.add((Long) r[0]);
+            Map<Long, String> names = new HashMap<>();
+            for (Object[] n : ss.createQuery("select d.id, d.name from Doctor d where d.id in :ids", Object[].class)
+                    .setParameter("ids", ids).list()) {
+                names.put((Long) n[0], (String) n[1]);
+            }
+
+            List<Totals> out = new ArrayList<>();
+            for (Object[] r : rows) {
+                String name = names.get((Long) r[0]);
+                out.add(new Totals(name != null ? name : "Doctor #" + r[0], r));
+            }
+            return out;
+        } finally {
+            ss.close();
+        }
+    }
+
+    private static void bind(Query<?> q, LocalDate from, LocalDate to, String specialization) {
+        q.setParameter("from", from);
+        q.setParameter("to", to);
+        if (specialization != null) q.setParameter("spec", specialization);
+    }
+
+    // ---------- one labelled row of summed counters ----------
+    public static class Totals {
+        private final String label;
+        private final long booked;
+        private final long cancelled;
+        private final long completed;
+        private final long noShows;
+        private final long recordsCreated;
+        // r[0] = group key, r[1..5] = the SUMS columns
+        Totals(String label, Object[] r) {
+            this.label = label;
+            this.booked = num(r[1]);
+            this.cancelled = num(r[2]);
+            this.completed = num(r[3]);
+            this.noShows = num(r[4]);
+            this.recordsCreated = num(r[5]);
+        }
+        private static long num(Object o) {
+            return o != null ? ((Number) o).longValue() : 0L;
+        }
+        public String getLabel() { return label; }
+        public long getBooked() { return booked; }
+        public long getCancelled() { return cancelled; }
+        public long getCompleted() { return completed; }
+        public long getNoShows() { return noShows; }
+        public long getRecordsCreated() { return recordsCreated; }
+    }
+}
@@ -0,0 +1,231 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import HMS.example.HospitalManagementSystem.model.ArchivedAppointment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the live appointment table to recent and open rows.
+ *
+ * Every night, appointments in a terminal state older than
+ * {@code app.appointments.archive.retention-days} are copied into appointment_archive
+ * (same id and columns) and deleted from appointment, one chunk per transaction.
+ * Medical records stay live (patients' history, search and reports read them); in the
+ * same transaction their appointment link moves from appointment_id to
+ * archived_appointment_id, so the foreign key no longer pins the appointment.
+ * Daily analytics were rolled up long before, so they keep their history.
+ *
+ * History screens read the archive only when the user asks for older history; see
+ * {@link #mergeNewestFirst} for how the two sources are combined into one list.
+ */
+@Service
+public class AppointmentArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentArchiveService.class);
+
+    private static final List<AppointmentStatus> TERMINAL =
+            List.of(AppointmentStatus.COMPLETED, AppointmentStatus.CANCELLED, AppointmentStatus.NO_SHOW);
+
+    private static final String COPY =
+            "insert into appointment_archive (id, patient_id, doctor_id, appointment_time, notes, status, " +
+            "appointment_number, created_at, updated_at, archived_at) " +
+            "select id, patient_id, doctor_id, appointment_time, notes, status, " +
+            "appointment_number, created_at, updated_at, :now from appointment where id in :ids";
+
+    // updated_at untouched: the record itself did not change, so the rollup and search index skip it
+    private static final String DETACH_RECORDS =
+            "update medical_record set archived_appointment_id = appointment_id, appointment_id = null " +
+            "where appointment_id in :ids";
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Autowired
+    private DoctorAppointmentCounters appointmentCounters;
+
+    @Autowired
+    private AdminCounters adminCounters;
+
+    @Value("${app.appointments.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.appointments.archive.retention-days:730}")
+    private int retentionDays;
+
+    @Value("${app.appointments.archive.chunk-size:500}")
+    private int chunkSize;
+
+    // =================================================================================
+    // ARCHIVE JOB
+    // =================================================================================
+
+    @Scheduled(cron = "${app.appointments.archive.cron:0 30 3 * * *}")
+    public synchronized void archive() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+
+        int moved = 0;
+        Set<Long> doctors = new HashSet<>();
+        try {
+            int n;
+            while ((n = archiveChunk(cutoff, doctors)) > 0) {
+                moved += n;
+            }
+        } catch (Exception e) {
+            log.error("Appointment archive stopped after {} row(s): {}", moved, e.getMessage(), e);
+        } finally {
+            if (moved > 0) {
+                // bulk delete bypassed the counter events
+                for (Long doctorId : doctors) appointmentCounters.evict(doctorId);
+                adminCounters.reconcile();
+                log.info("Archived {} appointment(s) older than {} in {} ms",
+                        moved, cutoff.toLocalDate(), (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+    }
+
+    // re-links records, copies, then deletes one chunk in a single transaction, so a row is always in exactly one table
+    private int archiveChunk(LocalDateTime cutoff, Set<Long> doctors) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            List<Object[]> rows = ss.createQuery(
+                    "select a.id, a.doctor.id from Appointment a " +
+                    "where a.status in :terminal and a.appointmentTime < :cutoff " +
+                    "order by a.appointmentTime", Object[].class)
+                .setParameter("terminal", TERMINAL)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(chunkSize)
+                .list();
+            if (rows.isEmpty()) {
+                tx.commit();
+                return 0;
+            }
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] r : rows) {
+                ids.add((Long) r[0]);
+                if (r[1] != null) doctors.add((Long) r[1]);
+            }
+
+            ss.createNativeMutationQuery(DETACH_RECORDS)
+                    .setParameterList("ids", ids)
+                    .executeUpdate();
+            int copied = ss.createNativeMutationQuery(COPY)
+                    .setParameter("now", LocalDateTime.now())
+                    .setParameterList("ids", ids)
+                    .executeUpdate();
+            int deleted = ss.createMutationQuery("delete from Appointment a where a.id in :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+            if (copied != deleted) {
+                throw new IllegalStateException("copied " + copied + " but deleted " + deleted + " row(s)");
+            }
+            tx.commit();
+            return deleted;
+        } catch (RuntimeException e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw e;
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // READ
+    // =================================================================================
+
+    /**
+     * A doctor's archived appointments before {@code now}, newest first, continuing
+     * after the keyset cursor ({@code cTime}, {@code cId}) when it is set.
+     */
+    public List<Appointment> doctorHistory(Long doctorId, LocalDateTime now,
+                                           LocalDateTime cTime, Long cId, int max) {
+        Session ss = sf.openSession();
+        try {
+            Query<ArchivedAppointment> q = ss.createQuery(
+                    "from ArchivedAppointment a left join fetch a.patient " +
+                    "where a.doctor.id = :did and a.appointmentTime < :now " +
+                    (cTime != null ? "and (a.appointmentTime < :cTime or (a.appointmentTime = :cTime and a.id < :cId)) " : "") +
+                    "order by a.appointmentTime desc, a.id desc",
+                    ArchivedAppointment.class);
+            q.setParameter("did", doctorId);
+            q.setParameter("now", now);
+            if (cTime != null) {
+                q.setParameter("cTime", cTime);
+                q.setParameter("cId", cId);
+            }
+            q.setMaxResults(max);
+            return toAppointments(q.list());
+        } finally {
+            ss.close();
+        }
+    }
+
+    /** A patient's archived appointments, newest first; {@code exclude} (nullable) filters one status out. */
+    public List<Appointment> patientHistory(Long patientId, AppointmentStatus exclude) {
+        Session ss = sf.openSession();
+        try {
+            Query<ArchivedAppointment> q = ss.createQuery(
+                    "from ArchivedAppointment a left join fetch a.doctor " +
+                    "where a.patient.id = :pid " +
+                    (exclude != null ? "and a.status != :st " : "") +
+                    "order by a.appointmentTime desc, a.id desc",
+                    ArchivedAppointment.class);
+            q.setParameter("pid", patientId);
+            if (exclude != null) q.setParameter("st", exclude);
+            return toAppointments(q.list());
+        } finally {
+            ss.close();
+        }
+    }
+
+    /**
+     * Merges two lists that are each sorted by (appointmentTime, id) descending,
+     * keeping at most {@code max} rows. Archived ids never collide with live ones,
+     * so the order is total and keyset cursors work across both sources.
+     */
+    public static List<Appointment> mergeNewestFirst(List<Appointment> live, List<Appointment> archived, int max) {
+        List<Appointment> out = new ArrayList<>(Math.min(max, live.size() + archived.size()));
+        int i = 0;
+        int j = 0;
+        while (out.size() < max && (i < live.size() || j < archived.size())) {
+            if (j >= archived.size() || (i < live.size() && newer(live.get(i), archived.get(j)))) {
+                out.add(live.get(i++));
+            } else {
+                out.add(archived.get(j++));
+            }
+        }
+        return out;
+    }
+
+    private static boolean newer(Appointment a, Appointment b) {
+        int c = a.getAppointmentTime().compareTo(b.getAppointmentTime());
+        return c != 0 ? c > 0 : a.getId() > b.getId();
+    }
+
+    private static List<Appointment> toAppointments(List<ArchivedAppointment> rows) {
+        List<Appointment> out = new ArrayList<>(rows.size());
+        for (ArchivedAppointment r : rows) out.add(r.toAppointment());
+        return out;
+    }
+}
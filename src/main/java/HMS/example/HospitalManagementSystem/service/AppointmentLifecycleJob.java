@@ -0,0 +1,156 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves past appointments out of the open states so "open" keeps meaning "upcoming".
+ *
+ * An appointment still BOOKED or SCHEDULED {@code app.appointments.close.grace-minutes}
+ * after its time becomes COMPLETED when a medical record points at it, NO_SHOW
+ * otherwise. Candidates are read oldest first, one status at a time so each read is a
+ * plain range scan of the (status, appointment_time) index (an IN list over two
+ * statuses would need a sort), and closed with two bulk updates per chunk, one short
+ * transaction each, so a large backlog after downtime never holds locks for long.
+ *
+ * The updates are versioned and stamp updated_at, so a doctor saving the same
+ * appointment concurrently gets the usual optimistic-lock failure and the analytics
+ * rollup sees the change. Bulk HQL skips the post-commit listeners, hence the
+ * explicit counter refresh at the end of a run.
+ */
+@Component
+public class AppointmentLifecycleJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentLifecycleJob.class);
+
+    private static final List<AppointmentStatus> OPEN = List.of(AppointmentStatus.BOOKED, AppointmentStatus.SCHEDULED);
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Autowired
+    private DoctorAppointmentCounters appointmentCounters;
+
+    @Autowired
+    private AdminCounters adminCounters;
+
+    @Value("${app.appointments.close.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.appointments.close.grace-minutes:120}")
+    private long graceMinutes;
+
+    @Value("${app.appointments.close.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.appointments.close.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    @Scheduled(initialDelayString = "${app.appointments.close.initial-delay-ms:60000}",
+               fixedDelayString = "${app.appointments.close.every-ms:900000}")
+    public synchronized void run() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+
+        int completed = 0;
+        int noShows = 0;
+        int chunks = 0;
+        Set<Long> doctors = new HashSet<>();
+        try {
+            for (AppointmentStatus status : OPEN) {
+                while (chunks < maxChunksPerRun) {
+                    int[] closed = closeChunk(status, cutoff, doctors);
+                    if (closed == null) break;
+                    completed += closed[0];
+                    noShows += closed[1];
+                    chunks++;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Appointment lifecycle run failed after {} chunk(s): {}", chunks, e.getMessage(), e);
+        } finally {
+            if (completed + noShows > 0) {
+                for (Long doctorId : doctors) appointmentCounters.evict(doctorId);
+                adminCounters.reconcile();
+                log.info("Closed {} past appointment(s): {} completed, {} no-show, in {} chunk(s), {} ms",
+                        completed + noShows, completed, noShows, chunks, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Closes the oldest chunk of {@code status} appointments before {@code cutoff}.
+     * Returns {completed, noShows}, or null when nothing is left to close.
+     */
+    private int[] closeChunk(AppointmentStatus status, LocalDateTime cutoff, Set<Long> doctors) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            List<Object[]> rows = ss.createQuery(
+                    "select a.id, a.doctor.id from Appointment a " +
+                    "where a.status = :status and a.appointmentTime < :cutoff " +
+                    "order by a.appointmentTime", Object[].class)
+                .setParameter("status", status)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(chunkSize)
+                .list();
+            if (rows.isEmpty()) {
+                tx.commit();
+                return null;
+            }
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] r : rows) {
+                ids.add((Long) r[0]);
+                if (r[1] != null) doctors.add((Long) r[1]);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            // re-checking the status keeps a row changed since the select untouched
+            int completed = ss.createMutationQuery(
+                    "update versioned Appointment a set a.status = :completed, a.updatedAt = :now " +
+                    "where a.id in :ids and a.status = :status " +
+                    "and exists (select m.id from MedicalRecord m where m.appointment.id = a.id)")
+                .setParameter("completed", AppointmentStatus.COMPLETED)
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .setParameter("status", status)
+                .executeUpdate();
+            int noShows = ss.createMutationQuery(
+                    "update versioned Appointment a set a.status = :noShow, a.updatedAt = :now " +
+                    "where a.id in :ids and a.status = :status")
+                .setParameter("noShow", AppointmentStatus.NO_SHOW)
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .setParameter("status", status)
+                .executeUpdate();
+            tx.commit();
+
+            // every row of a full chunk changed concurrently: stop instead of spinning on it
+            if (completed + noShows == 0) return null;
+            return new int[] { completed, noShows };
+        } catch (RuntimeException e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw e;
+        } finally {
+            ss.close();
+        }
+    }
+}
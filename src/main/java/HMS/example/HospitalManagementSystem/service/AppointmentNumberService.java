@@ -0,0 +1,126 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues appointment numbers of the form {@code APT-<yyyyMMdd>-<node>-<seq>},
+ * e.g. {@code APT-20261019-03-0000042}.
+ *
+ * The sequence restarts every day and comes from one lock-free counter per node,
+ * so issuing a number needs no lock and no DB round trip. Numbers from one node
+ * are strictly increasing; numbers from different nodes differ in the node part,
+ * so {@code app.node-id} must be unique per running instance. On startup the
+ * counter continues after the highest number this node already issued today.
+ */
+@Service
+public class AppointmentNumberService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentNumberService.class);
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int SEQ_DIGITS = 7;
+    private static final long SEQ_MASK = 0xFFFF_FFFFL;
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Value("${app.node-id:0}")
+    private int nodeId;
+
+    // epoch day in the high 32 bits, last issued sequence of that day in the low 32
+    private final AtomicLong state = new AtomicLong();
+
+    // "APT-<yyyyMMdd>-<node>-" for the day in state, rebuilt once per day
+    private volatile Prefix prefix;
+
+    @PostConstruct
+    void init() {
+        if (nodeId < 0 || nodeId > 99) {
+            throw new IllegalStateException("app.node-id must be between 0 and 99, was " + nodeId);
+        }
+        long today = LocalDate.now().toEpochDay();
+        state.set(pack(today, highestIssued(today)));
+    }
+
+    /** Next number for this node. Safe to call from any thread. */
+    public String next() {
+        long today = LocalDate.now().toEpochDay();
+        long cur;
+        long next;
+        do {
+            cur = state.get();
+            long day = cur >>> 32;
+            // a clock stepping back over midnight keeps the later day: numbers never repeat
+            next = day >= today ? pack(day, (cur & SEQ_MASK) + 1) : pack(today, 1);
+        } while (!state.compareAndSet(cur, next));
+
+        return format(next >>> 32, next & SEQ_MASK);
+    }
+
+    private String format(long day, long seq) {
+        Prefix p = prefix;
+        if (p == null || p.day != day) {
+            p = new Prefix(day, "APT-" + LocalDate.ofEpochDay(day).format(DAY) + "-" + twoDigits(nodeId) + "-");
+            prefix = p;
+        }
+
+        String digits = Long.toString(seq);
+        StringBuilder sb = new StringBuilder(p.text.length() + Math.max(SEQ_DIGITS, digits.length()));
+        sb.append(p.text);
+        for (int i = digits.length(); i < SEQ_DIGITS; i++) sb.append('0');
+        return sb.append(digits).toString();
+    }
+
+    // one query at startup: the highest sequence this node already issued for the day
+    private long highestIssued(long day) {
+        String dayPrefix = "APT-" + LocalDate.ofEpochDay(day).format(DAY) + "-" + twoDigits(nodeId) + "-";
+        Session ss = sf.openSession();
+        try {
+            List<String> top = ss.createQuery(
+                    "select a.appointmentNumber from Appointment a where a.appointmentNumber like :p " +
+                    "order by length(a.appointmentNumber) desc, a.appointmentNumber desc", String.class)
+                .setParameter("p", dayPrefix + "%")
+                .setMaxResults(1)
+                .list();
+            if (top.isEmpty()) return 0;
+            long seq = Long.parseLong(top.get(0).substring(dayPrefix.length()));
+            log.info("Appointment numbers for node {} continue after {}", twoDigits(nodeId), top.get(0));
+            return seq;
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("Unexpected appointment number format under " + dayPrefix, ex);
+        } finally {
+            ss.close();
+        }
+    }
+
+    private static long pack(long day, long seq) {
+        return (day << 32) | (seq & SEQ_MASK);
+    }
+
+    private static String twoDigits(int n) {
+        return n < 10 ? "0" + n : Integer.toString(n);
+    }
+
+    private static final class Prefix {
+        final long day;
+        final String text;
+
+        Prefix(long day, String text) {
+            this.day = day;
+            this.text = text;
+        }
+    }
+}
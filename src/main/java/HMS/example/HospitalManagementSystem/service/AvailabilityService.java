@@ -0,0 +1,608 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.model.DoctorWorkingHours;
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Free-slot calendar for every doctor, held in memory.
+ *
+ * Each doctor has a weekly working-hours template (DoctorWorkingHours, or the app
+ * default) turned into one slot bitmap per weekday, and one "booked" bitmap per
+ * day for the next {@code app.availability.horizon-days} days. A free slot is a
+ * working slot whose booked bit is clear, so availability reads never touch the
+ * appointment table.
+ *
+ * The booked bitmaps are built with one query at startup and every night, and
+ * kept current by Hibernate post-commit events on Appointment (booking, cancel,
+ * restore, reschedule). Bulk HQL deletes bypass those events; callers running
+ * them must call {@link #reloadDoctor(Long)} for the doctors they touched.
+ *
+ * Events arriving while a calendar is being re-read would land on the copy about
+ * to be replaced, so every event stamps its doctor with a sequence number and the
+ * reloads re-read any doctor stamped after they started.
+ */
+@Service
+public class AvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityService.class);
+
+    public static final Set<Integer> SLOT_SIZES = Set.of(5, 10, 15, 20, 30, 60);
+
+    private static final List<AppointmentStatus> OPEN = List.of(AppointmentStatus.BOOKED, AppointmentStatus.SCHEDULED);
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Value("${app.availability.horizon-days:60}")
+    private int horizonDays;
+
+    @Value("${app.availability.default-slot-minutes:15}")
+    private int defaultSlotMinutes;
+
+    @Value("${app.availability.default-start:09:00}")
+    private String defaultStartRaw;
+
+    @Value("${app.availability.default-end:17:00}")
+    private String defaultEndRaw;
+
+    // ISO weekdays worked by doctors without their own template
+    @Value("${app.availability.default-days:1,2,3,4,5,6}")
+    private int[] defaultDays;
+
+    // swapped wholesale by rebuildAll()
+    private volatile Map<Long, Calendar> calendars = new ConcurrentHashMap<>();
+
+    // sequence of the latest post-commit event per doctor, to catch events racing a reload
+    private final AtomicLong eventSeq = new AtomicLong();
+    private final Map<Long, Long> lastEvent = new ConcurrentHashMap<>();
+
+    private static final int RELOAD_ATTEMPTS = 3;
+
+    // epoch days covered by the current map; each Calendar keeps the range it was built for
+    private volatile long loadedFrom;
+    private volatile long loadedTo = -1;
+
+    private LocalTime defaultStart;
+    private LocalTime defaultEnd;
+
+    @PostConstruct
+    void init() {
+        defaultStart = LocalTime.parse(defaultStartRaw.trim());
+        defaultEnd = LocalTime.parse(defaultEndRaw.trim());
+
+        EventListenerRegistry registry = sf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        AppointmentListener listener = new AppointmentListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    // =================================================================================
+    // READ
+    // =================================================================================
+
+    /** Free slots per working day in [from, from + days), clipped to today and the horizon. */
+    public List<FreeDay> freeSlots(Long doctorId, LocalDate from, int days) {
+        List<FreeDay> out = new ArrayList<>();
+        Calendar c = calendar(doctorId);
+        if (c == null) return out;
+
+        LocalDateTime now = LocalDateTime.now();
+        for (LocalDate d : range(from, days)) {
+            long[] free = c.free(d, now);
+            if (free == null) continue; // day off
+            List<String> times = new ArrayList<>();
+            for (int slot = nextSetBit(free, 0); slot >= 0; slot = nextSetBit(free, slot + 1)) {
+                times.add(c.timeOf(slot).toString());
+            }
+            out.add(new FreeDay(d, times));
+        }
+        return out;
+    }
+
+    /** Per-doctor free-slot counts for every approved doctor, e.g. for a 30-day overview. */
+    public List<DoctorAvailability> browse(LocalDate from, int days, String specialization) {
+        List<Object[]> doctors;
+        Session ss = sf.openSession();
+        try {
+            doctors = ss.createQuery(
+                    "select d.id, d.name, d.specialization from Doctor d where d.approved = true " +
+                    "and (:spec is null or d.specialization = :spec) order by d.name", Object[].class)
+                .setParameter("spec", specialization)
+                .list();
+        } finally {
+            ss.close();
+        }
+
+        List<LocalDate> dates = range(from, days);
+        LocalDateTime now = LocalDateTime.now();
+        List<DoctorAvailability> out = new ArrayList<>(doctors.size());
+        for (Object[] d : doctors) {
+            Calendar c = calendar((Long) d[0]);
+            if (c == null) continue;
+            List<Integer> perDay = new ArrayList<>(dates.size());
+            LocalDateTime first = null;
+            for (LocalDate date : dates) {
+                long[] free = c.free(date, now);
+                perDay.add(free != null ? bitCount(free) : 0);
+                if (first == null && free != null) {
+                    int slot = nextSetBit(free, 0);
+                    if (slot >= 0) first = date.atTime(c.timeOf(slot));
+                }
+            }
+            out.add(new DoctorAvailability((Long) d[0], (String) d[1], (String) d[2], c.slotMinutes, perDay, first));
+        }
+        return out;
+    }
+
+    /**
+     * False when {@code time} is outside the doctor's working hours or its slot is
+     * taken. Times beyond the loaded horizon are left to the booking's own DB check.
+     */
+    public boolean isBookable(Long doctorId, LocalDateTime time) {
+        Calendar c = calendar(doctorId);
+        if (c == null) return true;
+        long day = time.toLocalDate().toEpochDay();
+        if (day < c.fromDay || day > c.toDay) return true;
+        long[] free = c.free(time.toLocalDate(), LocalDateTime.MIN);
+        return free != null && isSet(free, c.slotOf(time));
+    }
+
+    public int slotMinutes(Long doctorId) {
+        Calendar c = calendar(doctorId);
+        return c != null ? c.slotMinutes : defaultSlotMinutes;
+    }
+
+    private List<LocalDate> range(LocalDate from, int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from == null || from.isBefore(today) ? today : from;
+        LocalDate last = LocalDate.ofEpochDay(Math.min(start.toEpochDay() + Math.max(days, 1) - 1, loadedTo));
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate d = start; !d.isAfter(last); d = d.plusDays(1)) dates.add(d);
+        return dates;
+    }
+
+    // =================================================================================
+    // LOAD
+    // =================================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        rebuildAll();
+    }
+
+    /** Rebuilds every calendar from the DB and moves the horizon to start today. */
+    @Scheduled(cron = "${app.availability.rebuild-cron:0 5 0 * * *}")
+    public synchronized void rebuildAll() {
+        long start = System.currentTimeMillis();
+        long from = LocalDate.now().toEpochDay();
+        long to = from + horizonDays - 1;
+
+        long seen = eventSeq.get();
+        Map<Long, Calendar> fresh = new ConcurrentHashMap<>();
+        Session ss = sf.openSession();
+        try {
+            Map<Long, List<DoctorWorkingHours>> hours = new HashMap<>();
+            for (DoctorWorkingHours h : ss.createQuery("from DoctorWorkingHours", DoctorWorkingHours.class).list()) {
+                hours.computeIfAbsent(h.getDoctorId(), k -> new ArrayList<>()).add(h);
+            }
+            for (Object[] d : ss.createQuery("select d.id, d.slotMinutes from Doctor d", Object[].class).list()) {
+                fresh.put((Long) d[0], newCalendar((Integer) d[1], hours.get((Long) d[0]), from, to));
+            }
+
+            int booked = 0;
+            try (ScrollableResults<Object[]> rows = openAppointments(ss, null, from, to)) {
+                while (rows.next()) {
+                    Object[] r = rows.get();
+                    Calendar c = fresh.get((Long) r[0]);
+                    if (c != null) {
+                        c.add((LocalDateTime) r[1], +1);
+                        booked++;
+                    }
+                }
+            }
+
+            calendars = fresh;
+            loadedFrom = from;
+            loadedTo = to;
+
+            // bookings committed during the scan went to the old map: re-read those doctors
+            int replayed = 0;
+            for (Map.Entry<Long, Long> e : lastEvent.entrySet()) {
+                if (e.getValue() > seen) {
+                    reloadDoctor(e.getKey());
+                    replayed++;
+                }
+            }
+            if (replayed > 0) log.info("Availability rebuild: re-read {} doctor(s) changed during the scan", replayed);
+            log.info("Availability calendars rebuilt: {} doctor(s), {} open appointment(s) over {} day(s) in {} ms",
+                    fresh.size(), booked, horizonDays, System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            log.error("Availability rebuild failed: {}", ex.getMessage(), ex);
+        } finally {
+            ss.close();
+        }
+    }
+
+    /**
+     * Re-reads one doctor's template and bookings, e.g. after the working hours changed
+     * or a bulk delete. Reads again if an event for the doctor arrived meanwhile.
+     */
+    public void reloadDoctor(Long doctorId) {
+        if (doctorId == null) return;
+        for (int attempt = 1; attempt <= RELOAD_ATTEMPTS; attempt++) {
+            long seen = eventSeq.get();
+            Calendar c = loadCalendar(doctorId);
+            if (c != null) calendars.put(doctorId, c);
+            else calendars.remove(doctorId);
+            if (lastEvent.getOrDefault(doctorId, 0L) <= seen) return;
+        }
+        log.warn("Availability of doctor {} kept changing during reload; the nightly rebuild corrects it", doctorId);
+    }
+
+    private Calendar calendar(Long doctorId) {
+        if (doctorId == null || loadedTo < 0) return null;
+        Calendar c = calendars.get(doctorId);
+        if (c == null) {
+            // registered since the last rebuild
+            long seen = eventSeq.get();
+            c = loadCalendar(doctorId);
+            if (c != null) {
+                Calendar raced = calendars.putIfAbsent(doctorId, c);
+                if (raced != null) c = raced;
+                else if (lastEvent.getOrDefault(doctorId, 0L) > seen) {
+                    reloadDoctor(doctorId);
+                    c = calendars.get(doctorId);
+                }
+            }
+        }
+        return c;
+    }
+
+    private Calendar loadCalendar(Long doctorId) {
+        Session ss = sf.openSession();
+        try {
+            Doctor d = ss.get(Doctor.class, doctorId);
+            if (d == null) return null;
+            List<DoctorWorkingHours> hours = ss.createQuery(
+                    "from DoctorWorkingHours h where h.doctorId = :d", DoctorWorkingHours.class)
+                .setParameter("d", doctorId)
+                .list();
+            // read once: a rebuild may move the window while this scan runs
+            long from = loadedFrom;
+            long to = loadedTo;
+            Calendar c = newCalendar(d.getSlotMinutes(), hours, from, to);
+            try (ScrollableResults<Object[]> rows = openAppointments(ss, doctorId, from, to)) {
+                while (rows.next()) c.add((LocalDateTime) rows.get()[1], +1);
+            }
+            return c;
+        } finally {
+            ss.close();
+        }
+    }
+
+    private static ScrollableResults<Object[]> openAppointments(Session ss, Long doctorId, long fromDay, long toDay) {
+        Query<Object[]> q = ss.createQuery(
+                "select a.doctor.id, a.appointmentTime from Appointment a " +
+                "where a.status in :open and a.appointmentTime >= :from and a.appointmentTime < :to" +
+                (doctorId != null ? " and a.doctor.id = :d" : ""), Object[].class)
+            .setParameter("open", OPEN)
+            .setParameter("from", LocalDate.ofEpochDay(fromDay).atStartOfDay())
+            .setParameter("to", LocalDate.ofEpochDay(toDay + 1).atStartOfDay())
+            .setReadOnly(true)
+            .setFetchSize(doctorId != null ? 100 : Integer.MIN_VALUE);
+        if (doctorId != null) q.setParameter("d", doctorId);
+        return q.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private Calendar newCalendar(Integer slotMinutes, List<DoctorWorkingHours> hours, long fromDay, long toDay) {
+        int s = slotMinutes != null && SLOT_SIZES.contains(slotMinutes) ? slotMinutes : defaultSlotMinutes;
+        Calendar c = new Calendar(s, fromDay, toDay);
+        if (hours == null || hours.isEmpty()) {
+            for (int dow : defaultDays) {
+                if (dow >= 1 && dow <= 7) c.work[dow] = workMask(s, defaultStart, defaultEnd, null, null);
+            }
+        } else {
+            for (DoctorWorkingHours h : hours) {
+                c.work[h.getDayOfWeek()] = workMask(s, h.getStartTime(), h.getEndTime(), h.getBreakStart(), h.getBreakEnd());
+            }
+        }
+        return c;
+    }
+
+    // slots lying fully inside [start, end) and not overlapping the break
+    private static long[] workMask(int slotMinutes, LocalTime start, LocalTime end, LocalTime breakStart, LocalTime breakEnd) {
+        int n = 1440 / slotMinutes;
+        long[] mask = new long[(n + 63) / 64];
+        int from = minutes(start);
+        int to = end.equals(LocalTime.MIDNIGHT) ? 1440 : minutes(end);
+        boolean hasBreak = breakStart != null && breakEnd != null && breakStart.isBefore(breakEnd);
+        for (int slot = 0; slot < n; slot++) {
+            int m0 = slot * slotMinutes;
+            int m1 = m0 + slotMinutes;
+            if (m0 < from || m1 > to) continue;
+            if (hasBreak && m0 < minutes(breakEnd) && m1 > minutes(breakStart)) continue;
+            mask[slot >>> 6] |= 1L << slot;
+        }
+        return mask;
+    }
+
+    private static int minutes(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    // =================================================================================
+    // BITMAPS
+    // =================================================================================
+
+    private static final class Calendar {
+        final int slotMinutes;
+        final int slotsPerDay;
+        final long[][] work = new long[8][]; // by ISO weekday; null = day off
+        final Map<Long, DayBookings> days = new ConcurrentHashMap<>();
+        // epoch days this calendar's bitmaps cover, fixed when it is built
+        final long fromDay;
+        final long toDay;
+
+        Calendar(int slotMinutes, long fromDay, long toDay) {
+            this.slotMinutes = slotMinutes;
+            this.slotsPerDay = 1440 / slotMinutes;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        int slotOf(LocalDateTime t) {
+            return (t.getHour() * 60 + t.getMinute()) / slotMinutes;
+        }
+
+        LocalTime timeOf(int slot) {
+            return LocalTime.of(slot * slotMinutes / 60, slot * slotMinutes % 60);
+        }
+
+        void add(LocalDateTime t, int delta) {
+            long day = t.toLocalDate().toEpochDay();
+            if (day < fromDay || day > toDay) return;
+            DayBookings b = days.computeIfAbsent(day, k -> new DayBookings(slotsPerDay));
+            if (delta > 0) b.add(slotOf(t));
+            else b.remove(slotOf(t));
+        }
+
+        /** Working slots not booked and not before {@code now}; null on a day off. */
+        long[] free(LocalDate date, LocalDateTime now) {
+            long[] w = work[date.getDayOfWeek().getValue()];
+            if (w == null) return null;
+            long[] free = w.clone();
+            DayBookings b = days.get(date.toEpochDay());
+            if (b != null) b.clearBookedFrom(free);
+            if (date.equals(now.toLocalDate())) {
+                int past = slotOf(now) + 1; // the running slot is gone too
+                for (int slot = 0; slot < past && slot < slotsPerDay; slot++) free[slot >>> 6] &= ~(1L << slot);
+            }
+            return free;
+        }
+    }
+
+    private static final class DayBookings {
+        private final long[] bits;
+        // appointments beyond the first in a slot; only double-booked slots appear here
+        private Map<Integer, Integer> extra;
+
+        DayBookings(int slots) {
+            this.bits = new long[(slots + 63) / 64];
+        }
+
+        synchronized void add(int slot) {
+            if (isSet(bits, slot)) {
+                if (extra == null) extra = new HashMap<>();
+                extra.merge(slot, 1, Integer::sum);
+            } else {
+                bits[slot >>> 6] |= 1L << slot;
+            }
+        }
+
+        synchronized void remove(int slot) {
+            Integer more = extra != null ? extra.get(slot) : null;
+            if (more != null) {
+                if (more > 1) extra.put(slot, more - 1);
+                else extra.remove(slot);
+            } else {
+                bits[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+
+        synchronized void clearBookedFrom(long[] free) {
+            for (int i = 0; i < free.length; i++) free[i] &= ~bits[i];
+        }
+    }
+
+    private static boolean isSet(long[] bits, int slot) {
+        return slot >= 0 && (slot >>> 6) < bits.length && (bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private static int nextSetBit(long[] bits, int from) {
+        int i = from >>> 6;
+        if (i >= bits.length) return -1;
+        long word = bits[i] & (-1L << from);
+        while (true) {
+            if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+            if (++i == bits.length) return -1;
+            word = bits[i];
+        }
+    }
+
+    private static int bitCount(long[] bits) {
+        int n = 0;
+        for (long w : bits) n += Long.bitCount(w);
+        return n;
+    }
+
+    // =================================================================================
+    // POST-COMMIT EVENTS
+    // =================================================================================
+
+    private void apply(Long doctorId, LocalDateTime time, AppointmentStatus status, int delta) {
+        if (doctorId == null || time == null || !OPEN.contains(status)) return;
+        lastEvent.put(doctorId, eventSeq.incrementAndGet());
+        Calendar c = calendars.get(doctorId);
+        // not loaded yet: its first load reads the committed row
+        if (c != null) c.add(time, delta);
+    }
+
+    private class AppointmentListener implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (!(event.getEntity() instanceof Appointment)) return;
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] s = event.getState();
+            apply(doctorId(names, s), time(names, s), status(names, s), +1);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!(event.getEntity() instanceof Appointment ap)) return;
+            Object[] before = event.getOldState();
+            if (before == null) {
+                reloadDoctor(ap.getDoctor() != null ? ap.getDoctor().getId() : null);
+                return;
+            }
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] after = event.getState();
+            Long oldDoctor = doctorId(names, before);
+            Long newDoctor = doctorId(names, after);
+            LocalDateTime oldTime = time(names, before);
+            LocalDateTime newTime = time(names, after);
+            AppointmentStatus oldStatus = status(names, before);
+            AppointmentStatus newStatus = status(names, after);
+            if (Objects.equals(oldDoctor, newDoctor) && Objects.equals(oldTime, newTime)
+                    && OPEN.contains(oldStatus) == OPEN.contains(newStatus)) return;
+
+            apply(oldDoctor, oldTime, oldStatus, -1);
+            apply(newDoctor, newTime, newStatus, +1);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (!(event.getEntity() instanceof Appointment)) return;
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] s = event.getDeletedState();
+            apply(doctorId(names, s), time(names, s), status(names, s), -1);
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) { }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) { }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) { }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return Appointment.class.equals(persister.getMappedClass());
+        }
+    }
+
+    private static Long doctorId(String[] names, Object[] state) {
+        Object d = value(names, state, "doctor");
+        return d instanceof Doctor ? ((Doctor) d).getId() : null;
+    }
+
+    private static LocalDateTime time(String[] names, Object[] state) {
+        Object t = value(names, state, "appointmentTime");
+        return t instanceof LocalDateTime ? (LocalDateTime) t : null;
+    }
+
+    private static AppointmentStatus status(String[] names, Object[] state) {
+        Object s = value(names, state, "status");
+        return s instanceof AppointmentStatus ? (AppointmentStatus) s : null;
+    }
+
+    private static Object value(String[] names, Object[] state, String property) {
+        if (state == null) return null;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return state[i];
+        }
+        return null;
+    }
+
+    // ---------- free slots of one day ----------
+    public static class FreeDay {
+        private final LocalDate date;
+        private final List<String> times;
+        FreeDay(LocalDate date, List<String> times) {
+            this.date = date;
+            this.times = times;
+        }
+        public LocalDate getDate() { return date; }
+        public List<String> getTimes() { return times; }
+    }
+
+    // ---------- one doctor's row in the overview ----------
+    public static class DoctorAvailability {
+        private final Long doctorId;
+        private final String name;
+        private final String specialization;
+        private final int slotMinutes;
+        private final List<Integer> freePerDay;
+        private final LocalDateTime firstFree;
+        DoctorAvailability(Long doctorId, String name, String specialization, int slotMinutes,
+                           List<Integer> freePerDay, LocalDateTime firstFree) {
+            this.doctorId = doctorId;
+            this.name = name;
+            this.specialization = specialization;
+            this.slotMinutes = slotMinutes;
+            this.freePerDay = freePerDay;
+            this.firstFree = firstFree;
+        }
+        public Long getDoctorId() { return doctorId; }
+        public String getName() { return name; }
+        public String getSpecialization() { return specialization; }
+        public int getSlotMinutes() { return slotMinutes; }
+        public List<Integer> getFreePerDay() { return freePerDay; }
+        public LocalDateTime getFirstFree() { return firstFree; }
+    }
+}
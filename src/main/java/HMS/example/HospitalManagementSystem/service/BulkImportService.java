@@ -0,0 +1,498 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.model.Patient;
+import jakarta.annotation.PreDestroy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * CSV bulk import of patients and doctors.
+ *
+ * An upload is copied to a temp file and parsed row by row on a single background
+ * worker, so the request returns at once and only one import writes at a time.
+ * Rows are validated and de-duplicated against normalized email / phone keys
+ * (existing rows and earlier rows of the same file), then persisted through one
+ * session that flushes every {@code app.import.batch-size} rows (one JDBC batch,
+ * see hibernate.jdbc.batch_size) and commits every {@code app.import.commit-every}.
+ * A failed commit stops the job; chunks committed before it stay in place.
+ *
+ * Progress lives in memory on the {@link Job} and is polled by the admin page.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final int MAX_JOBS_KEPT = 20;
+    private static final int MAX_ERRORS_KEPT = 100;
+
+    public enum Kind { PATIENTS, DOCTORS }
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Autowired
+    private PatientSearchIndex patientIndex;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.commit-every:5000}")
+    private int commitEvery;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bulk-import");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // =================================================================================
+    // JOBS
+    // =================================================================================
+
+    public Job start(Kind kind, MultipartFile file) throws IOException {
+        Path tmp = Files.createTempFile("hms-import-", ".csv");
+        file.transferTo(tmp);
+
+        Job job = new Job(UUID.randomUUID().toString(), kind, file.getOriginalFilename());
+        jobs.put(job.getId(), job);
+        evictOldJobs();
+
+        worker.submit(() -> {
+            try {
+                run(job, tmp);
+            } finally {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignore) {
+                }
+            }
+        });
+        return job;
+    }
+
+    public Job get(String id) {
+        return id != null ? jobs.get(id) : null;
+    }
+
+    /** Newest first. */
+    public List<Job> recent() {
+        List<Job> list = new ArrayList<>(jobs.values());
+        list.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        return list;
+    }
+
+    private void evictOldJobs() {
+        if (jobs.size() <= MAX_JOBS_KEPT) return;
+        List<Job> list = recent();
+        for (Job j : list.subList(MAX_JOBS_KEPT, list.size())) {
+            if (j.getState() == State.DONE || j.getState() == State.FAILED) jobs.remove(j.getId());
+        }
+    }
+
+    // =================================================================================
+    // IMPORT
+    // =================================================================================
+
+    private void run(Job job, Path file) {
+        job.state = State.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        job.startNanos = System.nanoTime();
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(in);
+            String[] header = csv.next();
+            if (header == null) throw new IllegalArgumentException("The file is empty.");
+
+            Columns cols = new Columns(header);
+            cols.require("name");
+            if (job.kind == Kind.DOCTORS) {
+                cols.require("email");
+                cols.require("specialization");
+            } else if (!cols.has("email") && !cols.has("phone")) {
+                throw new IllegalArgumentException("A patient file needs an email or a phone column.");
+            }
+
+            Set<String> emails = new HashSet<>();
+            Set<String> phones = new HashSet<>();
+            loadExistingKeys(job.kind, emails, phones);
+
+            insertAll(job, csv, cols, emails, phones);
+
+            job.state = State.DONE;
+            job.message = job.inserted + " row(s) imported.";
+        } catch (Exception ex) {
+            job.state = State.FAILED;
+            job.message = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+            log.error("Import {} of {} failed after {} row(s): {}",
+                    job.getId(), job.getFileName(), job.inserted, job.message, ex);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.elapsedNanos = System.nanoTime() - job.startNanos;
+        }
+
+        log.info("Import {} ({} {}): read {}, inserted {}, duplicates {}, invalid {} in {} ms ({} rows/s)",
+                job.getId(), job.kind, job.getFileName(), job.read, job.inserted, job.duplicates,
+                job.invalid, job.elapsedNanos / 1_000_000, job.getRowsPerSecond());
+    }
+
+    private void insertAll(Job job, CsvReader csv, Columns cols,
+                           Set<String> emails, Set<String> phones) throws IOException {
+        Session ss = sf.openSession();
+        ss.setJdbcBatchSize(batchSize);
+        ss.setCacheMode(CacheMode.IGNORE);
+        Transaction tx = null;
+
+        // patients persisted in the open transaction, added to the search index after commit
+        List<Patient> uncommitted = new ArrayList<>();
+        int inChunk = 0;
+
+        try {
+            tx = ss.beginTransaction();
+            String[] row;
+            while ((row = csv.next()) != null) {
+                job.read++;
+                long rowNo = job.read + 1; // header is row 1
+
+                String name = cols.get(row, "name");
+                String email = cols.get(row, "email");
+                String phone = cols.get(row, "phone");
+                String emailKey = email != null ? email.toLowerCase(Locale.ROOT) : null;
+                String phoneKey = phoneKey(phone);
+
+                String problem = validate(job.kind, cols, row, name, email, phone, phoneKey);
+                if (problem != null) {
+                    job.invalid++;
+                    job.error("Row " + rowNo + ": " + problem);
+                    continue;
+                }
+                if ((emailKey != null && emails.contains(emailKey)) || (phoneKey != null && phones.contains(phoneKey))) {
+                    job.duplicates++;
+                    continue;
+                }
+                if (emailKey != null) emails.add(emailKey);
+                if (phoneKey != null) phones.add(phoneKey);
+
+                if (job.kind == Kind.PATIENTS) {
+                    Patient p = new Patient(cols.get(row, "address"), parseAge(cols.get(row, "age")),
+                            cols.get(row, "disease"), emailKey, cols.get(row, "gender"), name, phone);
+                    ss.persist(p);
+                    uncommitted.add(p);
+                } else {
+                    ss.persist(newDoctor(cols, row, name, emailKey, phone));
+                }
+
+                inChunk++;
+                if (inChunk % batchSize == 0) {
+                    ss.flush();
+                    ss.clear();
+                }
+                if (inChunk >= commitEvery) {
+                    tx.commit();
+                    job.inserted += inChunk;
+                    inChunk = 0;
+                    afterCommit(uncommitted);
+                    tx = ss.beginTransaction();
+                }
+            }
+            tx.commit();
+            job.inserted += inChunk;
+            afterCommit(uncommitted);
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw new IllegalStateException("Stopped at row " + (job.read + 1) + ", " + job.inserted
+                    + " row(s) were already imported: " + ex.getMessage(), ex);
+        } finally {
+            ss.close();
+        }
+    }
+
+    private void afterCommit(List<Patient> committed) {
+        for (Patient p : committed) patientIndex.upsert(p);
+        committed.clear();
+    }
+
+    private static String validate(Kind kind, Columns cols, String[] row,
+                                   String name, String email, String phone, String phoneKey) {
+        if (name == null) return "name is required";
+        if (name.length() > 255) return "name is too long";
+        if (email != null && !EMAIL.matcher(email).matches()) return "invalid email '" + email + "'";
+        if (phone != null && phoneKey == null) return "invalid phone '" + phone + "'";
+
+        if (kind == Kind.DOCTORS) {
+            if (email == null) return "email is required";
+            if (cols.get(row, "specialization") == null) return "specialization is required";
+        } else {
+            if (email == null && phone == null) return "email or phone is required";
+            String age = cols.get(row, "age");
+            if (age != null && parseAge(age) < 0) return "invalid age '" + age + "'";
+        }
+        return null;
+    }
+
+    private static Doctor newDoctor(Columns cols, String[] row, String name, String email, String phone) {
+        Doctor d = new Doctor();
+        d.setName(name);
+        d.setEmail(email);
+        d.setPhone(phone);
+        d.setSpecialization(cols.get(row, "specialization"));
+        d.setBio(cols.get(row, "bio"));
+        d.setDetailsCompleted(Boolean.TRUE);
+        // added by an admin, so no separate approval step
+        d.setApproved(true);
+        d.setApprovedAt(LocalDateTime.now());
+        return d;
+    }
+
+    // -1 when not a plausible age
+    private static int parseAge(String s) {
+        if (s == null) return 0;
+        try {
+            int age = Integer.parseInt(s);
+            return age >= 0 && age <= 150 ? age : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Last 10 digits, the same key the patient search index uses; null when too short. */
+    static String phoneKey(String phone) {
+        if (phone == null) return null;
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') digits.append(c);
+        }
+        if (digits.length() < 7 || digits.length() > 15) return null;
+        return digits.length() > 10 ? digits.substring(digits.length() - 10) : digits.toString();
+    }
+
+    private void loadExistingKeys(Kind kind, Set<String> emails, Set<String> phones) {
+        String hql = kind == Kind.PATIENTS
+                ? "select p.email, p.phone from Patient p"
+                : "select d.email, d.phone from Doctor d";
+        Session ss = sf.openSession();
+        try (ScrollableResults<Object[]> rows = ss.createQuery(hql, Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(Integer.MIN_VALUE) // MySQL row streaming
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Object[] r = rows.get();
+                if (r[0] != null && !r[0].toString().isBlank()) {
+                    emails.add(r[0].toString().trim().toLowerCase(Locale.ROOT));
+                }
+                String pk = phoneKey((String) r[1]);
+                if (pk != null) phones.add(pk);
+            }
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // CSV
+    // =================================================================================
+
+    /** Header name -> position, case-insensitive. */
+    private static final class Columns {
+        private final Map<String, Integer> index = new HashMap<>();
+
+        Columns(String[] header) {
+            for (int i = 0; i < header.length; i++) {
+                String h = header[i].trim().toLowerCase(Locale.ROOT);
+                if (i == 0 && h.startsWith("\uFEFF")) h = h.substring(1); // UTF-8 BOM
+                index.putIfAbsent(h, i);
+            }
+        }
+
+        boolean has(String name) {
+            return index.containsKey(name);
+        }
+
+        void require(String name) {
+            if (!has(name)) throw new IllegalArgumentException("Missing required column '" + name + "'.");
+        }
+
+        /** Trimmed value, null when the column is absent or blank. */
+        String get(String[] row, String name) {
+            Integer i = index.get(name);
+            if (i == null || i >= row.length) return null;
+            String v = row[i].trim();
+            return v.isEmpty() ? null : v;
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader: comma separated, double-quoted fields may contain
+     * commas, doubled quotes and line breaks. Reads one record per {@link #next()}.
+     */
+    static final class CsvReader {
+        private final Reader in;
+        private final StringBuilder field = new StringBuilder();
+        private int pushback = -2;
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        String[] next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    if (!any) return null;
+                    fields.add(field.toString());
+                    return fields.toArray(new String[0]);
+                }
+                any = true;
+
+                if (quoted) {
+                    if (c == '"') {
+                        int n = read();
+                        if (n == '"') field.append('"');
+                        else {
+                            quoted = false;
+                            unread(n);
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n') {
+                    if (c == '\r') {
+                        int n = read();
+                        if (n != '\n') unread(n);
+                    }
+                    if (fields.isEmpty() && field.length() == 0) { // skip blank lines
+                        any = false;
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return fields.toArray(new String[0]);
+                } else {
+                    field.append((char) c);
+                }
+            }
+        }
+
+        private int read() throws IOException {
+            if (pushback != -2) {
+                int c = pushback;
+                pushback = -2;
+                return c;
+            }
+            return in.read();
+        }
+
+        private void unread(int c) {
+            pushback = c;
+        }
+    }
+
+    // ---------- progress of one import, polled by the admin page ----------
+    public static class Job {
+        private final String id;
+        private final Kind kind;
+        private final String fileName;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        // written by the import worker only
+        private volatile State state = State.QUEUED;
+        private volatile long read;
+        private volatile long inserted;
+        private volatile long duplicates;
+        private volatile long invalid;
+        private volatile String message;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long startNanos;
+        private volatile long elapsedNanos;
+
+        Job(String id, Kind kind, String fileName) {
+            this.id = id;
+            this.kind = kind;
+            this.fileName = fileName;
+        }
+
+        void error(String e) {
+            if (errors.size() < MAX_ERRORS_KEPT) errors.add(e);
+        }
+
+        public String getId() { return id; }
+        public Kind getKind() { return kind; }
+        public String getFileName() { return fileName; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public State getState() { return state; }
+        public boolean isFinished() { return state == State.DONE || state == State.FAILED; }
+        public long getRead() { return read; }
+        public long getInserted() { return inserted; }
+        public long getDuplicates() { return duplicates; }
+        public long getInvalid() { return invalid; }
+        public String getMessage() { return message; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+
+        public List<String> getErrors() {
+            synchronized (errors) {
+                return new ArrayList<>(errors);
+            }
+        }
+
+        public long getRowsPerSecond() {
+            long nanos = isFinished() ? elapsedNanos : (startNanos > 0 ? System.nanoTime() - startNanos : 0);
+            return nanos > 0 ? read * 1_000_000_000L / nanos : 0;
+        }
+    }
+}
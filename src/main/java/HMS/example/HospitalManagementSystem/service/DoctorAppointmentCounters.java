@@ -0,0 +1,247 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import jakarta.annotation.PostConstruct;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-doctor appointment counts by status, kept in memory so dashboards do not
+ * count over a doctor's whole history on every page load.
+ *
+ * A doctor's counts are seeded with one grouped query on first use, then adjusted
+ * by Hibernate post-commit insert/update/delete events on Appointment. Bulk HQL
+ * deletes bypass those events, so callers running them must call {@link #evict}.
+ * Cached entries are also dropped periodically to heal any drift.
+ *
+ * A seed runs outside any lock, so an event committed while it reads would be lost
+ * (the seed may have missed the row, and adjust() has no entry to apply it to yet).
+ * Every event and eviction stamps its doctor with a sequence number; a seed stamped
+ * over after it started is thrown away and read again.
+ */
+@Service
+public class DoctorAppointmentCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorAppointmentCounters.class);
+
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    @Autowired
+    private SessionFactory sf;
+
+    private static final int SEED_ATTEMPTS = 3;
+
+    private final Map<Long, AtomicLongArray> counts = new ConcurrentHashMap<>();
+
+    // sequence of the latest event or eviction per doctor, to catch ones racing a seed
+    private final AtomicLong changeSeq = new AtomicLong();
+    private final Map<Long, Long> lastChange = new ConcurrentHashMap<>();
+    private volatile long lastEvictAll;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = sf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        AppointmentListener listener = new AppointmentListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    // =================================================================================
+    // READ
+    // =================================================================================
+
+    public Counts get(Long doctorId) {
+        AtomicLongArray c = counts.get(doctorId);
+        if (c != null) return new Counts(c);
+
+        AtomicLongArray seeded = null;
+        for (int attempt = 1; attempt <= SEED_ATTEMPTS; attempt++) {
+            // Seed outside the map lock; a concurrent seed simply wins
+            long seen = changeSeq.get();
+            seeded = load(doctorId);
+            c = counts.putIfAbsent(doctorId, seeded);
+            if (c != null) return new Counts(c);
+            // cached first, checked second: later events find the entry and adjust it
+            if (lastChange.getOrDefault(doctorId, 0L) <= seen && lastEvictAll <= seen) return new Counts(seeded);
+            counts.remove(doctorId, seeded);
+        }
+        // still changing: answer from the last read, uncached
+        return new Counts(seeded);
+    }
+
+    public void evict(Long doctorId) {
+        if (doctorId == null) return;
+        stamp(doctorId);
+        counts.remove(doctorId);
+    }
+
+    public void evictAll() {
+        lastEvictAll = changeSeq.incrementAndGet();
+        counts.clear();
+    }
+
+    @Scheduled(initialDelayString = "${app.counters.doctor.refresh-ms:3600000}",
+               fixedDelayString = "${app.counters.doctor.refresh-ms:3600000}")
+    public void refresh() {
+        int n = counts.size();
+        counts.clear();
+        if (n > 0) log.debug("Dropped cached appointment counts for {} doctor(s)", n);
+    }
+
+    private AtomicLongArray load(Long doctorId) {
+        AtomicLongArray c = new AtomicLongArray(STATUSES.length);
+        Session ss = sf.openSession();
+        try {
+            List<Object[]> rows = ss.createQuery(
+                    "select a.status, count(a.id) from Appointment a " +
+                    "where a.doctor.id = :did group by a.status", Object[].class)
+                .setParameter("did", doctorId)
+                .list();
+            for (Object[] r : rows) {
+                if (r[0] != null) c.set(((AppointmentStatus) r[0]).ordinal(), ((Number) r[1]).longValue());
+            }
+        } finally {
+            ss.close();
+        }
+        return c;
+    }
+
+    // =================================================================================
+    // WRITE (post-commit events)
+    // =================================================================================
+
+    private void adjust(Long doctorId, AppointmentStatus status, int delta) {
+        if (doctorId == null || status == null) return;
+        // not cached yet: the next seed reads the committed row, a running one re-reads
+        stamp(doctorId);
+        AtomicLongArray c = counts.get(doctorId);
+        if (c != null) c.addAndGet(status.ordinal(), delta);
+    }
+
+    private void stamp(Long doctorId) {
+        lastChange.put(doctorId, changeSeq.incrementAndGet());
+    }
+
+    private class AppointmentListener implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (!(event.getEntity() instanceof Appointment)) return;
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] state = event.getState();
+            adjust(doctorId(names, state), status(names, state), +1);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!(event.getEntity() instanceof Appointment ap)) return;
+            Object[] oldState = event.getOldState();
+            if (oldState == null) {
+                // detached update without a snapshot: recount this doctor lazily
+                evict(ap.getDoctor() != null ? ap.getDoctor().getId() : null);
+                return;
+            }
+            String[] names = event.getPersister().getPropertyNames();
+            Long oldDoctor = doctorId(names, oldState);
+            Long newDoctor = doctorId(names, event.getState());
+            AppointmentStatus oldStatus = status(names, oldState);
+            AppointmentStatus newStatus = status(names, event.getState());
+            if (oldStatus == newStatus && Objects.equals(oldDoctor, newDoctor)) return;
+
+            adjust(oldDoctor, oldStatus, -1);
+            adjust(newDoctor, newStatus, +1);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (!(event.getEntity() instanceof Appointment)) return;
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] state = event.getDeletedState();
+            adjust(doctorId(names, state), status(names, state), -1);
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) { }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) { }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) { }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return Appointment.class.equals(persister.getMappedClass());
+        }
+    }
+
+    private static Long doctorId(String[] names, Object[] state) {
+        Object d = value(names, state, "doctor");
+        return d instanceof Doctor ? ((Doctor) d).getId() : null;
+    }
+
+    private static AppointmentStatus status(String[] names, Object[] state) {
+        Object s = value(names, state, "status");
+        return s instanceof AppointmentStatus ? (AppointmentStatus) s : null;
+    }
+
+    private static Object value(String[] names, Object[] state, String property) {
+        if (state == null) return null;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return state[i];
+        }
+        return null;
+    }
+
+    // ---------- immutable view for templates ----------
+    public static class Counts {
+        private final long booked;
+        private final long scheduled;
+        private final long completed;
+        private final long cancelled;
+        private final long noShow;
+        Counts(AtomicLongArray c) {
+            this.booked = c.get(AppointmentStatus.BOOKED.ordinal());
+            this.scheduled = c.get(AppointmentStatus.SCHEDULED.ordinal());
+            this.completed = c.get(AppointmentStatus.COMPLETED.ordinal());
+            this.cancelled = c.get(AppointmentStatus.CANCELLED.ordinal());
+            this.noShow = c.get(AppointmentStatus.NO_SHOW.ordinal());
+        }
+        public long getBooked() { return booked; }
+        public long getScheduled() { return scheduled; }
+        public long getCompleted() { return completed; }
+        public long getCancelled() { return cancelled; }
+        public long getNoShow() { return noShow; }
+        public long getOpen() { return booked + scheduled; }
+        public long getTotal() { return booked + scheduled + completed + cancelled + noShow; }
+    }
+}
@@ -0,0 +1,365 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Set-based changes to a doctor's schedule: cancel, or shift by N minutes, every open
+ * appointment in a time range.
+ *
+ * The affected rows are read, then changed with one versioned bulk UPDATE in the same
+ * transaction; if the update count differs from what was read, someone changed one of
+ * them meanwhile and the whole operation rolls back. A shift is refused up front when
+ * any new time collides with another open appointment or a waitlist hold.
+ *
+ * Bulk statements bypass the Hibernate listeners, so after commit this class refreshes
+ * the counters, the doctor's calendar, reminders, waitlist offers and live updates
+ * itself. Patient emails are then built and sent on a background thread in batches of
+ * {@code app.schedule.bulk.mail-batch-size} over one SMTP connection each; the returned
+ * {@link BulkJob} reports their progress.
+ */
+@Service
+public class DoctorScheduleService {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorScheduleService.class);
+
+    private static final List<AppointmentStatus> OPEN = List.of(AppointmentStatus.BOOKED, AppointmentStatus.SCHEDULED);
+
+    private static final String SHIFT =
+            "update appointment set appointment_time = date_add(appointment_time, interval :mins minute), " +
+            "version = version + 1, updated_at = :now " +
+            "where id in :ids and doctor_id = :did and status in ('BOOKED', 'SCHEDULED')";
+
+    public enum Action { CANCEL, SHIFT }
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private DoctorAppointmentCounters appointmentCounters;
+
+    @Autowired
+    private AdminCounters adminCounters;
+
+    @Autowired
+    private AvailabilityService availability;
+
+    @Autowired
+    private ReminderService reminders;
+
+    @Autowired
+    private WaitlistService waitlist;
+
+    @Autowired
+    private LiveEventBus liveEvents;
+
+    @Value("${app.schedule.bulk.max-days:14}")
+    private int maxDays;
+
+    @Value("${app.schedule.bulk.mail-batch-size:50}")
+    private int mailBatchSize;
+
+    // finished jobs stay visible this long
+    @Value("${app.schedule.bulk.keep-minutes:60}")
+    private int keepMinutes;
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService mailer;
+
+    @PostConstruct
+    void init() {
+        mailer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "schedule-mailer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        mailer.shutdown();
+    }
+
+    // =================================================================================
+    // APPLY
+    // =================================================================================
+
+    /**
+     * Cancels or shifts the doctor's open appointments in [from, to). Throws
+     * IllegalArgumentException / IllegalStateException with a user-facing message
+     * when the request is invalid or would collide; nothing is changed then.
+     */
+    public BulkJob apply(Long doctorId, Action action, LocalDateTime from, LocalDateTime to, int shiftMinutes) {
+        LocalDateTime now = LocalDateTime.now();
+        if (from == null || to == null || !to.isAfter(from)) throw new IllegalArgumentException("Choose a valid time range.");
+        if (to.isAfter(from.plusDays(maxDays))) throw new IllegalArgumentException("At most " + maxDays + " days at once.");
+        if (from.isBefore(now)) from = now;
+        if (action == Action.SHIFT && shiftMinutes == 0) throw new IllegalArgumentException("Choose how far to move the appointments.");
+
+        long start = System.nanoTime();
+        List<Row> rows;
+        String doctorName;
+
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            doctorName = ss.createQuery("select d.name from Doctor d where d.id = :did", String.class)
+                    .setParameter("did", doctorId)
+                    .uniqueResult();
+
+            rows = new ArrayList<>();
+            for (Object[] r : ss.createQuery(
+                    "select a.id, a.appointmentTime, p.id, p.email from Appointment a left join a.patient p " +
+                    "where a.doctor.id = :did and a.appointmentTime >= :from and a.appointmentTime < :to " +
+                    "and a.status in :open order by a.appointmentTime", Object[].class)
+                    .setParameter("did", doctorId)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .setParameter("open", OPEN)
+                    .list()) {
+                LocalDateTime t = (LocalDateTime) r[1];
+                rows.add(new Row((Long) r[0], t, action == Action.SHIFT ? t.plusMinutes(shiftMinutes) : null,
+                        (Long) r[2], (String) r[3]));
+            }
+            if (rows.isEmpty()) {
+                tx.commit();
+                return finished(new BulkJob(doctorId, action, 0));
+            }
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Row r : rows) ids.add(r.id);
+
+            int changed;
+            if (action == Action.CANCEL) {
+                changed = ss.createMutationQuery(
+                        "update versioned Appointment a set a.status = :cancelled, a.updatedAt = :now " +
+                        "where a.id in :ids and a.doctor.id = :did and a.status in :open")
+                    .setParameter("cancelled", AppointmentStatus.CANCELLED)
+                    .setParameter("now", now)
+                    .setParameter("ids", ids)
+                    .setParameter("did", doctorId)
+                    .setParameter("open", OPEN)
+                    .executeUpdate();
+            } else {
+                checkShiftTargets(ss, doctorId, rows, ids, now);
+                changed = ss.createNativeMutationQuery(SHIFT)
+                    .setParameter("mins", shiftMinutes)
+                    .setParameter("now", now)
+                    .setParameterList("ids", ids)
+                    .setParameter("did", doctorId)
+                    .executeUpdate();
+            }
+            if (changed != rows.size()) {
+                throw new IllegalStateException("Some of these appointments were just changed by someone else. Please try again.");
+            }
+            tx.commit();
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+
+        afterCommit(doctorId, action, rows);
+
+        BulkJob job = new BulkJob(doctorId, action, rows.size());
+        jobs.put(job.id, job);
+        log.info("Bulk {} for doctor {}: {} appointment(s) in {} ms, notifications queued as job {}",
+                action, doctorId, rows.size(), (System.nanoTime() - start) / 1_000_000, job.id);
+        mailer.execute(() -> notifyPatients(job, doctorName, rows));
+        return job;
+    }
+
+    // new times must be in the future and free, not counting the rows being moved themselves
+    private void checkShiftTargets(Session ss, Long doctorId, List<Row> rows, List<Long> ids, LocalDateTime now) {
+        Set<LocalDateTime> targets = new HashSet<>();
+        for (Row r : rows) {
+            if (!r.newTime.isAfter(now)) throw new IllegalArgumentException("Appointments cannot be moved into the past.");
+            targets.add(r.newTime);
+            if (waitlist.heldForOther(doctorId, r.newTime, r.patientId)) {
+                throw new IllegalStateException("The slot at " + r.newTime + " is held for a waitlisted patient.");
+            }
+        }
+        List<LocalDateTime> taken = ss.createQuery(
+                "select a.appointmentTime from Appointment a where a.doctor.id = :did and a.status in :open " +
+                "and a.appointmentTime in :targets and a.id not in :ids order by a.appointmentTime", LocalDateTime.class)
+            .setParameter("did", doctorId)
+            .setParameter("open", OPEN)
+            .setParameter("targets", targets)
+            .setParameter("ids", ids)
+            .list();
+        if (!taken.isEmpty()) {
+            throw new IllegalStateException(taken.size() + " moved appointment(s) would collide with existing bookings, first at "
+                    + taken.get(0) + ".");
+        }
+    }
+
+    private void afterCommit(Long doctorId, Action action, List<Row> rows) {
+        appointmentCounters.evict(doctorId);
+        if (action == Action.CANCEL) adminCounters.reconcile();
+        availability.reloadDoctor(doctorId);
+
+        Set<LocalDateTime> occupied = new HashSet<>();
+        if (action == Action.SHIFT) {
+            for (Row r : rows) {
+                occupied.add(r.newTime);
+                reminders.appointmentScheduled(r.id, r.newTime);
+            }
+        }
+        for (Row r : rows) {
+            // a shifted day mostly reuses its own slots; only the ones left empty are offered
+            if (!occupied.contains(r.oldTime)) waitlist.slotFreed(doctorId, r.oldTime);
+            publish(doctorId, action, r);
+        }
+    }
+
+    private void publish(Long doctorId, Action action, Row r) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (r.patientId != null) topics.add(LiveEventBus.patientTopic(r.patientId));
+        topics.add(LiveEventBus.doctorTopic(doctorId));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", r.id);
+        data.put("action", action == Action.CANCEL ? "cancelled" : "rescheduled");
+        data.put("status", action == Action.CANCEL ? AppointmentStatus.CANCELLED.name() : null);
+        data.put("time", (r.newTime != null ? r.newTime : r.oldTime).toString());
+        liveEvents.publish(new LiveEventBus.LiveEvent("appointment", topics, data));
+    }
+
+    // =================================================================================
+    // NOTIFICATIONS
+    // =================================================================================
+
+    private void notifyPatients(BulkJob job, String doctorName, List<Row> rows) {
+        try {
+            List<MimeMessage> batch = new ArrayList<>(mailBatchSize);
+            for (Row r : rows) {
+                if (!emailService.isDeliverable(r.email)) {
+                    job.skipped.incrementAndGet();
+                    continue;
+                }
+                try {
+                    batch.add(r.newTime == null
+                            ? emailService.appointmentCancelledByDoctorMessage(r.email, doctorName, r.oldTime)
+                            : emailService.appointmentUpdatedByDoctorMessage(r.email, doctorName, r.oldTime, r.newTime));
+                } catch (Exception ex) {
+                    job.failed.incrementAndGet();
+                }
+                if (batch.size() >= mailBatchSize) flush(job, batch);
+            }
+            flush(job, batch);
+        } catch (Exception ex) {
+            log.error("Bulk notification job {} stopped: {}", job.id, ex.getMessage(), ex);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            log.info("Bulk notification job {}: {} sent, {} failed, {} without email",
+                    job.id, job.sent.get(), job.failed.get(), job.skipped.get());
+        }
+    }
+
+    private void flush(BulkJob job, List<MimeMessage> batch) {
+        if (batch.isEmpty()) return;
+        int ok = emailService.sendBatch(batch);
+        job.sent.addAndGet(ok);
+        job.failed.addAndGet(batch.size() - ok);
+        batch.clear();
+    }
+
+    // =================================================================================
+    // JOBS
+    // =================================================================================
+
+    /** The job with this id if it belongs to the doctor, else null. */
+    public BulkJob job(Long doctorId, String id) {
+        BulkJob job = id != null ? jobs.get(id) : null;
+        return job != null && job.doctorId.equals(doctorId) ? job : null;
+    }
+
+    private BulkJob finished(BulkJob job) {
+        job.finishedAt = LocalDateTime.now();
+        jobs.put(job.id, job);
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${app.schedule.bulk.purge-ms:600000}")
+    public void purgeJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(keepMinutes);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    // ---------- one affected appointment ----------
+    private static final class Row {
+        final Long id;
+        final LocalDateTime oldTime;
+        final LocalDateTime newTime; // null when cancelled
+        final Long patientId;
+        final String email;
+
+        Row(Long id, LocalDateTime oldTime, LocalDateTime newTime, Long patientId, String email) {
+            this.id = id;
+            this.oldTime = oldTime;
+            this.newTime = newTime;
+            this.patientId = patientId;
+            this.email = email;
+        }
+    }
+
+    // ---------- progress of one bulk operation's notifications ----------
+    public static class BulkJob {
+        private final String id = UUID.randomUUID().toString();
+        private final Long doctorId;
+        private final Action action;
+        private final int affected;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private volatile LocalDateTime finishedAt;
+
+        BulkJob(Long doctorId, Action action, int affected) {
+            this.doctorId = doctorId;
+            this.action = action;
+            this.affected = affected;
+        }
+
+        public String getId() { return id; }
+        public Action getAction() { return action; }
+        public int getAffected() { return affected; }
+        public int getSent() { return sent.get(); }
+        public int getFailed() { return failed.get(); }
+        public int getSkipped() { return skipped.get(); }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public boolean isDone() { return finishedAt != null; }
+    }
+}
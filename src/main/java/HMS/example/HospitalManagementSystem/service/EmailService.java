@@ -4,7 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -12,13 +12,28 @@ import org.springframework.stereotype.Service;
 
 import HMS.example.HospitalManagementSystem.model.Appointment;
 import HMS.example.HospitalManagementSystem.model.MedicalRecord;
+import HMS.example.HospitalManagementSystem.model.RecordReport;
+import jakarta.activation.DataHandler;
+import jakarta.activation.DataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.MessagingException;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class EmailService {
@@ -28,11 +43,59 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private ReportStorageService reportStorage;
+
+    @Autowired
+    private ReportLinkService reportLinkService;
+
     @Value("${app.mail.from:no-reply@yourdomain.com}")
     private String fromAddress;
 
+    // reports larger than this are sent as download links instead of attachments
+    @Value("${app.mail.attachment-max-bytes:5242880}")
+    private long maxAttachmentBytes;
+
+    // cap on all attachments of one message (SMTP servers reject very large mails)
+    @Value("${app.mail.attachments-total-max-bytes:15728640}")
+    private long maxTotalAttachmentBytes;
+
+    // threads that deliver mail queued with the *Later methods
+    @Value("${app.mail.dispatch-threads:2}")
+    private int dispatchThreads;
+
+    // on shutdown, queued mail gets this long to go out before it is dropped
+    @Value("${app.mail.dispatch-drain-seconds:30}")
+    private long drainSeconds;
+
     private static final DateTimeFormatter DT_FMT = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm");
 
+    private ExecutorService mailDispatch;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        mailDispatch = Executors.newFixedThreadPool(Math.max(1, dispatchThreads), r -> {
+            Thread t = new Thread(r, "mail-dispatch-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        mailDispatch.shutdown();
+        try {
+            if (!mailDispatch.awaitTermination(drainSeconds, TimeUnit.SECONDS)) {
+                int dropped = mailDispatch.shutdownNow().size();
+                log.warn("Mail dispatch not drained after {} s, {} queued message(s) dropped", drainSeconds, dropped);
+            }
+        } catch (InterruptedException e) {
+            mailDispatch.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     // =================================================================================
     // 1. VERIFICATION EMAIL (Used for Signup, Resend, and Change Email)
     // =================================================================================
@@ -126,40 +189,60 @@ public class EmailService {
         if (isInvalid(toEmail)) return false;
 
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            String apptNo = (appointment != null && appointment.getAppointmentNumber() != null) ? appointment.getAppointmentNumber() : "";
-            String subject = "Appointment Confirmed - " + apptNo;
-            
-            helper.setTo(toEmail);
-            helper.setSubject(subject);
-            helper.setFrom(fromAddress);
-
-            String when = (appointment != null && appointment.getAppointmentTime() != null) ? appointment.getAppointmentTime().format(DT_FMT) : "—";
-            String doctor = (appointment != null && appointment.getDoctor() != null) ? appointment.getDoctor().getName() : "Doctor";
-            String patientName = (appointment != null && appointment.getPatient() != null) ? appointment.getPatient().getName() : "Patient";
+            mailSender.send(appointmentConfirmationMessage(toEmail, appointment));
+            return true;
+        } catch (Exception ex) {
+            log.error("Error sending appointment confirmation: {}", ex.getMessage());
+            return false;
+        }
+    }
 
-            String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
-                    "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
-                    "<h2 style='color:#16a34a;'>Appointment Confirmed</h2>" +
-                    "<p>Hi " + escapeHtml(patientName) + ",</p>" +
-                    "<table style='width:100%;border-collapse:collapse;margin-top:15px;'>" +
-                    row("Appointment No", apptNo) +
-                    row("Doctor", doctor) +
-                    row("When", when) +
-                    row("Notes", appointment != null ? appointment.getNotes() : "") +
-                    "</table></div></body></html>";
+    /**
+     * Builds the confirmation now, while the appointment's doctor and patient are still
+     * loaded, and sends it on the mail thread so booking does not wait for SMTP.
+     */
+    public boolean sendAppointmentConfirmationLater(String toEmail, Appointment appointment) {
+        if (isInvalid(toEmail)) return false;
 
-            helper.setText("Appointment Confirmed: " + apptNo, html);
-            mailSender.send(message);
+        try {
+            sendLater(appointmentConfirmationMessage(toEmail, appointment), "appointment confirmation");
             return true;
         } catch (Exception ex) {
-            log.error("Error sending appointment confirmation: {}", ex.getMessage());
+            log.error("Error preparing appointment confirmation: {}", ex.getMessage());
             return false;
         }
     }
 
+    public MimeMessage appointmentConfirmationMessage(String toEmail, Appointment appointment) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        String apptNo = (appointment != null && appointment.getAppointmentNumber() != null) ? appointment.getAppointmentNumber() : "";
+        String subject = "Appointment Confirmed - " + apptNo;
+
+        helper.setTo(toEmail);
+        helper.setSubject(subject);
+        helper.setFrom(fromAddress);
+
+        String when = (appointment != null && appointment.getAppointmentTime() != null) ? appointment.getAppointmentTime().format(DT_FMT) : "—";
+        String doctor = (appointment != null && appointment.getDoctor() != null) ? appointment.getDoctor().getName() : "Doctor";
+        String patientName = (appointment != null && appointment.getPatient() != null) ? appointment.getPatient().getName() : "Patient";
+
+        String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
+                "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
+                "<h2 style='color:#16a34a;'>Appointment Confirmed</h2>" +
+                "<p>Hi " + escapeHtml(patientName) + ",</p>" +
+                "<table style='width:100%;border-collapse:collapse;margin-top:15px;'>" +
+                row("Appointment No", apptNo) +
+                row("Doctor", doctor) +
+                row("When", when) +
+                row("Notes", appointment != null ? appointment.getNotes() : "") +
+                "</table></div></body></html>";
+
+        helper.setText("Appointment Confirmed: " + apptNo, html);
+        return message;
+    }
+
     // =================================================================================
     // 4. APPOINTMENT UPDATED (Reschedule)
     // =================================================================================
@@ -167,27 +250,7 @@ public class EmailService {
         if (isInvalid(toEmail)) return false;
 
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(toEmail);
-            helper.setSubject("Appointment Rescheduled - Dr. " + doctorName);
-            helper.setFrom(fromAddress);
-
-            String oldTimeStr = (oldTime != null) ? oldTime.format(DT_FMT) : "N/A";
-            String newTimeStr = (newTime != null) ? newTime.format(DT_FMT) : "N/A";
-
-            String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
-                    "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
-                    "<h2 style='color:#d97706;'>Appointment Updated</h2>" +
-                    "<p>Your appointment with <strong>Dr. " + escapeHtmlStatic(doctorName) + "</strong> has been rescheduled.</p>" +
-                    "<table style='width:100%;border-collapse:collapse;margin-top:15px;'>" +
-                    row("Previous Time", oldTimeStr) +
-                    row("New Time", newTimeStr) +
-                    "</table></div></body></html>";
-
-            helper.setText("Appointment Rescheduled. New Time: " + newTimeStr, html);
-            mailSender.send(message);
+            mailSender.send(appointmentUpdatedByDoctorMessage(toEmail, doctorName, oldTime, newTime));
             return true;
         } catch (Exception ex) {
             log.error("Error sending update email: {}", ex.getMessage());
@@ -195,6 +258,32 @@ public class EmailService {
         }
     }
 
+    // built separately so bulk schedule changes can hand many to sendBatch
+    public MimeMessage appointmentUpdatedByDoctorMessage(String toEmail, String doctorName,
+                                                         LocalDateTime oldTime, LocalDateTime newTime) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setTo(toEmail);
+        helper.setSubject("Appointment Rescheduled - Dr. " + doctorName);
+        helper.setFrom(fromAddress);
+
+        String oldTimeStr = (oldTime != null) ? oldTime.format(DT_FMT) : "N/A";
+        String newTimeStr = (newTime != null) ? newTime.format(DT_FMT) : "N/A";
+
+        String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
+                "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
+                "<h2 style='color:#d97706;'>Appointment Updated</h2>" +
+                "<p>Your appointment with <strong>Dr. " + escapeHtmlStatic(doctorName) + "</strong> has been rescheduled.</p>" +
+                "<table style='width:100%;border-collapse:collapse;margin-top:15px;'>" +
+                row("Previous Time", oldTimeStr) +
+                row("New Time", newTimeStr) +
+                "</table></div></body></html>";
+
+        helper.setText("Appointment Rescheduled. New Time: " + newTimeStr, html);
+        return message;
+    }
+
     // =================================================================================
     // 5. APPOINTMENT CANCELLED
     // =================================================================================
@@ -202,35 +291,65 @@ public class EmailService {
         if (isInvalid(toEmail)) return false;
 
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            mailSender.send(appointmentCancelledByDoctorMessage(toEmail, doctorName, apptTime));
+            return true;
+        } catch (Exception ex) {
+            log.error("Error sending cancellation email: {}", ex.getMessage());
+            return false;
+        }
+    }
 
-            helper.setTo(toEmail);
-            helper.setSubject("Appointment Cancelled - Dr. " + doctorName);
-            helper.setFrom(fromAddress);
+    public MimeMessage appointmentCancelledByDoctorMessage(String toEmail, String doctorName,
+                                                           LocalDateTime apptTime) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            String timeStr = (apptTime != null) ? apptTime.format(DT_FMT) : "N/A";
+        helper.setTo(toEmail);
+        helper.setSubject("Appointment Cancelled - Dr. " + doctorName);
+        helper.setFrom(fromAddress);
 
-            String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
-                    "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
-                    "<h2 style='color:#ef4444;'>Appointment Cancelled</h2>" +
-                    "<p>Your appointment with <strong>Dr. " + escapeHtmlStatic(doctorName) + "</strong> on " + timeStr + " has been cancelled.</p>" +
-                    "<p>Please login to your dashboard to book a new slot.</p>" +
-                    "</div></body></html>";
+        String timeStr = (apptTime != null) ? apptTime.format(DT_FMT) : "N/A";
 
-            helper.setText("Appointment Cancelled.", html);
-            mailSender.send(message);
-            return true;
+        String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
+                "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
+                "<h2 style='color:#ef4444;'>Appointment Cancelled</h2>" +
+                "<p>Your appointment with <strong>Dr. " + escapeHtmlStatic(doctorName) + "</strong> on " + timeStr + " has been cancelled.</p>" +
+                "<p>Please login to your dashboard to book a new slot.</p>" +
+                "</div></body></html>";
+
+        helper.setText("Appointment Cancelled.", html);
+        return message;
+    }
+
+    /**
+     * Sends prepared messages over one SMTP connection. Returns how many were
+     * accepted; a failed message does not stop the rest of the batch.
+     */
+    public int sendBatch(List<MimeMessage> messages) {
+        if (messages.isEmpty()) return 0;
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+            return messages.size();
+        } catch (MailSendException ex) {
+            log.error("Batch email: {} of {} message(s) failed: {}",
+                    ex.getFailedMessages().size(), messages.size(), ex.getMessage());
+            return messages.size() - ex.getFailedMessages().size();
         } catch (Exception ex) {
-            log.error("Error sending cancellation email: {}", ex.getMessage());
-            return false;
+            log.error("Batch email of {} message(s) failed: {}", messages.size(), ex.getMessage());
+            return 0;
         }
     }
 
+    public boolean isDeliverable(String email) {
+        return !isInvalid(email);
+    }
+
     // =================================================================================
     // 6. MEDICAL RECORD (With Attachments)
     // =================================================================================
-    public boolean sendMedicalRecordToPatient(String toEmail, String doctorName, MedicalRecord record, List<File> filesToAttach) {
+    // Report files are streamed from storage straight into the SMTP data stage.
+    // Reports above the size limits are sent as expiring download links instead.
+    public boolean sendMedicalRecordToPatient(String toEmail, String doctorName, MedicalRecord record, List<RecordReport> reports) {
         if (isInvalid(toEmail)) return false;
 
         try {
@@ -241,8 +360,36 @@ public class EmailService {
             helper.setSubject("Medical Record Summary - Dr. " + doctorName);
             helper.setFrom(fromAddress);
 
+            // Split reports into inline attachments and download links
+            List<RecordReport> attached = new ArrayList<>();
+            List<RecordReport> linked = new ArrayList<>();
+            long attachedBytes = 0;
+            if (reports != null) {
+                for (RecordReport rr : reports) {
+                    long size = reportSize(rr);
+                    if (size < 0) continue; // file missing
+                    if (size <= maxAttachmentBytes && attachedBytes + size <= maxTotalAttachmentBytes) {
+                        attached.add(rr);
+                        attachedBytes += size;
+                    } else {
+                        linked.add(rr);
+                    }
+                }
+            }
+
             String dateStr = (record.getRecordDate() != null) ? record.getRecordDate().format(DateTimeFormatter.ofPattern("dd MMM yyyy")) : "N/A";
 
+            StringBuilder links = new StringBuilder();
+            if (!linked.isEmpty()) {
+                links.append("<p><strong>Large reports</strong> (download links valid for ")
+                     .append(reportLinkService.getTtlHours()).append(" hours):</p><ul>");
+                for (RecordReport rr : linked) {
+                    links.append("<li><a href='").append(escapeHtmlStatic(reportLinkService.createLink(rr))).append("'>")
+                         .append(escapeHtmlStatic(displayName(rr))).append("</a></li>");
+                }
+                links.append("</ul>");
+            }
+
             String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
                     "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
                     "<h2 style='color:#0ea5e9;'>Medical Record Summary</h2>" +
@@ -253,18 +400,14 @@ public class EmailService {
                     row("Prescription", record.getPrescription()) +
                     row("Treatment", record.getTreatment()) +
                     "</table>" +
-                    "<p><strong>Attachments:</strong> " + ((filesToAttach != null) ? filesToAttach.size() : 0) + "</p>" +
+                    "<p><strong>Attachments:</strong> " + attached.size() + "</p>" +
+                    links +
                     "</div></body></html>";
 
             helper.setText(html, true);
 
-            if (filesToAttach != null) {
-                for (File file : filesToAttach) {
-                    if (file.exists()) {
-                        FileSystemResource fileResource = new FileSystemResource(file);
-                        helper.addAttachment(file.getName(), fileResource);
-                    }
-                }
+            for (RecordReport rr : attached) {
+                helper.getRootMimeMultipart().addBodyPart(streamingAttachment(rr));
             }
 
             mailSender.send(message);
@@ -299,10 +442,148 @@ public class EmailService {
         }
     }
 
+    // =================================================================================
+    // 8. APPOINTMENT REMINDER
+    // =================================================================================
+    public boolean sendAppointmentReminder(String toEmail, String patientName, String apptNo,
+                                           String doctorName, LocalDateTime apptTime, String lead) {
+        if (isInvalid(toEmail)) return false;
+
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+            helper.setTo(toEmail);
+            helper.setSubject("Reminder: appointment " + lead + " - " + (apptNo != null ? apptNo : ""));
+            helper.setFrom(fromAddress);
+
+            String when = (apptTime != null) ? apptTime.format(DT_FMT) : "—";
+
+            String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
+                    "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
+                    "<h2 style='color:#0284c7;'>Appointment Reminder</h2>" +
+                    "<p>Hi " + escapeHtmlStatic(patientName != null ? patientName : "Patient") + ", your appointment is " + escapeHtmlStatic(lead) + ".</p>" +
+                    "<table style='width:100%;border-collapse:collapse;margin-top:15px;'>" +
+                    row("Appointment No", apptNo) +
+                    row("Doctor", doctorName) +
+                    row("When", when) +
+                    "</table></div></body></html>";
+
+            helper.setText("Reminder: your appointment is " + lead + " (" + when + ").", html);
+            mailSender.send(message);
+            return true;
+        } catch (Exception ex) {
+            log.error("Error sending reminder email: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    // =================================================================================
+    // 9. WAITLIST SLOT OFFER
+    // =================================================================================
+    public boolean sendWaitlistOffer(String toEmail, String patientName, String doctorName,
+                                     LocalDateTime slotTime, LocalDateTime holdUntil) {
+        if (isInvalid(toEmail)) return false;
+
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+            helper.setTo(toEmail);
+            helper.setSubject("A slot opened up with Dr. " + (doctorName != null ? doctorName : ""));
+            helper.setFrom(fromAddress);
+
+            String when = (slotTime != null) ? slotTime.format(DT_FMT) : "—";
+            String until = (holdUntil != null) ? holdUntil.format(DT_FMT) : "—";
+
+            String html = "<!doctype html><html><body style='font-family:Arial,sans-serif;padding:20px;'>" +
+                    "<div style='max-width:600px;margin:0 auto;border:1px solid #eee;padding:20px;'>" +
+                    "<h2 style='color:#a855f7;'>A Slot Is Waiting For You</h2>" +
+                    "<p>Hi " + escapeHtmlStatic(patientName != null ? patientName : "Patient") +
+                    ", an appointment you were waiting for has become free and is held for you.</p>" +
+                    "<table style='width:100%;border-collapse:collapse;margin-top:15px;'>" +
+                    row("Doctor", doctorName) +
+                    row("When", when) +
+                    row("Held until", until) +
+                    "</table>" +
+                    "<p>Accept it from <strong>My Waitlist</strong> in the patient portal before the hold ends.</p>" +
+                    "</div></body></html>";
+
+            helper.setText("A slot with Dr. " + doctorName + " on " + when + " is held for you until " + until
+                    + ". Accept it from My Waitlist in the patient portal.", html);
+            mailSender.send(message);
+            return true;
+        } catch (Exception ex) {
+            log.error("Error sending waitlist offer email: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    // =================================================================================
+    // BACKGROUND DELIVERY
+    // =================================================================================
+
+    // sends off the caller's thread; failures are logged, since nobody is waiting for them
+    private void sendLater(MimeMessage message, String what) {
+        mailDispatch.execute(() -> {
+            try {
+                mailSender.send(message);
+            } catch (Exception ex) {
+                log.error("Error sending {}: {}", what, ex.getMessage());
+            }
+        });
+    }
+
     // =================================================================================
     // HELPERS
     // =================================================================================
     
+    // Attachment body part whose content is read from storage only while the message is written
+    private MimeBodyPart streamingAttachment(RecordReport rr) throws MessagingException {
+        MimeBodyPart part = new MimeBodyPart();
+        part.setDataHandler(new DataHandler(new ReportDataSource(rr)));
+        part.setFileName(displayName(rr));
+        part.setDisposition(Part.ATTACHMENT);
+        // explicit encoding, so JavaMail does not pre-scan the whole file to choose one
+        part.setHeader("Content-Transfer-Encoding", "base64");
+        return part;
+    }
+
+    private long reportSize(RecordReport rr) {
+        if (rr.getFileSize() != null) return rr.getFileSize();
+        try {
+            return Files.size(reportStorage.resolve(rr));
+        } catch (IOException e) {
+            log.warn("Report {} not found on disk, skipping", rr.getFileName());
+            return -1;
+        }
+    }
+
+    private static String displayName(RecordReport rr) {
+        return rr.getOriginalName() != null ? rr.getOriginalName() : rr.getFileName();
+    }
+
+    // DataSource that opens the stored report (either tier) each time JavaMail asks for it
+    private class ReportDataSource implements DataSource {
+        private final RecordReport report;
+
+        ReportDataSource(RecordReport report) { this.report = report; }
+
+        @Override
+        public InputStream getInputStream() throws IOException { return reportStorage.openStream(report); }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException { throw new IOException("read-only"); }
+
+        @Override
+        public String getContentType() {
+            return report.getContentType() != null ? report.getContentType() : "application/octet-stream";
+        }
+
+        @Override
+        public String getName() { return displayName(report); }
+    }
+
     private boolean isInvalid(String email) {
         if (email == null || email.trim().isEmpty()) {
             log.warn("Email sending aborted: Recipient email is missing.");
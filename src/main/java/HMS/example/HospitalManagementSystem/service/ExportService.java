@@ -0,0 +1,230 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams whole tables to an HTTP response as CSV or NDJSON.
+ *
+ * Each export is one forward-only scroll over a projection query, so rows are
+ * written as they arrive from the driver and nothing is collected into a List.
+ * The session is cleared every {@code app.export.clear-every} rows, which keeps
+ * memory flat however many rows the table holds.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    // MySQL Connector/J only streams a result set row by row with this fetch size;
+    // any positive value makes it buffer the whole result in memory first.
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format of(String s) {
+            return "ndjson".equalsIgnoreCase(s) || "json".equalsIgnoreCase(s) ? NDJSON : CSV;
+        }
+    }
+
+    public enum Dataset {
+        PATIENTS(
+                "select p.id, p.name, p.email, p.phone, p.gender, p.age, p.address, p.disease " +
+                "from Patient p order by p.id",
+                "id", "name", "email", "phone", "gender", "age", "address", "disease"),
+
+        APPOINTMENTS(
+                "select a.id, a.appointmentNumber, a.appointmentTime, a.status, " +
+                "d.id, d.name, p.id, p.name, a.notes, a.createdAt, a.updatedAt " +
+                "from Appointment a left join a.doctor d left join a.patient p order by a.id",
+                "id", "appointmentNumber", "appointmentTime", "status",
+                "doctorId", "doctorName", "patientId", "patientName", "notes", "createdAt", "updatedAt"),
+
+        RECORDS(
+                "select m.id, m.recordDate, p.id, d.id, coalesce(a.id, m.archivedAppointmentId), " +
+                "m.diagnosis, m.prescription, m.treatment, m.notes, m.createdAt, m.updatedAt " +
+                "from MedicalRecord m join m.patient p join m.doctor d left join m.appointment a order by m.id",
+                "id", "recordDate", "patientId", "doctorId", "appointmentId",
+                "diagnosis", "prescription", "treatment", "notes", "createdAt", "updatedAt");
+
+        private final String hql;
+        private final String[] columns;
+
+        Dataset(String hql, String... columns) {
+            this.hql = hql;
+            this.columns = columns;
+        }
+
+        /** null for an unknown name */
+        public static Dataset of(String s) {
+            if (s == null) return null;
+            for (Dataset d : values()) {
+                if (d.name().equalsIgnoreCase(s)) return d;
+            }
+            return null;
+        }
+    }
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Value("${app.export.clear-every:1000}")
+    private int clearEvery;
+
+    /**
+     * Writes every row of {@code dataset} to {@code out}. The stream is flushed
+     * (not closed) each time the session is cleared so the client sees progress.
+     */
+    public long write(Dataset dataset, Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+
+        Session ss = sf.openSession();
+        ss.setDefaultReadOnly(true);
+        ss.setCacheMode(CacheMode.IGNORE);
+
+        try (ScrollableResults<Object[]> scroll = ss.createQuery(dataset.hql, Object[].class)
+                .setReadOnly(true)
+                .setCacheable(false)
+                .setFetchSize(MYSQL_STREAMING_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+
+            RowWriter w = format == Format.NDJSON
+                    ? new NdjsonWriter(out, dataset.columns)
+                    : new CsvWriter(out, dataset.columns);
+
+            while (scroll.next()) {
+                w.row(scroll.get());
+                if (++rows % clearEvery == 0) {
+                    ss.clear();
+                    w.flush();
+                }
+            }
+            w.flush();
+        } finally {
+            ss.close();
+        }
+
+        log.info("Exported {} {} row(s) as {} in {} ms", rows, dataset.name().toLowerCase(),
+                format.getExtension(), System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    // =================================================================================
+    // ROW WRITERS
+    // =================================================================================
+
+    private interface RowWriter {
+        void row(Object[] values) throws IOException;
+        void flush() throws IOException;
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer w;
+
+        CsvWriter(OutputStream out, String[] columns) throws IOException {
+            this.w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            row(columns);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) w.write(',');
+                if (values[i] != null) cell(text(values[i]));
+            }
+            w.write("\r\n");
+        }
+
+        // RFC 4180: quote when the value holds a delimiter, quote or line break
+        private void cell(String s) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < s.length() && !quote; i++) {
+                char c = s.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                w.write(s);
+                return;
+            }
+            w.write('"');
+            w.write(s.replace("\"", "\"\""));
+            w.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            w.flush();
+        }
+    }
+
+    private static final class NdjsonWriter implements RowWriter {
+        private static final JsonFactory JSON = new JsonFactory();
+
+        private final JsonGenerator g;
+        private final String[] columns;
+
+        NdjsonWriter(OutputStream out, String[] columns) throws IOException {
+            this.g = JSON.createGenerator(out, JsonEncoding.UTF8);
+            this.g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.g.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            g.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                Object v = values[i];
+                g.writeFieldName(columns[i]);
+                if (v == null) g.writeNull();
+                else if (v instanceof Number n) g.writeNumber(n.toString());
+                else if (v instanceof Boolean b) g.writeBoolean(b);
+                else g.writeString(text(v));
+            }
+            g.writeEndObject();
+            g.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            g.flush();
+        }
+    }
+
+    private static String text(Object v) {
+        // enums by name, java.time values in ISO-8601
+        return v instanceof Enum<?> e ? e.name() : String.valueOf(v);
+    }
+}
@@ -0,0 +1,255 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeUtility;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal SMTP server that accepts everything and keeps the messages in memory, so the
+ * app can run offline (load tests, local work) without mailing real patients.
+ *
+ * Only exists under the loadtest and test profiles, and even there stays off unless
+ * {@code app.mail.fake-smtp.enabled}; the loadtest profile turns it on and points
+ * spring.mail at it. Port 0 picks a free port, see {@link #getPort()}. Only the commands JavaMail uses without auth or TLS are
+ * understood. {@code app.mail.fake-smtp.delay-ms} holds back every "250" after DATA to
+ * behave like a slow relay; requests that still wait on SMTP then show it in their
+ * latency. Captured mail is listed at /dev/mail.
+ */
+@Service
+@Profile({"loadtest", "test"})
+public class FakeSmtpServer {
+
+    private static final Logger log = LoggerFactory.getLogger(FakeSmtpServer.class);
+
+    @Value("${app.mail.fake-smtp.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.mail.fake-smtp.port:2525}")
+    private int port;
+
+    // extra time before a message is acknowledged
+    @Value("${app.mail.fake-smtp.delay-ms:0}")
+    private volatile long delayMs;
+
+    // newest messages kept for inspection; older ones are only counted
+    @Value("${app.mail.fake-smtp.keep:1000}")
+    private int keep;
+
+    private final Deque<CapturedMail> messages = new ArrayDeque<>();
+    private final AtomicLong received = new AtomicLong();
+    private ServerSocket server;
+    private ExecutorService connections;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) return;
+        server = new ServerSocket(port, 100, InetAddress.getLoopbackAddress());
+        connections = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "fake-smtp-session");
+            t.setDaemon(true);
+            return t;
+        });
+        Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Fake SMTP server listening on localhost:{} (delay {} ms)", port, delayMs);
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (server == null) return;
+        server.close();
+        connections.shutdownNow();
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public int getPort() { return server != null ? server.getLocalPort() : port; }
+    public long getDelayMs() { return delayMs; }
+    public void setDelayMs(long delayMs) { this.delayMs = Math.max(0, delayMs); }
+    public long getReceived() { return received.get(); }
+
+    /** Captured messages, newest first. */
+    public List<CapturedMail> messages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    public void clear() {
+        synchronized (messages) {
+            messages.clear();
+        }
+        received.set(0);
+    }
+
+    // =================================================================================
+    // PROTOCOL
+    // =================================================================================
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.execute(() -> session(socket));
+            } catch (IOException e) {
+                if (!server.isClosed()) log.warn("Fake SMTP accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        // ISO-8859-1 passes every byte through unchanged
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+
+            reply(out, "220 localhost fake SMTP ready");
+            String from = null;
+            List<String> to = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (cmd) {
+                    case "EHLO":
+                        reply(out, "250-localhost\r\n250-8BITMIME\r\n250 SIZE 52428800");
+                        break;
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "MAIL":
+                        from = address(line);
+                        to.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "RCPT":
+                        to.add(address(line));
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        capture(from, to, readData(in));
+                        if (delayMs > 0) Thread.sleep(delayMs);
+                        reply(out, "250 OK queued");
+                        from = null;
+                        to.clear();
+                        break;
+                    case "RSET":
+                        from = null;
+                        to.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.debug("Fake SMTP session ended: {}", e.getMessage());
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // undo dot-stuffing
+            data.append(line.startsWith(".") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private void capture(String from, List<String> to, String data) {
+        CapturedMail mail = new CapturedMail(received.incrementAndGet(), from, new ArrayList<>(to),
+                subject(data), data.length(), LocalDateTime.now());
+        synchronized (messages) {
+            messages.addFirst(mail);
+            while (messages.size() > keep) messages.removeLast();
+        }
+    }
+
+    private static String subject(String data) {
+        for (String header : data.split("\r\n")) {
+            if (header.isEmpty()) break;
+            if (header.regionMatches(true, 0, "Subject:", 0, 8)) {
+                try {
+                    return MimeUtility.decodeText(header.substring(8).trim());
+                } catch (Exception e) {
+                    return header.substring(8).trim();
+                }
+            }
+        }
+        return "";
+    }
+
+    // "MAIL FROM:<a@b>" -> a@b
+    private static String address(String line) {
+        int lt = line.indexOf('<');
+        int gt = line.indexOf('>', lt + 1);
+        if (lt >= 0 && gt > lt) return line.substring(lt + 1, gt);
+        int colon = line.indexOf(':');
+        return colon >= 0 ? line.substring(colon + 1).trim() : "";
+    }
+
+    private static void reply(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write("\r\n");
+        out.flush();
+    }
+
+    // ---------- one received message ----------
+    public static class CapturedMail {
+        private final long id;
+        private final String from;
+        private final List<String> to;
+        private final String subject;
+        private final int size;
+        private final LocalDateTime receivedAt;
+
+        CapturedMail(long id, String from, List<String> to, String subject, int size, LocalDateTime receivedAt) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+            this.subject = subject;
+            this.size = size;
+            this.receivedAt = receivedAt;
+        }
+
+        public long getId() { return id; }
+        public String getFrom() { return from; }
+        public List<String> getTo() { return to; }
+        public String getSubject() { return subject; }
+        public int getSize() { return size; }
+        public LocalDateTime getReceivedAt() { return receivedAt; }
+    }
+}
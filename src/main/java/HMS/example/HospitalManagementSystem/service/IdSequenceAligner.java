@@ -0,0 +1,83 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the pooled id sequences ahead of the ids already in their tables.
+ *
+ * MySQL has no sequences, so Hibernate emulates each one with a one-row
+ * {@code <name>_seq} table. Tables that used AUTO_INCREMENT before the switch
+ * start that row at 1, which would hand out ids that already exist. On startup
+ * each sequence is moved past {@code max(id)} of its table; running it again is
+ * harmless because the value only ever grows.
+ */
+@Component
+public class IdSequenceAligner {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    // must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    // entity table -> sequence table
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+    static {
+        SEQUENCES.put("patient", "patient_seq");
+        SEQUENCES.put("doctor", "doctor_seq");
+        SEQUENCES.put("appointment", "appointment_seq");
+        SEQUENCES.put("medical_record", "medical_record_seq");
+        SEQUENCES.put("record_report", "record_report_seq");
+        SEQUENCES.put("message", "message_seq");
+    }
+
+    @Autowired
+    private SessionFactory sf;
+
+    @PostConstruct
+    public void align() {
+        for (Map.Entry<String, String> e : SEQUENCES.entrySet()) {
+            align(e.getKey(), e.getValue());
+        }
+    }
+
+    private void align(String table, String sequence) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+
+            Number rows = (Number) ss.createNativeQuery("select count(*) from " + sequence, Object.class)
+                    .uniqueResult();
+            if (rows == null || rows.longValue() == 0) {
+                ss.createNativeMutationQuery("insert into " + sequence + " (next_val) values (1)").executeUpdate();
+            }
+
+            // The pooled optimizer hands out (next_val - ALLOCATION_SIZE, next_val] for a
+            // value it reads, so the stored value must clear max(id) by a whole block.
+            int moved = ss.createNativeMutationQuery(
+                    "update " + sequence + " set next_val = " +
+                    "(select coalesce(max(id), 0) + " + (ALLOCATION_SIZE + 1) + " from " + table + ") " +
+                    "where next_val < (select coalesce(max(id), 0) + " + (ALLOCATION_SIZE + 1) + " from " + table + ")")
+                .executeUpdate();
+            tx.commit();
+
+            if (moved > 0) log.info("Moved id sequence {} past existing {} ids", sequence, table);
+        } catch (Exception ex) {
+            if (tx != null) tx.rollback();
+            log.warn("Could not align id sequence {} for table {}: {}", sequence, table, ex.getMessage());
+        } finally {
+            ss.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Short-lived record of completed state-changing requests, keyed by the
+ * client-supplied idempotency key (hidden form field or Idempotency-Key header).
+ *
+ * The first request with a key claims it and runs; a repeat with the same key
+ * (double click, browser retry) gets the first request's outcome back instead of
+ * acting again. A repeat arriving while the first is still running waits for it.
+ * A claim that is released without completing (the action failed) lets the next
+ * attempt run normally. Outcomes are kept for {@code app.idempotency.ttl-seconds}.
+ *
+ * In memory, so it only dedupes retries that reach the same instance.
+ */
+@Service
+public class IdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Value("${app.idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${app.idempotency.wait-ms:5000}")
+    private long waitMs;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    /** The header value wins over the form field; blank means "no key". */
+    public static String key(String formValue, String headerValue) {
+        String k = headerValue != null && !headerValue.isBlank() ? headerValue : formValue;
+        if (k == null || k.isBlank()) return null;
+        k = k.trim();
+        return k.length() > MAX_KEY_LENGTH ? k.substring(0, MAX_KEY_LENGTH) : k;
+    }
+
+    /**
+     * Claims {@code key} within {@code scope}. Scope should identify the caller and
+     * the action (e.g. "cancel:patient:7:appt:42") so keys never cross users.
+     * A null key gives a claim that never replays and records nothing.
+     */
+    public Claim claim(String scope, String key) {
+        if (key == null) return new Claim(null, null, null, false);
+        String id = scope + '|' + key;
+
+        while (true) {
+            Slot mine = new Slot();
+            Slot existing = slots.putIfAbsent(id, mine);
+            if (existing == null) return new Claim(id, mine, null, false);
+
+            if (existing.isExpired()) {
+                slots.remove(id, existing);
+                continue;
+            }
+            try {
+                String outcome = existing.outcome.get(waitMs, TimeUnit.MILLISECONDS);
+                if (outcome != null) return new Claim(null, null, outcome, false);
+                // released without an outcome: the first attempt failed, so try again
+            } catch (TimeoutException e) {
+                return new Claim(null, null, null, true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Claim(null, null, null, true);
+            } catch (ExecutionException e) {
+                // never completed exceptionally; treat like a release
+            }
+            slots.remove(id, existing);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-ms:60000}")
+    public void purgeExpired() {
+        slots.entrySet().removeIf(e -> e.getValue().isExpired());
+    }
+
+    private final class Slot {
+        final CompletableFuture<String> outcome = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE; // in-flight slots never expire
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+
+    // ---------- one request's hold on a key ----------
+    public final class Claim {
+        private final String id;
+        private final Slot slot;
+        private final String replay;
+        private final boolean inProgress;
+
+        private Claim(String id, Slot slot, String replay, boolean inProgress) {
+            this.id = id;
+            this.slot = slot;
+            this.replay = replay;
+            this.inProgress = inProgress;
+        }
+
+        /** A request with this key already finished; {@link #getReplay()} is its outcome. */
+        public boolean isReplay() { return replay != null; }
+        public String getReplay() { return replay; }
+
+        /** A request with this key is still running after the wait. */
+        public boolean isInProgress() { return inProgress; }
+
+        /** Records the outcome that repeats of this key will get. */
+        public String complete(String outcome) {
+            if (slot != null && !slot.outcome.isDone()) {
+                slot.expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+                slot.outcome.complete(outcome);
+            }
+            return outcome;
+        }
+
+        /** Frees the key if {@link #complete} was not called; safe to call in finally. */
+        public void release() {
+            if (slot != null && !slot.outcome.isDone()) {
+                slots.remove(id, slot);
+                slot.outcome.complete(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.model.Message;
+import HMS.example.HospitalManagementSystem.model.Patient;
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for "something a user can see changed" events.
+ *
+ * Committed Appointment and Message changes are turned into small {@link LiveEvent}s
+ * addressed to user topics ({@code patient:<id>}, {@code doctor:<id>}) and handed to
+ * every subscriber on the committing thread. Subscribers must only enqueue; they
+ * must never block or throw into the request that committed.
+ *
+ * Events carry ids and plain fields only: lazy associations are never touched.
+ */
+@Service
+public class LiveEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveEventBus.class);
+
+    @Autowired
+    private SessionFactory sf;
+
+    private final List<Consumer<LiveEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = sf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        ChangeListener listener = new ChangeListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    public void subscribe(Consumer<LiveEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void publish(LiveEvent event) {
+        if (event.getTopics().isEmpty()) return;
+        for (Consumer<LiveEvent> s : subscribers) {
+            try {
+                s.accept(event);
+            } catch (RuntimeException ex) {
+                log.warn("Live event subscriber failed: {}", ex.toString());
+            }
+        }
+    }
+
+    public static String patientTopic(Long patientId) {
+        return "patient:" + patientId;
+    }
+
+    public static String doctorTopic(Long doctorId) {
+        return "doctor:" + doctorId;
+    }
+
+    // =================================================================================
+    // APPOINTMENT / MESSAGE -> EVENT
+    // =================================================================================
+
+    private void appointmentChanged(Appointment ap, String action, Long patientId, Long... doctorIds) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (patientId != null) topics.add(patientTopic(patientId));
+        for (Long d : doctorIds) {
+            if (d != null) topics.add(doctorTopic(d));
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", ap.getId());
+        data.put("action", action);
+        data.put("number", ap.getAppointmentNumber());
+        data.put("status", ap.getStatus() != null ? ap.getStatus().name() : null);
+        data.put("time", ap.getAppointmentTime() != null ? ap.getAppointmentTime().toString() : null);
+        publish(new LiveEvent("appointment", topics, data));
+    }
+
+    private void messageAdded(Message m, Long patientId) {
+        if (patientId == null) return;
+        String text = m.getText();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", m.getId());
+        data.put("from", m.getFromUser());
+        data.put("preview", text != null && text.length() > 120 ? text.substring(0, 120) + "..." : text);
+        data.put("sentAt", m.getSentAt() != null ? m.getSentAt().toString() : null);
+        publish(new LiveEvent("message", Set.of(patientTopic(patientId)), data));
+    }
+
+    private static String updateAction(AppointmentStatus before, AppointmentStatus after,
+                                       boolean moved) {
+        if (before != after) {
+            if (after == AppointmentStatus.CANCELLED) return "cancelled";
+            if (before == AppointmentStatus.CANCELLED) return "restored";
+            if (after == AppointmentStatus.COMPLETED) return "completed";
+        }
+        return moved ? "rescheduled" : "updated";
+    }
+
+    private class ChangeListener implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] s = event.getState();
+            if (event.getEntity() instanceof Appointment ap) {
+                appointmentChanged(ap, "booked", patientId(names, s), doctorId(names, s));
+            } else if (event.getEntity() instanceof Message m) {
+                messageAdded(m, patientId(names, s));
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!(event.getEntity() instanceof Appointment ap)) return;
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] after = event.getState();
+            Object[] before = event.getOldState();
+            if (before == null) {
+                appointmentChanged(ap, "updated", patientId(names, after), doctorId(names, after));
+                return;
+            }
+            Long oldDoctor = doctorId(names, before);
+            Long newDoctor = doctorId(names, after);
+            boolean moved = !Objects.equals(oldDoctor, newDoctor)
+                    || !Objects.equals(value(names, before, "appointmentTime"), value(names, after, "appointmentTime"));
+            String action = updateAction(status(names, before), status(names, after), moved);
+            // a move to another doctor also tells the doctor who lost the slot
+            appointmentChanged(ap, action, patientId(names, after), newDoctor, oldDoctor);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (!(event.getEntity() instanceof Appointment ap)) return;
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] s = event.getDeletedState();
+            appointmentChanged(ap, "deleted", patientId(names, s), doctorId(names, s));
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) { }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) { }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) { }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            Class<?> c = persister.getMappedClass();
+            return Appointment.class.equals(c) || Message.class.equals(c);
+        }
+    }
+
+    private static Long doctorId(String[] names, Object[] state) {
+        Object d = value(names, state, "doctor");
+        return d instanceof Doctor ? ((Doctor) d).getId() : null;
+    }
+
+    private static Long patientId(String[] names, Object[] state) {
+        Object p = value(names, state, "patient");
+        return p instanceof Patient ? ((Patient) p).getId() : null;
+    }
+
+    private static AppointmentStatus status(String[] names, Object[] state) {
+        Object s = value(names, state, "status");
+        return s instanceof AppointmentStatus ? (AppointmentStatus) s : null;
+    }
+
+    private static Object value(String[] names, Object[] state, String property) {
+        if (state == null) return null;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return state[i];
+        }
+        return null;
+    }
+
+    // ---------- one change, addressed to one or more user topics ----------
+    public static class LiveEvent {
+        private final String name;
+        private final Set<String> topics;
+        private final Map<String, Object> data;
+        private final LocalDateTime at = LocalDateTime.now();
+
+        public LiveEvent(String name, Set<String> topics, Map<String, Object> data) {
+            this.name = name;
+            this.topics = Collections.unmodifiableSet(topics);
+            this.data = Collections.unmodifiableMap(data);
+        }
+
+        public String getName() { return name; }
+        public Set<String> getTopics() { return topics; }
+        public Map<String, Object> getData() { return data; }
+        public LocalDateTime getAt() { return at; }
+    }
+}
@@ -0,0 +1,236 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-sent event connections of logged-in patients and doctors.
+ *
+ * Each open dashboard holds one async {@link SseEmitter}; an idle connection holds
+ * no thread, only its emitter and a small queue. Events from {@link LiveEventBus}
+ * are appended to the queues of the topic's connections and written out by a few
+ * sender threads, so a committing request never waits on a client socket.
+ *
+ * A connection's queue holds at most {@code app.live.buffer} events. A client that
+ * falls further behind gets its backlog replaced by a single "resync" event (the
+ * page reloads itself) rather than growing memory. A heartbeat comment goes to
+ * connections that were silent for a whole heartbeat period, which keeps proxies
+ * from closing them and finds dead ones.
+ */
+@Service
+public class LiveUpdateHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdateHub.class);
+
+    private static final Object HEARTBEAT = new Object();
+    private static final Object RESYNC = new Object();
+
+    @Autowired
+    private LiveEventBus bus;
+
+    @Value("${app.live.buffer:32}")
+    private int bufferSize;
+
+    @Value("${app.live.max-per-user:5}")
+    private int maxPerUser;
+
+    @Value("${app.live.max-connections:10000}")
+    private int maxConnections;
+
+    // the browser reconnects on its own after this
+    @Value("${app.live.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.live.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    @Value("${app.live.sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<String, Set<Connection>> byTopic = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong ids = new AtomicLong();
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "live-sender-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        bus.subscribe(this::dispatch);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+        for (Set<Connection> set : byTopic.values()) {
+            for (Connection c : set) c.emitter.complete();
+        }
+    }
+
+    /**
+     * Opens a stream for {@code topic}; null when the server is at its connection
+     * limit. Beyond {@code app.live.max-per-user} tabs the oldest one is closed.
+     */
+    public SseEmitter open(String topic) {
+        if (open.incrementAndGet() > maxConnections) {
+            open.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection c = new Connection(ids.incrementAndGet(), topic, emitter);
+        Set<Connection> set = byTopic.computeIfAbsent(topic, k -> ConcurrentHashMap.newKeySet());
+        set.add(c);
+
+        emitter.onCompletion(() -> close(c));
+        emitter.onTimeout(() -> close(c));
+        emitter.onError(e -> close(c));
+
+        if (set.size() > maxPerUser) {
+            set.stream().filter(o -> o != c).min((a, b) -> Long.compare(a.id, b.id))
+                    .ifPresent(oldest -> oldest.emitter.complete());
+        }
+
+        // tells the client the stream is up and how soon to retry after a drop
+        c.offer(new Outgoing("ready", Map.of("topic", topic)));
+        return emitter;
+    }
+
+    public int openConnections() {
+        return open.get();
+    }
+
+    private void close(Connection c) {
+        if (!c.closed.compareAndSet(false, true)) return;
+        open.decrementAndGet();
+        byTopic.computeIfPresent(c.topic, (k, set) -> {
+            set.remove(c);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void dispatch(LiveEventBus.LiveEvent event) {
+        for (String topic : event.getTopics()) {
+            Set<Connection> set = byTopic.get(topic);
+            if (set == null) continue;
+            for (Connection c : set) c.offer(new Outgoing(event.getName(), event.getData()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.live.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long silentSince = System.currentTimeMillis() - heartbeatMs;
+        for (Set<Connection> set : byTopic.values()) {
+            for (Connection c : set) {
+                if (c.lastSentAt < silentSince) c.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    // ---------- one browser tab ----------
+    private final class Connection {
+        final long id;
+        final String topic;
+        final SseEmitter emitter;
+        final Queue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long lastSentAt = System.currentTimeMillis();
+
+        Connection(long id, String topic, SseEmitter emitter) {
+            this.id = id;
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        void offer(Object item) {
+            if (closed.get()) return;
+            if (!queue.offer(item)) {
+                if (item == HEARTBEAT) return; // a full queue is about to write anyway
+                // too far behind: drop the backlog, the client reloads instead
+                synchronized (queue) {
+                    queue.clear();
+                    queue.offer(RESYNC);
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) return;
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!closed.get() && (item = queue.poll()) != null) {
+                    send(item);
+                }
+            } catch (Exception ex) {
+                // client went away; the emitter callbacks may not fire for a dead socket
+                log.debug("Live connection {} for {} dropped: {}", id, topic, ex.toString());
+                emitter.completeWithError(ex);
+                close(this);
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed.get() && !queue.isEmpty()) schedule();
+        }
+
+        private void send(Object item) throws Exception {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("hb"));
+            } else if (item == RESYNC) {
+                emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+            } else {
+                Outgoing e = (Outgoing) item;
+                emitter.send(SseEmitter.event()
+                        .name(e.name)
+                        .reconnectTime(5000)
+                        .data(e.data, MediaType.APPLICATION_JSON));
+            }
+            lastSentAt = System.currentTimeMillis();
+        }
+    }
+
+    private static final class Outgoing {
+        final String name;
+        final Object data;
+
+        Outgoing(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+}
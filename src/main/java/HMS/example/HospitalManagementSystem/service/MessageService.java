@@ -0,0 +1,396 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.InboxCounter;
+import HMS.example.HospitalManagementSystem.model.Message;
+import HMS.example.HospitalManagementSystem.model.Patient;
+import jakarta.annotation.PostConstruct;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Patient inbox: sending, keyset-paged reading, "since" polling and unread counts.
+ *
+ * Every write also maintains the patient's {@link InboxCounter} in the same
+ * transaction, so the unread badge never needs a count query (counters are only
+ * rebuilt at startup when the table is empty, or when asked to). Pages are ordered by
+ * message id (pooled sequence, increasing per node) over the (patient_id, id) index,
+ * which keeps deep pages as cheap as the first one.
+ *
+ * Ids are not in commit order (each node draws blocks of 50, and a broadcast commits
+ * long after its first ids were drawn), so polling cannot use "id > last seen". It
+ * re-reads a {@code app.messages.since-overlap-seconds} window by sent_at before the
+ * newest message the client has, and the client drops the ids it already shows.
+ *
+ * {@link #broadcast} fans one text out to many patients with batched inserts: one
+ * JDBC batch of messages and one of counter upserts per {@code app.messages.batch-size}
+ * recipients, committed every {@code app.messages.commit-every}.
+ */
+@Service
+public class MessageService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageService.class);
+
+    private static final String BUMP_UNREAD =
+            "insert into inbox_counter (patient_id, unread) values (?, 1) " +
+            "on duplicate key update unread = unread + 1";
+
+    public enum Audience { ALL_PATIENTS, DOCTOR_PATIENTS }
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Value("${app.messages.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.messages.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.messages.commit-every:5000}")
+    private int commitEvery;
+
+    // how far "since" polling looks back before the client's newest message
+    @Value("${app.messages.since-overlap-seconds:120}")
+    private long sinceOverlapSeconds;
+
+    // rebuild every counter at startup even when the table is already populated
+    @Value("${app.messages.rebuild-counters-on-start:false}")
+    private boolean rebuildCountersOnStart;
+
+    /**
+     * Seeds the counters on the first start (messages written before counters existed).
+     * Later starts keep them; set {@code app.messages.rebuild-counters-on-start} to heal drift.
+     */
+    @PostConstruct
+    void seedCounters() {
+        if (!rebuildCountersOnStart) {
+            Session ss = sf.openSession();
+            try {
+                boolean seeded = !ss.createQuery("select c.patientId from InboxCounter c", Long.class)
+                        .setMaxResults(1).list().isEmpty();
+                if (seeded) return;
+            } catch (Exception ex) {
+                log.warn("Could not check inbox counters: {}", ex.getMessage());
+                return;
+            } finally {
+                ss.close();
+            }
+        }
+        reconcileCounters();
+    }
+
+    /** Recomputes every counter from the unread messages. */
+    public void reconcileCounters() {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            ss.createNativeMutationQuery("delete from inbox_counter").executeUpdate();
+            int patients = ss.createNativeMutationQuery(
+                    "insert into inbox_counter (patient_id, unread) " +
+                    "select patient_id, count(*) from message where read_at is null group by patient_id")
+                .executeUpdate();
+            tx.commit();
+            log.info("Inbox counters rebuilt for {} patient(s) with unread messages", patients);
+        } catch (Exception ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            log.warn("Could not rebuild inbox counters: {}", ex.getMessage());
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // WRITE
+    // =================================================================================
+
+    /** One message to one patient; false when the patient does not exist. */
+    public boolean send(Long patientId, String fromUser, String text) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            Patient p = ss.get(Patient.class, patientId);
+            if (p == null) {
+                tx.rollback();
+                return false;
+            }
+            Message m = new Message();
+            m.setPatient(p);
+            m.setFromUser(fromUser);
+            m.setText(text);
+            ss.persist(m);
+            ss.createNativeMutationQuery(BUMP_UNREAD)
+                    .setParameter(1, patientId)
+                    .executeUpdate();
+            tx.commit();
+            return true;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+    }
+
+    /**
+     * Sends {@code text} to every patient of the audience ({@code doctorId} is used
+     * by DOCTOR_PATIENTS: everyone with an appointment with that doctor).
+     * Returns the number of recipients; chunks committed before a failure stay sent.
+     */
+    public int broadcast(Audience audience, Long doctorId, String fromUser, String text) {
+        long start = System.nanoTime();
+        List<Long> recipients = recipients(audience, doctorId);
+        LocalDateTime sentAt = LocalDateTime.now();
+
+        Session ss = sf.openSession();
+        ss.setJdbcBatchSize(batchSize);
+        ss.setCacheMode(CacheMode.IGNORE);
+        Transaction tx = null;
+        int sent = 0;
+        int inChunk = 0;
+        List<Long> pendingCounters = new ArrayList<>(batchSize);
+        try {
+            tx = ss.beginTransaction();
+            for (Long patientId : recipients) {
+                // stamped per chunk so sent_at stays close to the commit that makes it visible
+                if (inChunk == 0) sentAt = LocalDateTime.now();
+                Message m = new Message();
+                m.setPatient(ss.getReference(Patient.class, patientId));
+                m.setFromUser(fromUser);
+                m.setText(text);
+                m.setSentAt(sentAt);
+                ss.persist(m);
+                pendingCounters.add(patientId);
+
+                inChunk++;
+                if (inChunk % batchSize == 0) {
+                    ss.flush();
+                    bumpUnread(ss, pendingCounters);
+                    ss.clear();
+                }
+                if (inChunk >= commitEvery) {
+                    // the chunk's last messages commit together with their counters
+                    ss.flush();
+                    bumpUnread(ss, pendingCounters);
+                    ss.clear();
+                    tx.commit();
+                    sent += inChunk;
+                    inChunk = 0;
+                    tx = ss.beginTransaction();
+                }
+            }
+            ss.flush();
+            bumpUnread(ss, pendingCounters);
+            tx.commit();
+            sent += inChunk;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw new IllegalStateException("Broadcast stopped after " + sent + " of "
+                    + recipients.size() + " recipient(s): " + ex.getMessage(), ex);
+        } finally {
+            ss.close();
+        }
+
+        log.info("Broadcast from {} to {} ({}): {} message(s) in {} ms",
+                fromUser, audience, doctorId, sent, (System.nanoTime() - start) / 1_000_000);
+        return sent;
+    }
+
+    // one JDBC batch of counter upserts (rewritten to a single multi-row insert by the driver)
+    private static void bumpUnread(Session ss, List<Long> patientIds) {
+        if (patientIds.isEmpty()) return;
+        ss.doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(BUMP_UNREAD)) {
+                for (Long id : patientIds) {
+                    ps.setLong(1, id);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+        patientIds.clear();
+    }
+
+    private List<Long> recipients(Audience audience, Long doctorId) {
+        Session ss = sf.openSession();
+        try {
+            if (audience == Audience.DOCTOR_PATIENTS) {
+                return ss.createQuery(
+                        "select distinct a.patient.id from Appointment a where a.doctor.id = :did", Long.class)
+                    .setParameter("did", doctorId)
+                    .list();
+            }
+            return ss.createQuery("select p.id from Patient p", Long.class).list();
+        } finally {
+            ss.close();
+        }
+    }
+
+    /** Marks one message read; false if it was not an unread message of this patient. */
+    public boolean markRead(Long patientId, Long messageId) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            int changed = ss.createMutationQuery(
+                    "update Message m set m.readAt = :now " +
+                    "where m.id = :id and m.patient.id = :pid and m.readAt is null")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", messageId)
+                .setParameter("pid", patientId)
+                .executeUpdate();
+            if (changed > 0) {
+                ss.createMutationQuery(
+                        "update InboxCounter c set c.unread = c.unread - 1 " +
+                        "where c.patientId = :pid and c.unread > 0")
+                    .setParameter("pid", patientId)
+                    .executeUpdate();
+            }
+            tx.commit();
+            return changed > 0;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+    }
+
+    public int markAllRead(Long patientId) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            int changed = ss.createMutationQuery(
+                    "update Message m set m.readAt = :now where m.patient.id = :pid and m.readAt is null")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("pid", patientId)
+                .executeUpdate();
+            ss.createMutationQuery("update InboxCounter c set c.unread = 0 where c.patientId = :pid")
+                .setParameter("pid", patientId)
+                .executeUpdate();
+            tx.commit();
+            return changed;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // READ
+    // =================================================================================
+
+    public int unread(Long patientId) {
+        Session ss = sf.openSession();
+        try {
+            InboxCounter c = ss.get(InboxCounter.class, patientId);
+            return c != null ? Math.max(c.getUnread(), 0) : 0;
+        } finally {
+            ss.close();
+        }
+    }
+
+    /** Newest first, older than {@code beforeId} (null = from the newest). */
+    public Page inbox(Long patientId, Long beforeId, Integer pageSize) {
+        int size = pageSize != null && pageSize > 0 ? Math.min(pageSize, 100) : defaultPageSize;
+        List<MessageView> rows = views(
+                "where m.patient.id = :pid and (:before is null or m.id < :before) order by m.id desc",
+                patientId, "before", beforeId, size + 1);
+        boolean more = rows.size() > size;
+        if (more) rows = rows.subList(0, size);
+        Long next = more ? rows.get(rows.size() - 1).getId() : null;
+        return new Page(rows, next);
+    }
+
+    /**
+     * Messages sent from the overlap window before {@code after} (the newest sent_at the
+     * client has) onwards, oldest first. Includes messages the client already shows;
+     * callers drop those by id.
+     */
+    public List<MessageView> since(Long patientId, LocalDateTime after, Integer limit) {
+        int max = limit != null && limit > 0 ? Math.min(limit, 100) : defaultPageSize;
+        LocalDateTime from = after != null ? after.minusSeconds(sinceOverlapSeconds) : LocalDate.EPOCH.atStartOfDay();
+        return views("where m.patient.id = :pid and m.sentAt >= :from order by m.sentAt asc, m.id asc",
+                patientId, "from", from, max);
+    }
+
+    public List<MessageView> latest(Long patientId, int n) {
+        return inbox(patientId, null, n).getMessages();
+    }
+
+    private List<MessageView> views(String where, Long patientId, String param, Object value, int max) {
+        Session ss = sf.openSession();
+        try {
+            List<Object[]> rows = ss.createQuery(
+                    "select m.id, m.fromUser, m.text, m.sentAt, m.readAt from Message m " + where,
+                    Object[].class)
+                .setParameter("pid", patientId)
+                .setParameter(param, value)
+                .setMaxResults(max)
+                .list();
+            List<MessageView> out = new ArrayList<>(rows.size());
+            for (Object[] r : rows) {
+                out.add(new MessageView((Long) r[0], (String) r[1], (String) r[2],
+                        (LocalDateTime) r[3], (LocalDateTime) r[4]));
+            }
+            return out;
+        } finally {
+            ss.close();
+        }
+    }
+
+    // ---------- one inbox row (no Patient attached, safe to render or serialize) ----------
+    public static class MessageView {
+        private final Long id;
+        private final String fromUser;
+        private final String text;
+        private final LocalDateTime sentAt;
+        private final LocalDateTime readAt;
+
+        MessageView(Long id, String fromUser, String text, LocalDateTime sentAt, LocalDateTime readAt) {
+            this.id = id;
+            this.fromUser = fromUser;
+            this.text = text;
+            this.sentAt = sentAt;
+            this.readAt = readAt;
+        }
+
+        public Long getId() { return id; }
+        public String getFromUser() { return fromUser; }
+        public String getText() { return text; }
+        public LocalDateTime getSentAt() { return sentAt; }
+        public LocalDateTime getReadAt() { return readAt; }
+        public boolean isRead() { return readAt != null; }
+    }
+
+    // ---------- one inbox page; nextBefore is null on the last page ----------
+    public static class Page {
+        private final List<MessageView> messages;
+        private final Long nextBefore;
+
+        Page(List<MessageView> messages, Long nextBefore) {
+            this.messages = messages;
+            this.nextBefore = nextBefore;
+        }
+
+        public List<MessageView> getMessages() { return messages; }
+        public Long getNextBefore() { return nextBefore; }
+    }
+}
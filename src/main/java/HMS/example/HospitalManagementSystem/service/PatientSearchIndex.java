@@ -0,0 +1,361 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Patient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory typeahead index over patient name, email and phone for the admin screens.
+ *
+ * Two structures are kept:
+ *  - a sorted token map (name words, email, email local part, phone digits) for prefix lookups;
+ *  - a trigram posting map (name, email local part) for fuzzy matches when prefixes find too little.
+ *
+ * Loaded once in the background at startup, then updated by the controllers after each
+ * patient create / edit / delete commits. Reads are lock-free; writes are serialized.
+ */
+@Service
+public class PatientSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientSearchIndex.class);
+
+    private static final int LOAD_BATCH = 5000;
+    private static final int MAX_LIMIT = 50;
+    // upper bound on ids inspected per query, keeps very short prefixes cheap
+    private static final int MAX_CANDIDATES = 5000;
+    // fuzzy matching skips trigrams shared by more patients than this (after the rarest one)
+    private static final int MAX_POSTING = 20_000;
+    private static final double MIN_FUZZY_SCORE = 0.3;
+
+    @Autowired
+    private SessionFactory sf;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> prefixIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Long>> trigramIndex = new ConcurrentHashMap<>();
+
+    // ids removed while the startup load runs, so its older snapshot rows cannot bring them back
+    private final Set<Long> removedWhileLoading = new HashSet<>();
+
+    private volatile boolean loaded;
+
+    // =================================================================================
+    // LOADING
+    // =================================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread t = new Thread(this::loadAll, "patient-index-loader");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void loadAll() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                List<Object[]> rows;
+                Session ss = sf.openSession();
+                try {
+                    rows = ss.createQuery(
+                            "select p.id, p.name, p.email, p.phone from Patient p " +
+                            "where p.id > :last order by p.id", Object[].class)
+                        .setParameter("last", lastId)
+                        .setMaxResults(LOAD_BATCH)
+                        .list();
+                } finally {
+                    ss.close();
+                }
+                if (rows.isEmpty()) break;
+
+                for (Object[] r : rows) {
+                    Long id = (Long) r[0];
+                    putLoaded(id, (String) r[1], (String) r[2], (String) r[3]);
+                    lastId = id;
+                }
+                total += rows.size();
+            }
+            synchronized (this) {
+                removedWhileLoading.clear();
+                loaded = true;
+            }
+            log.info("Patient search index loaded {} patient(s) in {} ms", total, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Could not load patient search index: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // =================================================================================
+    // INCREMENTAL UPDATES (call after commit)
+    // =================================================================================
+
+    public void upsert(Patient p) {
+        if (p == null || p.getId() == null) return;
+        put(p.getId(), p.getName(), p.getEmail(), p.getPhone());
+    }
+
+    public synchronized void remove(Long patientId) {
+        if (!loaded) removedWhileLoading.add(patientId);
+        Entry old = entries.remove(patientId);
+        if (old != null) unindex(old);
+    }
+
+    // snapshot row from loadAll: an edit or delete that raced with loading wins over it
+    private synchronized void putLoaded(Long id, String name, String email, String phone) {
+        if (entries.containsKey(id) || removedWhileLoading.contains(id)) return;
+        put(id, name, email, phone);
+    }
+
+    private synchronized void put(Long id, String name, String email, String phone) {
+        Entry e = new Entry(id, name, email, phone);
+        Entry old = entries.put(id, e);
+        if (old != null) unindex(old);
+
+        for (String token : e.tokens) {
+            prefixIndex.computeIfAbsent(token, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        for (String tg : e.trigrams) {
+            trigramIndex.computeIfAbsent(tg, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void unindex(Entry e) {
+        for (String token : e.tokens) removePosting(prefixIndex, token, e.id);
+        for (String tg : e.trigrams) removePosting(trigramIndex, tg, e.id);
+    }
+
+    private static void removePosting(Map<String, Set<Long>> index, String key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) index.remove(key, ids);
+        }
+    }
+
+    // =================================================================================
+    // SEARCH
+    // =================================================================================
+
+    public List<Hit> search(String query, int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return new ArrayList<>();
+
+        // 1) prefix matches: every query term must prefix one of the patient's tokens
+        List<Hit> hits = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        String driver = terms.get(0);
+        for (String t : terms) if (t.length() > driver.length()) driver = t;
+
+        int inspected = 0;
+        NavigableMap<String, Set<Long>> range = prefixIndex.subMap(driver, true, driver + Character.MAX_VALUE, false);
+        outer:
+        for (Set<Long> ids : range.values()) {
+            for (Long id : ids) {
+                if (++inspected > MAX_CANDIDATES) break outer;
+                if (!seen.add(id)) continue;
+                Entry e = entries.get(id);
+                if (e != null && e.matchesAllPrefixes(terms)) {
+                    hits.add(new Hit(e, 1.0, "prefix"));
+                }
+            }
+        }
+        hits.sort(Comparator.comparing((Hit h) -> h.sortName));
+        if (hits.size() >= n) return new ArrayList<>(hits.subList(0, n));
+
+        // 2) fuzzy fill-up via trigram overlap
+        String joined = String.join(" ", terms);
+        Set<String> qGrams = trigrams(joined);
+        if (!qGrams.isEmpty()) {
+            List<Hit> fuzzy = fuzzy(qGrams, seen);
+            for (Hit h : fuzzy) {
+                if (hits.size() >= n) break;
+                hits.add(h);
+            }
+        }
+        return hits;
+    }
+
+    private List<Hit> fuzzy(Set<String> qGrams, Set<Long> exclude) {
+        // start from the rarest trigrams so candidate sets stay small
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String g : qGrams) {
+            Set<Long> ids = trigramIndex.get(g);
+            if (ids != null) postings.add(ids);
+        }
+        if (postings.isEmpty()) return Collections.emptyList();
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        // candidates come from the rare trigrams only; the walk stops at the cap
+        Set<Long> candidates = new HashSet<>();
+        collect:
+        for (int i = 0; i < postings.size(); i++) {
+            Set<Long> ids = postings.get(i);
+            // sorted by size, so every later list is common too
+            if (i > 0 && ids.size() > MAX_POSTING) break;
+            for (Long id : ids) {
+                if (exclude.contains(id)) continue;
+                candidates.add(id);
+                if (candidates.size() >= MAX_CANDIDATES) break collect;
+            }
+        }
+
+        List<Hit> out = new ArrayList<>();
+        for (Long id : candidates) {
+            Entry e = entries.get(id);
+            if (e == null) continue;
+            // Dice coefficient over trigram sets, counted on the entry (common trigrams included)
+            int shared = 0;
+            for (String g : qGrams) if (e.trigrams.contains(g)) shared++;
+            double score = 2.0 * shared / (qGrams.size() + e.trigrams.size());
+            if (score >= MIN_FUZZY_SCORE) out.add(new Hit(e, score, "fuzzy"));
+        }
+        out.sort(Comparator.comparingDouble((Hit h) -> h.score).reversed());
+        return out;
+    }
+
+    // =================================================================================
+    // NORMALIZATION
+    // =================================================================================
+
+    private static String norm(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String digits(String s) {
+        if (s == null) return "";
+        StringBuilder b = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') b.append(c);
+        }
+        return b.toString();
+    }
+
+    // Query terms: words, with phone-like words reduced to their digits
+    private static List<String> tokenize(String query) {
+        List<String> out = new ArrayList<>();
+        for (String w : norm(query).split("\\s+")) {
+            if (w.isEmpty()) continue;
+            String d = digits(w);
+            boolean phoneLike = !d.isEmpty() && d.length() * 2 >= w.replace("+", "").length();
+            out.add(phoneLike ? d : w);
+        }
+        return out;
+    }
+
+    private static Set<String> trigrams(String s) {
+        Set<String> out = new HashSet<>();
+        String padded = "  " + s + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            String g = padded.substring(i, i + 3);
+            if (!g.isBlank()) out.add(g);
+        }
+        return out;
+    }
+
+    // =================================================================================
+    // SMALL TYPES
+    // =================================================================================
+
+    private static final class Entry {
+        final Long id;
+        final String name;
+        final String email;
+        final String phone;
+        final Set<String> tokens = new LinkedHashSet<>();
+        final Set<String> trigrams;
+
+        Entry(Long id, String name, String email, String phone) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+
+            String n = norm(name);
+            for (String w : n.split("[\\s.\\-_]+")) if (!w.isEmpty()) tokens.add(w);
+
+            String em = norm(email);
+            if (!em.isEmpty()) {
+                tokens.add(em);
+                int at = em.indexOf('@');
+                if (at > 0) tokens.add(em.substring(0, at));
+            }
+
+            String ph = digits(phone);
+            if (!ph.isEmpty()) {
+                tokens.add(ph);
+                // allow searching without country code
+                if (ph.length() > 10) tokens.add(ph.substring(ph.length() - 10));
+            }
+
+            Set<String> g = trigrams(n);
+            int at = em.indexOf('@');
+            g.addAll(trigrams(at > 0 ? em.substring(0, at) : em));
+            this.trigrams = g;
+        }
+
+        boolean matchesAllPrefixes(List<String> terms) {
+            for (String t : terms) {
+                boolean ok = false;
+                for (String token : tokens) {
+                    if (token.startsWith(t)) { ok = true; break; }
+                }
+                if (!ok) return false;
+            }
+            return true;
+        }
+    }
+
+    // ---------- one typeahead result ----------
+    public static class Hit {
+        private final Long id;
+        private final String name;
+        private final String email;
+        private final String phone;
+        private final double score;
+        private final String match;
+        private final String sortName;
+        Hit(Entry e, double score, String match) {
+            this.id = e.id;
+            this.name = e.name;
+            this.email = e.email;
+            this.phone = e.phone;
+            this.score = score;
+            this.match = match;
+            this.sortName = norm(e.name);
+        }
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public String getPhone() { return phone; }
+        public double getScore() { return score; }
+        public String getMatch() { return match; }
+    }
+}
@@ -0,0 +1,438 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded Lucene index over the free-text columns of MedicalRecord
+ * (diagnosis, prescription, treatment, notes).
+ *
+ * Controllers report committed changes (recordChanged / recordDeleted / patientDeleted);
+ * a single indexer thread drains them in batches, reloads the rows from the DB and
+ * updates the index. The newest updatedAt indexed is kept in the Lucene commit data,
+ * so a restart only re-indexes what changed since then.
+ */
+@Service
+public class RecordSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordSearchService.class);
+
+    // ---------- index fields ----------
+    private static final String F_ID = "id";
+    private static final String F_PATIENT = "patientId";
+    private static final String F_DOCTOR = "doctorId";
+    private static final String F_DATE = "recordDate";
+    private static final String F_SNIPPET = "snippet";
+    private static final String F_DIAGNOSIS = "diagnosis";
+    private static final String F_PRESCRIPTION = "prescription";
+    private static final String F_TREATMENT = "treatment";
+    private static final String F_NOTES = "notes";
+
+    private static final String HWM_KEY = "updatedAtHwm";
+    private static final int SNIPPET_LENGTH = 160;
+    private static final int MAX_RESULTS = 100;
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Value("${app.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.index-dir:}")
+    private String indexDirProperty;
+
+    @Value("${app.search.batch-size:500}")
+    private int batchSize;
+
+    // changes committed within this window before the last run are re-indexed on startup
+    @Value("${app.search.catch-up-margin-minutes:5}")
+    private long catchUpMarginMinutes;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final BlockingQueue<Change> queue = new LinkedBlockingQueue<>();
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private LocalDateTime highWaterMark;
+
+    private Thread indexer;
+    private volatile boolean running;
+
+    // =================================================================================
+    // LIFECYCLE
+    // =================================================================================
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            log.info("Medical record search is disabled (app.search.enabled=false)");
+            return;
+        }
+
+        Path indexDir = (indexDirProperty == null || indexDirProperty.isBlank())
+                ? Paths.get(System.getProperty("user.dir"), "data", "search", "records")
+                : Paths.get(indexDirProperty.trim());
+
+        directory = FSDirectory.open(indexDir);
+        IndexWriterConfig cfg = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, cfg);
+        searcherManager = new SearcherManager(writer, null);
+
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> e : commitData) {
+                if (HWM_KEY.equals(e.getKey())) highWaterMark = LocalDateTime.parse(e.getValue());
+            }
+        }
+
+        running = true;
+        indexer = new Thread(this::runIndexer, "record-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+        log.info("Medical record index opened at {} (last indexed change: {})", indexDir, highWaterMark);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (indexer != null) {
+            indexer.interrupt();
+            try {
+                indexer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (searcherManager != null) searcherManager.close();
+            if (writer != null) writer.close();
+            if (directory != null) directory.close();
+        } catch (IOException e) {
+            log.warn("Error closing record index: {}", e.getMessage());
+        }
+    }
+
+    // =================================================================================
+    // CHANGE NOTIFICATIONS (call after the DB transaction committed)
+    // =================================================================================
+
+    public void recordChanged(Integer recordId) {
+        if (enabled && recordId != null) queue.offer(new Change(ChangeType.UPSERT, recordId.longValue()));
+    }
+
+    public void recordDeleted(Integer recordId) {
+        if (enabled && recordId != null) queue.offer(new Change(ChangeType.DELETE, recordId.longValue()));
+    }
+
+    public void patientDeleted(Long patientId) {
+        if (enabled && patientId != null) queue.offer(new Change(ChangeType.DELETE_PATIENT, patientId));
+    }
+
+    // =================================================================================
+    // SEARCH
+    // =================================================================================
+
+    /**
+     * Full-text search restricted to one patient and/or one doctor.
+     * At least one of patientId / doctorId must be given; the filter runs inside the index.
+     */
+    public List<Hit> search(String text, Long patientId, Long doctorId, int limit) throws IOException {
+        if (!enabled || text == null || text.isBlank()) return new ArrayList<>();
+        if (patientId == null && doctorId == null) {
+            throw new IllegalArgumentException("search must be scoped to a patient or a doctor");
+        }
+
+        Map<String, Float> weights = new HashMap<>();
+        weights.put(F_DIAGNOSIS, 2.0f);
+        weights.put(F_PRESCRIPTION, 1.5f);
+        weights.put(F_TREATMENT, 1.0f);
+        weights.put(F_NOTES, 1.0f);
+        Query textQuery = new SimpleQueryParser(analyzer, weights).parse(text.trim());
+
+        BooleanQuery.Builder b = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+        if (patientId != null) {
+            b.add(new TermQuery(new Term(F_PATIENT, patientId.toString())), BooleanClause.Occur.FILTER);
+        }
+        if (doctorId != null) {
+            b.add(new TermQuery(new Term(F_DOCTOR, doctorId.toString())), BooleanClause.Occur.FILTER);
+        }
+
+        int n = Math.max(1, Math.min(limit, MAX_RESULTS));
+        List<Hit> hits = new ArrayList<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(b.build(), n);
+            for (ScoreDoc sd : top.scoreDocs) {
+                Document d = searcher.doc(sd.doc);
+                String date = d.get(F_DATE);
+                hits.add(new Hit(
+                        Integer.valueOf(d.get(F_ID)),
+                        date != null ? LocalDate.parse(date) : null,
+                        d.get(F_SNIPPET),
+                        sd.score));
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+
+        attachNames(hits);
+        return hits;
+    }
+
+    // Resolve doctor/patient names for one page of hits and drop hits whose row is gone
+    private void attachNames(List<Hit> hits) {
+        if (hits.isEmpty()) return;
+
+        List<Integer> ids = new ArrayList<>();
+        for (Hit h : hits) ids.add(h.getRecordId());
+
+        Map<Integer, Object[]> rows = new HashMap<>();
+        Session ss = sf.openSession();
+        try {
+            List<Object[]> list = ss.createQuery(
+                    "select m.id, d.name, p.name from MedicalRecord m join m.doctor d join m.patient p " +
+                    "where m.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .list();
+            for (Object[] r : list) rows.put((Integer) r[0], r);
+        } finally {
+            ss.close();
+        }
+
+        hits.removeIf(h -> !rows.containsKey(h.getRecordId()));
+        for (Hit h : hits) {
+            Object[] r = rows.get(h.getRecordId());
+            h.doctorName = (String) r[1];
+            h.patientName = (String) r[2];
+        }
+    }
+
+    // =================================================================================
+    // INDEXER THREAD
+    // =================================================================================
+
+    private void runIndexer() {
+        try {
+            catchUp();
+        } catch (Exception e) {
+            log.error("Record index catch-up failed: {}", e.getMessage(), e);
+        }
+
+        List<Change> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Change first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Record indexing failed for {} change(s): {}", batch.size(), e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Re-index rows changed since the last committed high-water mark (all rows on first start)
+    private void catchUp() throws IOException {
+        LocalDateTime since = highWaterMark != null ? highWaterMark.minusMinutes(catchUpMarginMinutes) : null;
+        int lastId = 0;
+        int total = 0;
+
+        while (running) {
+            List<Integer> ids;
+            Session ss = sf.openSession();
+            try {
+                org.hibernate.query.Query<Integer> q = ss.createQuery(
+                        "select m.id from MedicalRecord m where m.id > :last " +
+                        (since != null ? "and m.updatedAt >= :since " : "") +
+                        "order by m.id", Integer.class);
+                q.setParameter("last", lastId);
+                if (since != null) q.setParameter("since", since);
+                q.setMaxResults(batchSize);
+                ids = q.list();
+            } finally {
+                ss.close();
+            }
+            if (ids.isEmpty()) break;
+
+            List<Change> batch = new ArrayList<>(ids.size());
+            for (Integer id : ids) batch.add(new Change(ChangeType.UPSERT, id.longValue()));
+            apply(batch);
+
+            lastId = ids.get(ids.size() - 1);
+            total += ids.size();
+        }
+
+        if (total > 0) log.info("Record index catch-up re-indexed {} record(s)", total);
+    }
+
+    private void apply(List<Change> batch) throws IOException {
+        Set<Integer> upserts = new LinkedHashSet<>();
+        for (Change c : batch) {
+            switch (c.type) {
+                case UPSERT:
+                    upserts.add((int) c.key);
+                    break;
+                case DELETE:
+                    upserts.remove((int) c.key);
+                    writer.deleteDocuments(new Term(F_ID, String.valueOf(c.key)));
+                    break;
+                case DELETE_PATIENT:
+                    writer.deleteDocuments(new Term(F_PATIENT, String.valueOf(c.key)));
+                    break;
+            }
+        }
+
+        if (!upserts.isEmpty()) {
+            List<Object[]> rows;
+            Session ss = sf.openSession();
+            try {
+                // Projection rather than entities: the text columns are lazy on MedicalRecord
+                rows = ss.createQuery(
+                        "select m.id, m.patient.id, m.doctor.id, m.recordDate, " +
+                        "m.diagnosis, m.prescription, m.treatment, m.notes, m.updatedAt " +
+                        "from MedicalRecord m where m.id in :ids", Object[].class)
+                    .setParameter("ids", upserts)
+                    .list();
+
+                for (Object[] row : rows) {
+                    Integer id = (Integer) row[0];
+                    LocalDateTime updatedAt = (LocalDateTime) row[8];
+                    upserts.remove(id);
+                    writer.updateDocument(new Term(F_ID, String.valueOf(id)), toDocument(row));
+                    if (updatedAt != null
+                            && (highWaterMark == null || updatedAt.isAfter(highWaterMark))) {
+                        highWaterMark = updatedAt;
+                    }
+                }
+            } finally {
+                ss.close();
+            }
+
+            // ids that no longer exist in the DB
+            for (Integer gone : upserts) {
+                writer.deleteDocuments(new Term(F_ID, String.valueOf(gone)));
+            }
+        }
+
+        if (highWaterMark != null) {
+            writer.setLiveCommitData(Map.of(HWM_KEY, highWaterMark.toString()).entrySet());
+        }
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    // row: id, patientId, doctorId, recordDate, diagnosis, prescription, treatment, notes, updatedAt
+    private static Document toDocument(Object[] row) {
+        String diagnosis = (String) row[4];
+        Document d = new Document();
+        d.add(new StringField(F_ID, String.valueOf(row[0]), Field.Store.YES));
+        d.add(new StringField(F_PATIENT, String.valueOf(row[1]), Field.Store.NO));
+        d.add(new StringField(F_DOCTOR, String.valueOf(row[2]), Field.Store.NO));
+        if (row[3] != null) {
+            d.add(new StoredField(F_DATE, row[3].toString()));
+        }
+        addText(d, F_DIAGNOSIS, diagnosis);
+        addText(d, F_PRESCRIPTION, (String) row[5]);
+        addText(d, F_TREATMENT, (String) row[6]);
+        addText(d, F_NOTES, (String) row[7]);
+
+        String snippet = diagnosis != null ? diagnosis : "";
+        if (snippet.length() > SNIPPET_LENGTH) snippet = snippet.substring(0, SNIPPET_LENGTH) + "...";
+        d.add(new StoredField(F_SNIPPET, snippet));
+        return d;
+    }
+
+    private static void addText(Document d, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            d.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    // =================================================================================
+    // SMALL TYPES
+    // =================================================================================
+
+    private enum ChangeType { UPSERT, DELETE, DELETE_PATIENT }
+
+    private static class Change {
+        final ChangeType type;
+        final long key;   // record id, or patient id for DELETE_PATIENT
+        Change(ChangeType type, long key) {
+            this.type = type;
+            this.key = key;
+        }
+    }
+
+    // ---------- one search result ----------
+    public static class Hit {
+        private final Integer recordId;
+        private final LocalDate recordDate;
+        private final String snippet;
+        private final float score;
+        private String doctorName;
+        private String patientName;
+        public Hit(Integer recordId, LocalDate recordDate, String snippet, float score) {
+            this.recordId = recordId;
+            this.recordDate = recordDate;
+            this.snippet = snippet;
+            this.score = score;
+        }
+        public Integer getRecordId() { return recordId; }
+        public LocalDate getRecordDate() { return recordDate; }
+        public String getSnippet() { return snippet; }
+        public float getScore() { return score; }
+        public String getDoctorName() { return doctorName; }
+        public String getPatientName() { return patientName; }
+    }
+}
@@ -0,0 +1,402 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends appointment reminders (email + inbox message) at fixed offsets before
+ * each open appointment, e.g. 24 hours and 1 hour.
+ *
+ * Pending reminders live in a {@link TimingWheel}: one small object per reminder,
+ * one thread ticking the whole wheel, no per-reminder timers. Only reminders due
+ * within {@code app.reminders.window-minutes} are loaded; the window slides forward
+ * every {@code app.reminders.load-every-ms}, and after a restart just the next window
+ * is read again (plus {@code app.reminders.catch-up-minutes} of missed ones).
+ *
+ * Bookings and reschedules add reminders through Hibernate post-commit events.
+ * Edits and cancels never search the wheel: each reminder carries the appointment
+ * time it was planned for, and at fire time it is dropped unless the appointment
+ * is still open at that time. The appointment_reminder table makes every reminder
+ * at-most-once across restarts and instances.
+ */
+@Service
+public class ReminderService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderService.class);
+
+    private static final List<AppointmentStatus> OPEN = List.of(AppointmentStatus.BOOKED, AppointmentStatus.SCHEDULED);
+
+    private static final String CLAIM =
+            "insert ignore into appointment_reminder (appointment_id, offset_minutes, appointment_time, sent_at) " +
+            "values (?1, ?2, ?3, ?4)";
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Value("${app.reminders.enabled:true}")
+    private boolean enabled;
+
+    // minutes before the appointment
+    @Value("${app.reminders.offsets-minutes:1440,60}")
+    private int[] offsets;
+
+    @Value("${app.reminders.window-minutes:360}")
+    private int windowMinutes;
+
+    @Value("${app.reminders.catch-up-minutes:30}")
+    private int catchUpMinutes;
+
+    @Value("${app.reminders.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.reminders.inbox:true}")
+    private boolean toInbox;
+
+    private TimingWheel<Reminder> wheel;
+    private ScheduledExecutorService ticker;
+    private ExecutorService sender;
+
+    // reminders firing before this instant are in the wheel; later ones come with the next window
+    private volatile LocalDateTime horizon;
+
+    @PostConstruct
+    void init() {
+        wheel = new TimingWheel<>(tickMs, 4, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "reminder-wheel"));
+        sender = Executors.newSingleThreadExecutor(r -> daemon(r, "reminder-sender"));
+
+        EventListenerRegistry registry = sf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        AppointmentListener listener = new AppointmentListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+        sender.shutdown();
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Appointment reminders are disabled");
+            return;
+        }
+        horizon = LocalDateTime.now().minusMinutes(catchUpMinutes);
+        loadNextWindow();
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    // =================================================================================
+    // LOAD
+    // =================================================================================
+
+    /** Moves the horizon to now + window and loads the reminders that fall in between. */
+    @Scheduled(initialDelayString = "${app.reminders.load-every-ms:600000}",
+               fixedDelayString = "${app.reminders.load-every-ms:600000}")
+    public synchronized void loadNextWindow() {
+        if (!enabled || horizon == null) return;
+        LocalDateTime from = horizon;
+        LocalDateTime to = LocalDateTime.now().plusMinutes(windowMinutes);
+        if (!to.isAfter(from)) return;
+        // move first: a booking committed from now on is scheduled by its event
+        horizon = to;
+
+        int loaded = 0;
+        Session ss = sf.openSession();
+        try {
+            for (int offset : offsets) {
+                try (ScrollableResults<Object[]> rows = ss.createQuery(
+                        "select a.id, a.appointmentTime from Appointment a " +
+                        "where a.status in :open and a.appointmentTime >= :from and a.appointmentTime < :to",
+                        Object[].class)
+                    .setParameter("open", OPEN)
+                    .setParameter("from", from.plusMinutes(offset))
+                    .setParameter("to", to.plusMinutes(offset))
+                    .setReadOnly(true)
+                    .setFetchSize(Integer.MIN_VALUE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (rows.next()) {
+                        Object[] r = rows.get();
+                        schedule((Long) r[0], (LocalDateTime) r[1], offset);
+                        loaded++;
+                    }
+                }
+            }
+            log.debug("Reminder window {} .. {}: {} loaded, {} pending", from, to, loaded, pending());
+        } catch (Exception ex) {
+            log.error("Loading reminders for {} .. {} failed: {}", from, to, ex.getMessage(), ex);
+        } finally {
+            ss.close();
+        }
+    }
+
+    /**
+     * Adds the reminders of one appointment that fall inside the loaded window. For
+     * changes made with bulk HQL, which bypass the post-commit events.
+     */
+    public void appointmentScheduled(Long appointmentId, LocalDateTime time) {
+        LocalDateTime h = horizon;
+        if (!enabled || h == null || appointmentId == null || time == null) return;
+        LocalDateTime now = LocalDateTime.now();
+        for (int offset : offsets) {
+            LocalDateTime fire = time.minusMinutes(offset);
+            // already past: an "in 1 hour" reminder 20 minutes before would be wrong
+            if (!fire.isBefore(now) && fire.isBefore(h)) schedule(appointmentId, time, offset);
+        }
+    }
+
+    private void schedule(Long appointmentId, LocalDateTime time, int offset) {
+        long fireAt = time.minusMinutes(offset).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Reminder r = new Reminder(appointmentId, time.toEpochSecond(ZoneOffset.UTC) / 60, offset);
+        synchronized (wheel) {
+            wheel.schedule(fireAt, r);
+        }
+    }
+
+    // =================================================================================
+    // FIRE
+    // =================================================================================
+
+    private void tick() {
+        try {
+            List<Reminder> due;
+            synchronized (wheel) {
+                due = wheel.advance(System.currentTimeMillis());
+            }
+            // SMTP must never stall the wheel
+            if (!due.isEmpty()) sender.execute(() -> deliver(due));
+        } catch (Throwable t) {
+            log.error("Reminder tick failed: {}", t.toString(), t);
+        }
+    }
+
+    private void deliver(List<Reminder> due) {
+        for (int i = 0; i < due.size(); i += 500) {
+            List<Reminder> chunk = due.subList(i, Math.min(due.size(), i + 500));
+            try {
+                deliverChunk(chunk);
+            } catch (Exception ex) {
+                log.error("Sending {} reminder(s) failed: {}", chunk.size(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private void deliverChunk(List<Reminder> chunk) {
+        Map<Long, Object[]> rows = new HashMap<>();
+        Session ss = sf.openSession();
+        try {
+            for (Object[] r : ss.createQuery(
+                    "select a.id, a.appointmentTime, a.status, a.appointmentNumber, p.id, p.name, p.email, d.name " +
+                    "from Appointment a join a.patient p left join a.doctor d where a.id in :ids", Object[].class)
+                    .setParameter("ids", chunk.stream().map(r -> r.appointmentId).distinct().toList())
+                    .list()) {
+                rows.put((Long) r[0], r);
+            }
+        } finally {
+            ss.close();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int sent = 0;
+        for (Reminder rem : chunk) {
+            Object[] r = rows.get(rem.appointmentId);
+            if (r == null) continue; // deleted
+            LocalDateTime time = (LocalDateTime) r[1];
+            // cancelled, completed or moved since it was planned: this reminder is stale
+            if (!OPEN.contains((AppointmentStatus) r[2]) || time == null
+                    || time.toEpochSecond(ZoneOffset.UTC) / 60 != rem.appointmentMinute
+                    || !time.isAfter(now)) continue;
+            if (!claim(rem, time)) continue;
+
+            String lead = lead(rem.offsetMinutes);
+            Long patientId = (Long) r[4];
+            String number = (String) r[3];
+            String doctor = r[7] != null ? (String) r[7] : "your doctor";
+            if (r[6] != null) {
+                emailService.sendAppointmentReminder((String) r[6], (String) r[5], number, doctor, time, lead);
+            }
+            if (toInbox) {
+                try {
+                    messageService.send(patientId, "Reminders",
+                            "Your appointment " + (number != null ? number + " " : "") + "with Dr. " + doctor
+                            + " is " + lead + " (" + time.toLocalDate() + " " + time.toLocalTime() + ").");
+                } catch (Exception ex) {
+                    log.warn("Reminder inbox message for appointment {} failed: {}", rem.appointmentId, ex.getMessage());
+                }
+            }
+            sent++;
+        }
+        if (sent > 0) log.info("Sent {} appointment reminder(s)", sent);
+    }
+
+    // first instance to insert the row sends the reminder
+    private boolean claim(Reminder rem, LocalDateTime time) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            int inserted = ss.createNativeMutationQuery(CLAIM)
+                    .setParameter(1, rem.appointmentId)
+                    .setParameter(2, rem.offsetMinutes)
+                    .setParameter(3, time)
+                    .setParameter(4, LocalDateTime.now())
+                    .executeUpdate();
+            tx.commit();
+            return inserted > 0;
+        } catch (Exception ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            log.warn("Could not record reminder for appointment {}: {}", rem.appointmentId, ex.getMessage());
+            return false;
+        } finally {
+            ss.close();
+        }
+    }
+
+    private static String lead(int offsetMinutes) {
+        if (offsetMinutes % 1440 == 0) {
+            int days = offsetMinutes / 1440;
+            return days == 1 ? "tomorrow" : "in " + days + " days";
+        }
+        if (offsetMinutes % 60 == 0) {
+            int hours = offsetMinutes / 60;
+            return hours == 1 ? "in 1 hour" : "in " + hours + " hours";
+        }
+        return "in " + offsetMinutes + " minutes";
+    }
+
+    /** Drops sent-reminder rows for appointments long past. */
+    @Scheduled(cron = "${app.reminders.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            int n = ss.createMutationQuery("delete from AppointmentReminder r where r.appointmentTime < :cutoff")
+                    .setParameter("cutoff", LocalDateTime.now().minusDays(30))
+                    .executeUpdate();
+            tx.commit();
+            if (n > 0) log.info("Purged {} old reminder record(s)", n);
+        } catch (Exception ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            log.warn("Purging reminder records failed: {}", ex.getMessage());
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // POST-COMMIT EVENTS
+    // =================================================================================
+
+    private class AppointmentListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (!(event.getEntity() instanceof Appointment ap)) return;
+            if (OPEN.contains(ap.getStatus())) appointmentScheduled(ap.getId(), ap.getAppointmentTime());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!(event.getEntity() instanceof Appointment ap)) return;
+            if (!OPEN.contains(ap.getStatus())) return; // stale reminders are dropped at fire time
+            Object[] before = event.getOldState();
+            if (before != null) {
+                String[] names = event.getPersister().getPropertyNames();
+                boolean wasOpen = OPEN.contains(value(names, before, "status"));
+                boolean sameTime = Objects.equals(value(names, before, "appointmentTime"), ap.getAppointmentTime());
+                if (wasOpen && sameTime) return; // reminders already planned
+            }
+            appointmentScheduled(ap.getId(), ap.getAppointmentTime());
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) { }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) { }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return Appointment.class.equals(persister.getMappedClass());
+        }
+    }
+
+    private static Object value(String[] names, Object[] state, String property) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return state[i];
+        }
+        return null;
+    }
+
+    // ---------- one pending reminder: 2 longs and an int ----------
+    private static final class Reminder {
+        final long appointmentId;
+        final long appointmentMinute; // appointment time as epoch minute, local clock read as UTC
+        final int offsetMinutes;
+
+        Reminder(long appointmentId, long appointmentMinute, int offsetMinutes) {
+            this.appointmentId = appointmentId;
+            this.appointmentMinute = appointmentMinute;
+            this.offsetMinutes = offsetMinutes;
+        }
+    }
+}
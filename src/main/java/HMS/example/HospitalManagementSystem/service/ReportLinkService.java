@@ -0,0 +1,94 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.RecordReport;
+import jakarta.annotation.PostConstruct;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Signed, expiring download links for report files.
+ * Token format: {@code <expiryEpochSeconds>.<base64url HMAC-SHA256("reportId:expiry")>}.
+ */
+@Service
+public class ReportLinkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportLinkService.class);
+
+    private static final String HMAC_ALGO = "HmacSHA256";
+
+    @Value("${app.reports.link-secret:}")
+    private String secret;
+
+    @Value("${app.reports.link-ttl-hours:72}")
+    private long ttlHours;
+
+    @Value("${app.base-url:http://localhost:8080}")
+    private String baseUrl;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    void init() {
+        byte[] raw;
+        if (secret == null || secret.isBlank()) {
+            raw = new byte[32];
+            new SecureRandom().nextBytes(raw);
+            log.warn("app.reports.link-secret is not set; report download links will not survive a restart.");
+        } else {
+            raw = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        key = new SecretKeySpec(raw, HMAC_ALGO);
+    }
+
+    public long getTtlHours() {
+        return ttlHours;
+    }
+
+    public String createLink(RecordReport rr) {
+        long expiry = Instant.now().plus(Duration.ofHours(ttlHours)).getEpochSecond();
+        String token = expiry + "." + sign(rr.getId(), expiry);
+        return baseUrl + "/records/files/" + rr.getId() + "?token=" + token;
+    }
+
+    public boolean isValid(Integer reportId, String token) {
+        if (reportId == null || token == null) return false;
+
+        int dot = token.indexOf('.');
+        if (dot <= 0) return false;
+
+        long expiry;
+        try {
+            expiry = Long.parseLong(token.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Instant.now().getEpochSecond() > expiry) return false;
+
+        byte[] expected = sign(reportId, expiry).getBytes(StandardCharsets.US_ASCII);
+        byte[] given = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, given);
+    }
+
+    private String sign(Integer reportId, long expiry) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGO);
+            mac.init(key);
+            byte[] sig = mac.doFinal((reportId + ":" + expiry).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sig);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not sign report link", e);
+        }
+    }
+}
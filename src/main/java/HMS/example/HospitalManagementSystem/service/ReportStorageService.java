@@ -0,0 +1,310 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import HMS.example.HospitalManagementSystem.model.MedicalRecord;
+import HMS.example.HospitalManagementSystem.model.RecordReport;
+import HMS.example.HospitalManagementSystem.model.StorageTier;
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Single entry point for storing uploaded medical report files.
+ * Every stored file gets a RecordReport row carrying its storage key,
+ * size, SHA-256 checksum and content type, so readers never need to stat the disk.
+ * Files start in the hot tier; ReportTieringJob later moves aged ones to the cold tier.
+ */
+@Service
+public class ReportStorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportStorageService.class);
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int IO_BUFFER = 64 * 1024;
+
+    // Formats that are already compressed; gzip would only burn CPU on them
+    private static final Set<String> INCOMPRESSIBLE_TYPES = Set.of(
+            "image/jpeg", "image/png", "image/gif", "image/webp",
+            "application/zip", "application/gzip", "application/x-gzip",
+            "application/x-7z-compressed", "application/x-rar-compressed");
+
+    // Hot tier: <project-dir>/uploads/reports
+    private final Path storageDir = Paths.get(System.getProperty("user.dir"), "uploads", "reports");
+
+    // Cold tier: separate directory or mount, defaults to <project-dir>/uploads/reports-cold
+    @Value("${app.reports.cold-dir:}")
+    private String coldDirProperty;
+
+    // keep the gzip copy only if it is at most this fraction of the original
+    @Value("${app.reports.tiering.min-compression-ratio:0.9}")
+    private double minCompressionRatio;
+
+    private Path coldDir;
+
+    public ReportStorageService() {
+        try {
+            Files.createDirectories(storageDir);
+        } catch (IOException e) {
+            log.error("Could not create storage dir {}: {}", storageDir, e.getMessage());
+        }
+    }
+
+    @PostConstruct
+    void initColdDir() {
+        coldDir = (coldDirProperty == null || coldDirProperty.isBlank())
+                ? Paths.get(System.getProperty("user.dir"), "uploads", "reports-cold")
+                : Paths.get(coldDirProperty.trim());
+        try {
+            Files.createDirectories(coldDir);
+        } catch (IOException e) {
+            log.error("Could not create cold storage dir {}: {}", coldDir, e.getMessage());
+        }
+    }
+
+    // =================================================================================
+    // INGEST
+    // =================================================================================
+
+    /**
+     * Stores every non-empty upload and saves its metadata in the caller's session.
+     * Files already written are removed again if a later one fails.
+     */
+    public List<RecordReport> ingestAll(MultipartFile[] files, MedicalRecord mr, Session ss) throws IOException {
+        List<RecordReport> stored = new ArrayList<>();
+        if (files == null) return stored;
+
+        try {
+            for (MultipartFile f : files) {
+                if (f != null && !f.isEmpty()) {
+                    stored.add(ingest(f, mr, ss));
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            discard(stored);
+            throw ex;
+        }
+        return stored;
+    }
+
+    public RecordReport ingest(MultipartFile f, MedicalRecord mr, Session ss) throws IOException {
+        String original = StringUtils.cleanPath(f.getOriginalFilename() != null ? f.getOriginalFilename() : "report");
+        String ext = "";
+        int idx = original.lastIndexOf('.');
+        if (idx >= 0) ext = original.substring(idx);
+
+        String storageKey = UUID.randomUUID().toString() + ext;
+        Path target = storageDir.resolve(storageKey);
+
+        // Stream to a temp file while hashing, then move into place
+        Path tmp = Files.createTempFile(storageDir, "upload-", ".part");
+        long size;
+        String checksum;
+        try {
+            MessageDigest md = sha256();
+            try (InputStream in = new DigestInputStream(f.getInputStream(), md)) {
+                size = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            checksum = HexFormat.of().formatHex(md.digest());
+            moveIntoPlace(tmp, target);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+
+        RecordReport rr = new RecordReport();
+        rr.setFileName(storageKey);
+        rr.setOriginalName(original);
+        rr.setContentType(resolveContentType(f.getContentType(), target));
+        rr.setFileSize(size);
+        rr.setStoredSize(size);
+        rr.setChecksum(checksum);
+        rr.setStorageTier(StorageTier.HOT);
+        rr.setCompressed(Boolean.FALSE);
+        rr.setMedicalRecord(mr);
+        rr.setUploadedAt(LocalDateTime.now());
+
+        ss.save(rr);
+        log.info("Stored report {} ({} bytes) for record {}", storageKey, size, mr.getId());
+        return rr;
+    }
+
+    // =================================================================================
+    // LOOKUP / CLEANUP
+    // =================================================================================
+
+    /** Location of the stored copy in whichever tier the report currently lives. */
+    public Path resolve(RecordReport rr) {
+        if (rr.getStorageTier() == StorageTier.COLD) {
+            return coldDir.resolve(rr.getFileName() + (rr.isCompressed() ? GZIP_SUFFIX : ""));
+        }
+        return storageDir.resolve(rr.getFileName());
+    }
+
+    /** Opens the original content, decompressing cold copies on the fly. */
+    public InputStream openStream(RecordReport rr) throws IOException {
+        InputStream in = Files.newInputStream(resolve(rr));
+        return rr.isCompressed() ? new GZIPInputStream(in, IO_BUFFER) : in;
+    }
+
+    /** Best-effort removal of stored files, e.g. after the owning transaction rolled back. */
+    public void discard(List<RecordReport> reports) {
+        if (reports == null) return;
+        for (RecordReport rr : reports) {
+            try {
+                Files.deleteIfExists(resolve(rr));
+            } catch (IOException e) {
+                log.warn("Could not remove stored report {}: {}", rr.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    // =================================================================================
+    // TIERING (used by ReportTieringJob)
+    // =================================================================================
+
+    /**
+     * Writes the cold-tier copy of a hot report to a temp file of its own in the cold
+     * dir: gzip when the format benefits, a plain copy otherwise. Nothing under the
+     * report's cold name changes until {@link #publishColdCopy} is called by the node
+     * whose guarded UPDATE won; the others {@link #discardColdCopy} their temp file.
+     */
+    public ColdCopy writeColdCopy(RecordReport rr) throws IOException {
+        Path hot = storageDir.resolve(rr.getFileName());
+        long originalSize = Files.size(hot);
+
+        if (isCompressible(rr.getContentType())) {
+            Path tmp = Files.createTempFile(coldDir, "tier-", ".part");
+            boolean keep = false;
+            try {
+                try (InputStream in = Files.newInputStream(hot);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), IO_BUFFER)) {
+                    in.transferTo(out);
+                }
+                long packedSize = Files.size(tmp);
+                if (packedSize <= originalSize * minCompressionRatio) {
+                    keep = true;
+                    return new ColdCopy(tmp, true, originalSize, packedSize);
+                }
+            } finally {
+                if (!keep) Files.deleteIfExists(tmp);
+            }
+        }
+
+        Path tmp = Files.createTempFile(coldDir, "tier-", ".part");
+        try {
+            Files.copy(hot, tmp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return new ColdCopy(tmp, false, originalSize, originalSize);
+    }
+
+    /** Renames the temp copy to the report's cold name; call while holding the won row. */
+    public void publishColdCopy(RecordReport rr, ColdCopy copy) throws IOException {
+        moveIntoPlace(copy.temp, coldDir.resolve(rr.getFileName() + (copy.isCompressed() ? GZIP_SUFFIX : "")));
+    }
+
+    /** Removes this node's temp copy only; a published file belongs to the row that points at it. */
+    public void discardColdCopy(ColdCopy copy) {
+        deleteQuietly(copy.temp);
+    }
+
+    public void deleteHotCopy(RecordReport rr) {
+        deleteQuietly(storageDir.resolve(rr.getFileName()));
+    }
+
+    // ---------- result of writeColdCopy ----------
+    public static class ColdCopy {
+        private final Path temp;
+        private final boolean compressed;
+        private final long originalSize;
+        private final long storedSize;
+        ColdCopy(Path temp, boolean compressed, long originalSize, long storedSize) {
+            this.temp = temp;
+            this.compressed = compressed;
+            this.originalSize = originalSize;
+            this.storedSize = storedSize;
+        }
+        public boolean isCompressed() { return compressed; }
+        public long getOriginalSize() { return originalSize; }
+        public long getStoredSize() { return storedSize; }
+    }
+
+    // =================================================================================
+    // HELPERS
+    // =================================================================================
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) return true;
+        String ct = contentType.toLowerCase(Locale.ROOT);
+        int semi = ct.indexOf(';');
+        if (semi >= 0) ct = ct.substring(0, semi).trim();
+        return !INCOMPRESSIBLE_TYPES.contains(ct)
+                && !ct.startsWith("video/")
+                && !ct.startsWith("audio/");
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.warn("Could not remove {}: {}", p, e.getMessage());
+        }
+    }
+
+
+    private static void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String resolveContentType(String declared, Path file) {
+        if (declared != null && !declared.isBlank()) return declared;
+        try {
+            String probed = Files.probeContentType(file);
+            if (probed != null) return probed;
+        } catch (IOException ignored) {
+        }
+        return DEFAULT_CONTENT_TYPE;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import HMS.example.HospitalManagementSystem.model.RecordReport;
+import HMS.example.HospitalManagementSystem.model.StorageTier;
+
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job that moves report files older than the configured age
+ * from the hot tier to the cold tier (gzip-compressed where it pays off).
+ * Candidates are read in id-ordered batches; each file is switched over
+ * with a guarded UPDATE so two nodes never migrate the same report. The cold copy
+ * is written under a temp name and only renamed into place by the node whose
+ * UPDATE matched, before it commits; a losing node just deletes its temp file.
+ */
+@Component
+public class ReportTieringJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportTieringJob.class);
+
+    private final SessionFactory sf;
+    private final ReportStorageService storage;
+
+    private final Counter migratedCounter;
+    private final Counter bytesSavedCounter;
+    private final AtomicLong coldBytesSaved = new AtomicLong();
+
+    @Value("${app.reports.tiering.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.reports.tiering.age-days:180}")
+    private int ageDays;
+
+    @Value("${app.reports.tiering.batch-size:50}")
+    private int batchSize;
+
+    public ReportTieringJob(SessionFactory sf, ReportStorageService storage, MeterRegistry registry) {
+        this.sf = sf;
+        this.storage = storage;
+        this.migratedCounter = registry.counter("hms.reports.tiering.migrated");
+        this.bytesSavedCounter = registry.counter("hms.reports.tiering.bytes.saved");
+        registry.gauge("hms.reports.cold.bytes.saved", coldBytesSaved);
+    }
+
+    @Scheduled(initialDelayString = "${app.reports.tiering.initial-delay-ms:60000}",
+               fixedDelayString = "${app.reports.tiering.interval-ms:3600000}")
+    public void migrateAgedReports() {
+        if (!enabled) return;
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ageDays);
+        int lastId = 0;
+        int migrated = 0;
+
+        while (true) {
+            List<RecordReport> batch = loadBatch(cutoff, lastId);
+            if (batch.isEmpty()) break;
+
+            for (RecordReport rr : batch) {
+                lastId = rr.getId();
+                if (migrate(rr)) migrated++;
+            }
+        }
+
+        refreshTotals();
+        if (migrated > 0) {
+            log.info("Report tiering: moved {} report(s) to cold storage, {} bytes saved overall",
+                    migrated, coldBytesSaved.get());
+        }
+    }
+
+    // ---------- candidates: hot reports uploaded before the cutoff ----------
+    private List<RecordReport> loadBatch(LocalDateTime cutoff, int afterId) {
+        Session ss = sf.openSession();
+        try {
+            return ss.createQuery(
+                    "from RecordReport r " +
+                    "where (r.storageTier is null or r.storageTier = :hot) " +
+                    "and r.uploadedAt < :cutoff and r.id > :after " +
+                    "order by r.id",
+                    RecordReport.class)
+                .setParameter("hot", StorageTier.HOT)
+                .setParameter("cutoff", cutoff)
+                .setParameter("after", afterId)
+                .setMaxResults(batchSize)
+                .list();
+        } finally {
+            ss.close();
+        }
+    }
+
+    private boolean migrate(RecordReport rr) {
+        ReportStorageService.ColdCopy copy;
+        try {
+            copy = storage.writeColdCopy(rr);
+        } catch (NoSuchFileException e) {
+            log.warn("Report {} has no file on disk ({}), skipping", rr.getId(), rr.getFileName());
+            return false;
+        } catch (Exception e) {
+            log.error("Could not write cold copy of report {}: {}", rr.getId(), e.getMessage());
+            return false;
+        }
+
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            int updated = ss.createMutationQuery(
+                    "update RecordReport r set r.storageTier = :cold, r.compressed = :c, " +
+                    "r.storedSize = :stored, r.fileSize = coalesce(r.fileSize, :orig) " +
+                    "where r.id = :id and (r.storageTier is null or r.storageTier = :hot)")
+                .setParameter("cold", StorageTier.COLD)
+                .setParameter("hot", StorageTier.HOT)
+                .setParameter("c", copy.isCompressed())
+                .setParameter("stored", copy.getStoredSize())
+                .setParameter("orig", copy.getOriginalSize())
+                .setParameter("id", rr.getId())
+                .executeUpdate();
+
+            if (updated != 1) {
+                // already migrated (or deleted) elsewhere: the cold file is the winner's
+                tx.rollback();
+                storage.discardColdCopy(copy);
+                return false;
+            }
+            // the row lock keeps other nodes out until commit
+            storage.publishColdCopy(rr, copy);
+            tx.commit();
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            // if already published, the file stays: the next winner replaces it atomically
+            storage.discardColdCopy(copy);
+            log.error("Could not switch report {} to cold storage: {}", rr.getId(), e.getMessage());
+            return false;
+        } finally {
+            ss.close();
+        }
+
+        storage.deleteHotCopy(rr);
+        migratedCounter.increment();
+        bytesSavedCounter.increment(copy.getOriginalSize() - copy.getStoredSize());
+        return true;
+    }
+
+    // ---------- total bytes saved by cold-tier compression (for the gauge) ----------
+    private void refreshTotals() {
+        Session ss = sf.openSession();
+        try {
+            Long saved = ss.createQuery(
+                    "select sum(r.fileSize - r.storedSize) from RecordReport r " +
+                    "where r.storageTier = :cold and r.compressed = true",
+                    Long.class)
+                .setParameter("cold", StorageTier.COLD)
+                .uniqueResult();
+            coldBytesSaved.set(saved != null ? saved : 0L);
+        } catch (Exception e) {
+            log.warn("Could not refresh tiering totals: {}", e.getMessage());
+        } finally {
+            ss.close();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: schedules many deadlines with O(1) insert and a
+ * constant amount of work per tick, without a thread or a heap entry per timer.
+ *
+ * Each level has 64 buckets; a bucket of level L spans 64^L ticks. A timer goes
+ * into the lowest level whose current rotation already contains its deadline, and
+ * drops one level each time its bucket comes round ("cascades") until it reaches
+ * level 0 and fires on its exact tick. Timers beyond the top level wait in an
+ * overflow list that is re-sorted once per top-level rotation.
+ *
+ * Not thread-safe on its own; callers synchronize on the wheel.
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickMs;
+    private final int levels;
+    private final Timer<T>[][] heads; // [level][slot] -> first timer of the bucket
+    private Timer<T> overflow;
+
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int levels, long startMs) {
+        if (tickMs <= 0 || levels < 1 || levels > 8) throw new IllegalArgumentException("bad wheel shape");
+        this.tickMs = tickMs;
+        this.levels = levels;
+        this.heads = new Timer[levels][SLOTS];
+        this.currentTick = startMs / tickMs;
+    }
+
+    /** Schedules {@code payload} for {@code deadlineMs}; a deadline in the past fires on the next tick. */
+    public Timer<T> schedule(long deadlineMs, T payload) {
+        Timer<T> t = new Timer<>(Math.max(deadlineMs / tickMs, currentTick + 1), payload);
+        place(t);
+        size++;
+        return t;
+    }
+
+    public boolean cancel(Timer<T> t) {
+        if (!t.scheduled) return false;
+        unlink(t);
+        size--;
+        return true;
+    }
+
+    /** Moves the wheel up to {@code nowMs} and returns the payloads that came due, in deadline order. */
+    public List<T> advance(long nowMs) {
+        long target = nowMs / tickMs;
+        List<T> due = new ArrayList<>();
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            Timer<T> t = heads[0][(int) (currentTick & MASK)];
+            while (t != null) {
+                Timer<T> next = t.next;
+                unlink(t);
+                if (t.deadlineTick <= currentTick) {
+                    size--;
+                    due.add(t.payload);
+                } else {
+                    place(t); // came from the overflow list with a later deadline
+                }
+                t = next;
+            }
+        }
+        return due;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long tickMs() {
+        return tickMs;
+    }
+
+    // at each rotation boundary, pull the matching buckets of the levels above down,
+    // highest level first so timers can fall through several levels in one tick
+    private void cascade() {
+        int top = 0;
+        while (top < levels && (currentTick & ((1L << (BITS * (top + 1))) - 1)) == 0) top++;
+        if (top == 0) return;
+
+        if (top == levels) {
+            Timer<T> t = overflow;
+            while (t != null) {
+                Timer<T> next = t.next;
+                unlink(t);
+                place(t);
+                t = next;
+            }
+        }
+        for (int level = Math.min(top, levels - 1); level >= 1; level--) {
+            redistribute(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+        }
+    }
+
+    private void redistribute(int level, int slot) {
+        Timer<T> t = heads[level][slot];
+        while (t != null) {
+            Timer<T> next = t.next;
+            unlink(t);
+            place(t);
+            t = next;
+        }
+    }
+
+    private void place(Timer<T> t) {
+        for (int level = 0; level < levels; level++) {
+            int span = BITS * (level + 1);
+            if ((t.deadlineTick >>> span) == (currentTick >>> span)) {
+                link(t, level, (int) ((t.deadlineTick >>> (BITS * level)) & MASK));
+                return;
+            }
+        }
+        t.level = -1;
+        t.scheduled = true;
+        t.prev = null;
+        t.next = overflow;
+        if (overflow != null) overflow.prev = t;
+        overflow = t;
+    }
+
+    private void link(Timer<T> t, int level, int slot) {
+        t.level = level;
+        t.slot = slot;
+        t.scheduled = true;
+        t.prev = null;
+        t.next = heads[level][slot];
+        if (t.next != null) t.next.prev = t;
+        heads[level][slot] = t;
+    }
+
+    private void unlink(Timer<T> t) {
+        if (t.prev != null) t.prev.next = t.next;
+        else if (t.level < 0) overflow = t.next;
+        else heads[t.level][t.slot] = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = null;
+        t.next = null;
+        t.scheduled = false;
+    }
+
+    // ---------- one scheduled payload; doubles as its own bucket list node ----------
+    public static final class Timer<T> {
+        final long deadlineTick;
+        final T payload;
+        int level;
+        int slot;
+        boolean scheduled;
+        Timer<T> prev;
+        Timer<T> next;
+
+        Timer(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public T getPayload() { return payload; }
+    }
+}
@@ -0,0 +1,683 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.AppointmentStatus;
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.model.Patient;
+import HMS.example.HospitalManagementSystem.model.WaitlistEntry;
+import HMS.example.HospitalManagementSystem.model.WaitlistStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Per-doctor waitlists that backfill freed slots.
+ *
+ * Waiting entries are persisted in waitlist_entry and mirrored in memory as one
+ * concurrent sorted set per doctor (priority first, then oldest). When a committed
+ * change frees a future slot (cancel, delete, or a move away), the slot is queued on a
+ * single offer thread, which walks the doctor's set for the first patient whose window
+ * contains it and flips that entry WAITING -> OFFERED with a guarded update. The slot
+ * is then held for that patient for {@code app.waitlist.hold-minutes}: booking paths
+ * ask {@link #heldForOther} and refuse it to anyone else.
+ *
+ * Accepting books the slot in the patient's request. An offer that is declined or
+ * lapses returns its entry to WAITING and the slot goes to the next patient that has
+ * not been offered it yet. Every state change is a guarded UPDATE on the entry's
+ * status, so an accept racing an expiry has exactly one winner.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    private static final List<AppointmentStatus> OPEN = List.of(AppointmentStatus.BOOKED, AppointmentStatus.SCHEDULED);
+    private static final List<WaitlistStatus> ACTIVE = List.of(WaitlistStatus.WAITING, WaitlistStatus.OFFERED);
+    private static final DateTimeFormatter WHEN = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm");
+
+    private static final Comparator<Waiter> ORDER = Comparator
+            .comparingInt((Waiter w) -> -w.priority)
+            .thenComparing(w -> w.createdAt)
+            .thenComparingLong(w -> w.id);
+
+    @Autowired
+    private SessionFactory sf;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private AppointmentNumberService appointmentNumbers;
+
+    @Value("${app.waitlist.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.waitlist.hold-minutes:30}")
+    private int holdMinutes;
+
+    // slots starting sooner than this are not worth offering
+    @Value("${app.waitlist.min-lead-minutes:60}")
+    private int minLeadMinutes;
+
+    @Value("${app.waitlist.max-window-days:60}")
+    private int maxWindowDays;
+
+    private final Map<Long, NavigableSet<Waiter>> queues = new ConcurrentHashMap<>();
+    private final Map<Long, Waiter> waiters = new ConcurrentHashMap<>();
+    // "doctorId@time" -> current offer of that slot
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+
+    private ExecutorService offers;
+    private ExecutorService notifier;
+
+    @PostConstruct
+    void init() {
+        // one thread decides all offers, so two freed slots never pick the same waiter
+        offers = Executors.newSingleThreadExecutor(r -> daemon(r, "waitlist-offer"));
+        notifier = Executors.newSingleThreadExecutor(r -> daemon(r, "waitlist-notify"));
+
+        EventListenerRegistry registry = sf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        AppointmentListener listener = new AppointmentListener();
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        offers.shutdownNow();
+        notifier.shutdown();
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Session ss = sf.openSession();
+        try {
+            List<WaitlistEntry> rows = ss.createQuery(
+                    "from WaitlistEntry w where w.status in :active", WaitlistEntry.class)
+                .setParameter("active", ACTIVE)
+                .list();
+            for (WaitlistEntry e : rows) {
+                Waiter w = new Waiter(e);
+                if (e.getStatus() == WaitlistStatus.WAITING) {
+                    enqueue(w);
+                } else if (e.getOfferedTime() != null) {
+                    // lapsed holds are handed on by the next sweep
+                    waiters.put(w.id, w);
+                    holds.put(slotKey(w.doctorId, e.getOfferedTime()),
+                            new Hold(w, e.getOfferedTime(), e.getOfferExpiresAt(), new HashSet<>()));
+                }
+            }
+            log.info("Waitlist loaded: {} waiting, {} on offer", waiters.size() - holds.size(), holds.size());
+        } catch (Exception ex) {
+            log.error("Waitlist load failed: {}", ex.getMessage(), ex);
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // PATIENT / DOCTOR ACTIONS
+    // =================================================================================
+
+    /** Puts the patient on the doctor's waitlist for any slot in [notBefore, notAfter]. */
+    public WaitlistEntry join(Long patientId, Long doctorId, LocalDateTime notBefore, LocalDateTime notAfter) {
+        LocalDateTime now = LocalDateTime.now();
+        if (notBefore == null || notBefore.isBefore(now)) notBefore = now;
+        if (notAfter == null || notAfter.isAfter(now.plusDays(maxWindowDays))) notAfter = now.plusDays(maxWindowDays);
+        if (!notAfter.isAfter(notBefore)) throw new IllegalArgumentException("The waiting window is empty.");
+
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            Doctor d = ss.get(Doctor.class, doctorId);
+            if (d == null || !d.isApproved()) throw new IllegalArgumentException("Doctor not available.");
+            Long active = ss.createQuery(
+                    "select count(w.id) from WaitlistEntry w " +
+                    "where w.patientId = :pid and w.doctorId = :did and w.status in :active", Long.class)
+                .setParameter("pid", patientId)
+                .setParameter("did", doctorId)
+                .setParameter("active", ACTIVE)
+                .uniqueResult();
+            if (active != null && active > 0) throw new IllegalStateException("You are already on this doctor's waitlist.");
+
+            WaitlistEntry e = new WaitlistEntry();
+            e.setPatientId(patientId);
+            e.setDoctorId(doctorId);
+            e.setNotBefore(notBefore);
+            e.setNotAfter(notAfter);
+            ss.persist(e);
+            tx.commit();
+
+            enqueue(new Waiter(e));
+            return e;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+    }
+
+    /** Takes the patient off the list; an open offer is handed to the next patient. */
+    public boolean leave(Long patientId, Long entryId) {
+        Waiter w = waiters.get(entryId);
+        int changed = transition(entryId, patientId, ACTIVE, WaitlistStatus.LEFT, null);
+        if (changed == 0) return false;
+        if (w != null) {
+            dequeue(w);
+            Hold h = releaseHoldOf(w);
+            if (h != null) reoffer(h);
+        }
+        return true;
+    }
+
+    /**
+     * Books the held slot for the patient. Returns the new appointment; throws
+     * IllegalStateException with a user-facing message when the offer is gone.
+     */
+    public Appointment accept(Long patientId, Long entryId) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            WaitlistEntry e = ss.get(WaitlistEntry.class, entryId);
+            LocalDateTime now = LocalDateTime.now();
+            if (e == null || !patientId.equals(e.getPatientId()) || e.getStatus() != WaitlistStatus.OFFERED
+                    || e.getOfferExpiresAt() == null || !e.getOfferExpiresAt().isAfter(now)) {
+                throw new IllegalStateException("This offer is no longer available.");
+            }
+
+            Long clash = ss.createQuery(
+                    "select count(a.id) from Appointment a " +
+                    "where a.doctor.id = :did and a.appointmentTime = :t and a.status in :open", Long.class)
+                .setParameter("did", e.getDoctorId())
+                .setParameter("t", e.getOfferedTime())
+                .setParameter("open", OPEN)
+                .uniqueResult();
+            if (clash != null && clash > 0) throw new IllegalStateException("Sorry, this slot has just been taken.");
+
+            Appointment ap = new Appointment();
+            ap.setPatient(ss.get(Patient.class, patientId));
+            ap.setDoctor(ss.get(Doctor.class, e.getDoctorId()));
+            ap.setAppointmentTime(e.getOfferedTime());
+            ap.setStatus(AppointmentStatus.BOOKED);
+            ap.setNotes("Booked from waitlist");
+            ap.setAppointmentNumber(appointmentNumbers.next());
+            ss.persist(ap);
+            ss.flush();
+
+            // loses against an expiry that already handed the slot on
+            int won = ss.createMutationQuery(
+                    "update WaitlistEntry w set w.status = :booked, w.appointmentId = :aid " +
+                    "where w.id = :id and w.status = :offered and w.offerExpiresAt > :now")
+                .setParameter("booked", WaitlistStatus.BOOKED)
+                .setParameter("aid", ap.getId())
+                .setParameter("id", entryId)
+                .setParameter("offered", WaitlistStatus.OFFERED)
+                .setParameter("now", now)
+                .executeUpdate();
+            if (won == 0) throw new IllegalStateException("This offer is no longer available.");
+            tx.commit();
+
+            Waiter w = waiters.remove(entryId);
+            if (w != null) releaseHoldOf(w);
+            log.info("Waitlist entry {} booked {} with doctor {}", entryId, ap.getAppointmentTime(), e.getDoctorId());
+            return ap;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+    }
+
+    /** Passes on the offered slot but keeps the patient's place on the list. */
+    public boolean decline(Long patientId, Long entryId) {
+        Waiter w = waiters.get(entryId);
+        int changed = transition(entryId, patientId, List.of(WaitlistStatus.OFFERED), WaitlistStatus.WAITING, null);
+        if (changed == 0 || w == null) return changed > 0;
+        Hold h = releaseHoldOf(w);
+        enqueue(w);
+        if (h != null) reoffer(h);
+        return true;
+    }
+
+    /** Doctor-side reordering: 0 normal, 1 high, 2 urgent. */
+    public boolean setPriority(Long doctorId, Long entryId, int priority) {
+        int p = Math.max(0, Math.min(priority, 2));
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            int changed = ss.createMutationQuery(
+                    "update WaitlistEntry w set w.priority = :p " +
+                    "where w.id = :id and w.doctorId = :did and w.status in :active")
+                .setParameter("p", p)
+                .setParameter("id", entryId)
+                .setParameter("did", doctorId)
+                .setParameter("active", ACTIVE)
+                .executeUpdate();
+            tx.commit();
+            if (changed == 0) return false;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+
+        Waiter old = waiters.get(entryId);
+        if (old != null) {
+            // sorted-set order is fixed at insert: replace rather than mutate
+            Waiter w = old.withPriority(p);
+            waiters.put(entryId, w);
+            if (dequeue(old)) enqueue(w);
+        }
+        return true;
+    }
+
+    /** True when the slot is held for a waitlisted patient other than {@code patientId}. */
+    public boolean heldForOther(Long doctorId, LocalDateTime time, Long patientId) {
+        Hold h = holds.get(slotKey(doctorId, time));
+        return h != null && !h.waiter.patientId.equals(patientId) && h.expiresAt.isAfter(LocalDateTime.now());
+    }
+
+    // =================================================================================
+    // OFFERS
+    // =================================================================================
+
+    /** Offers a slot that was freed outside Hibernate events (bulk updates). */
+    public void slotFreed(Long doctorId, LocalDateTime time) {
+        if (!enabled || doctorId == null || time == null) return;
+        if (time.isBefore(LocalDateTime.now().plusMinutes(minLeadMinutes))) return;
+        submit(() -> offer(doctorId, time, new HashSet<>()));
+    }
+
+    private void reoffer(Hold h) {
+        Set<Long> tried = new HashSet<>(h.tried);
+        tried.add(h.waiter.id);
+        submit(() -> offer(h.waiter.doctorId, h.time, tried));
+    }
+
+    private void submit(Runnable task) {
+        try {
+            offers.execute(task);
+        } catch (RuntimeException ex) {
+            log.warn("Waitlist offer not queued: {}", ex.toString());
+        }
+    }
+
+    // runs on the offer thread only
+    private void offer(Long doctorId, LocalDateTime time, Set<Long> tried) {
+        try {
+            String key = slotKey(doctorId, time);
+            if (holds.containsKey(key)) return;
+            LocalDateTime now = LocalDateTime.now();
+            if (time.isBefore(now.plusMinutes(minLeadMinutes))) return;
+            NavigableSet<Waiter> queue = queues.get(doctorId);
+            if (queue == null || queue.isEmpty() || slotTaken(doctorId, time)) return;
+
+            for (Waiter w : queue) {
+                if (tried.contains(w.id) || time.isBefore(w.notBefore) || time.isAfter(w.notAfter)) continue;
+                LocalDateTime expires = now.plusMinutes(holdMinutes);
+                int changed = transition(w.id, w.patientId, List.of(WaitlistStatus.WAITING), WaitlistStatus.OFFERED,
+                        new LocalDateTime[] { time, expires });
+                dequeue(w);
+                if (changed == 0) {
+                    // left or deleted meanwhile
+                    waiters.remove(w.id);
+                    continue;
+                }
+                Hold h = new Hold(w, time, expires, tried);
+                holds.put(key, h);
+                notifier.execute(() -> notifyOffer(h));
+                log.info("Waitlist: offered doctor {} slot {} to entry {} until {}", doctorId, time, w.id, expires);
+                return;
+            }
+        } catch (Exception ex) {
+            log.warn("Waitlist offer for doctor {} at {} failed: {}", doctorId, time, ex.getMessage());
+        }
+    }
+
+    private boolean slotTaken(Long doctorId, LocalDateTime time) {
+        Session ss = sf.openSession();
+        try {
+            Long n = ss.createQuery(
+                    "select count(a.id) from Appointment a " +
+                    "where a.doctor.id = :did and a.appointmentTime = :t and a.status in :open", Long.class)
+                .setParameter("did", doctorId)
+                .setParameter("t", time)
+                .setParameter("open", OPEN)
+                .uniqueResult();
+            return n != null && n > 0;
+        } finally {
+            ss.close();
+        }
+    }
+
+    private void notifyOffer(Hold h) {
+        String text = "A slot with your doctor opened up on " + h.time.format(WHEN)
+                + " and is held for you until " + h.expiresAt.format(WHEN) + ". Accept it under My Waitlist.";
+        try {
+            Object[] r = names(h.waiter.patientId, h.waiter.doctorId);
+            if (r != null) {
+                emailService.sendWaitlistOffer((String) r[0], (String) r[1], (String) r[2], h.time, h.expiresAt);
+            }
+            messageService.send(h.waiter.patientId, "Waitlist", text);
+        } catch (Exception ex) {
+            log.warn("Waitlist offer notification for entry {} failed: {}", h.waiter.id, ex.getMessage());
+        }
+    }
+
+    // patient email, patient name, doctor name
+    private Object[] names(Long patientId, Long doctorId) {
+        Session ss = sf.openSession();
+        try {
+            return ss.createQuery(
+                    "select p.email, p.name, d.name from Patient p, Doctor d where p.id = :pid and d.id = :did",
+                    Object[].class)
+                .setParameter("pid", patientId)
+                .setParameter("did", doctorId)
+                .uniqueResult();
+        } finally {
+            ss.close();
+        }
+    }
+
+    /** Hands lapsed offers on and retires entries whose window has passed. */
+    @Scheduled(fixedDelayString = "${app.waitlist.sweep-ms:30000}")
+    public void sweep() {
+        if (!enabled) return;
+        submit(this::expire);
+    }
+
+    private void expire() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Hold h : new ArrayList<>(holds.values())) {
+            if (h.expiresAt.isAfter(now)) continue;
+            int changed = transition(h.waiter.id, h.waiter.patientId, List.of(WaitlistStatus.OFFERED),
+                    WaitlistStatus.WAITING, null);
+            releaseHoldOf(h.waiter);
+            if (changed > 0) {
+                enqueue(h.waiter);
+                log.info("Waitlist: offer to entry {} lapsed", h.waiter.id);
+            }
+            offer(h.waiter.doctorId, h.time, withTried(h));
+        }
+
+        for (Waiter w : new ArrayList<>(waiters.values())) {
+            if (!w.notAfter.isBefore(now)) continue;
+            if (transition(w.id, w.patientId, List.of(WaitlistStatus.WAITING), WaitlistStatus.EXPIRED, null) > 0) {
+                dequeue(w);
+                waiters.remove(w.id);
+            }
+        }
+    }
+
+    private static Set<Long> withTried(Hold h) {
+        Set<Long> tried = new HashSet<>(h.tried);
+        tried.add(h.waiter.id);
+        return tried;
+    }
+
+    // =================================================================================
+    // READ
+    // =================================================================================
+
+    public List<EntryView> forPatient(Long patientId) {
+        return views("select w, d.name from WaitlistEntry w, Doctor d where d.id = w.doctorId " +
+                "and w.patientId = :id and w.status in :active order by w.createdAt", patientId);
+    }
+
+    /** The doctor's list in offer order. */
+    public List<EntryView> forDoctor(Long doctorId) {
+        return views("select w, p.name from WaitlistEntry w, Patient p where p.id = w.patientId " +
+                "and w.doctorId = :id and w.status in :active order by w.priority desc, w.createdAt, w.id", doctorId);
+    }
+
+    private List<EntryView> views(String hql, Long id) {
+        Session ss = sf.openSession();
+        try {
+            List<Object[]> rows = ss.createQuery(hql, Object[].class)
+                    .setParameter("id", id)
+                    .setParameter("active", ACTIVE)
+                    .list();
+            List<EntryView> out = new ArrayList<>(rows.size());
+            for (Object[] r : rows) out.add(new EntryView((WaitlistEntry) r[0], (String) r[1]));
+            return out;
+        } finally {
+            ss.close();
+        }
+    }
+
+    // =================================================================================
+    // HELPERS
+    // =================================================================================
+
+    /**
+     * Guarded status change of one entry; {@code offer} = {slot, expiry} when moving to
+     * OFFERED, otherwise the offer fields are cleared. Returns the rows changed (0 or 1).
+     */
+    private int transition(Long entryId, Long patientId, List<WaitlistStatus> from, WaitlistStatus to,
+                           LocalDateTime[] offer) {
+        Session ss = sf.openSession();
+        Transaction tx = null;
+        try {
+            tx = ss.beginTransaction();
+            int changed = ss.createMutationQuery(
+                    "update WaitlistEntry w set w.status = :to, w.offeredTime = :slot, w.offerExpiresAt = :expires " +
+                    "where w.id = :id and w.patientId = :pid and w.status in :from")
+                .setParameter("to", to)
+                .setParameter("slot", offer != null ? offer[0] : null, LocalDateTime.class)
+                .setParameter("expires", offer != null ? offer[1] : null, LocalDateTime.class)
+                .setParameter("id", entryId)
+                .setParameter("pid", patientId)
+                .setParameter("from", from)
+                .executeUpdate();
+            tx.commit();
+            return changed;
+        } catch (RuntimeException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            ss.close();
+        }
+    }
+
+    private void enqueue(Waiter w) {
+        waiters.put(w.id, w);
+        queues.computeIfAbsent(w.doctorId, k -> new ConcurrentSkipListSet<>(ORDER)).add(w);
+    }
+
+    private boolean dequeue(Waiter w) {
+        NavigableSet<Waiter> q = queues.get(w.doctorId);
+        return q != null && q.remove(w);
+    }
+
+    private Hold releaseHoldOf(Waiter w) {
+        for (Map.Entry<String, Hold> e : holds.entrySet()) {
+            if (e.getValue().waiter.id == w.id && holds.remove(e.getKey(), e.getValue())) return e.getValue();
+        }
+        return null;
+    }
+
+    private static String slotKey(Long doctorId, LocalDateTime time) {
+        return doctorId + "@" + time;
+    }
+
+    // =================================================================================
+    // FREED SLOTS (post-commit events)
+    // =================================================================================
+
+    private class AppointmentListener implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] before = event.getOldState();
+            Object[] after = event.getState();
+            if (before == null || !OPEN.contains(status(names, before))) return;
+            Long oldDoctor = doctorId(names, before);
+            Object oldTime = value(names, before, "appointmentTime");
+            boolean freed = !OPEN.contains(status(names, after))
+                    || !Objects.equals(oldDoctor, doctorId(names, after))
+                    || !Objects.equals(oldTime, value(names, after, "appointmentTime"));
+            if (freed && oldTime instanceof LocalDateTime) slotFreed(oldDoctor, (LocalDateTime) oldTime);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] s = event.getDeletedState();
+            Object time = value(names, s, "appointmentTime");
+            if (OPEN.contains(status(names, s)) && time instanceof LocalDateTime) {
+                slotFreed(doctorId(names, s), (LocalDateTime) time);
+            }
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) { }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) { }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return Appointment.class.equals(persister.getMappedClass());
+        }
+    }
+
+    private static Long doctorId(String[] names, Object[] state) {
+        Object d = value(names, state, "doctor");
+        return d instanceof Doctor ? ((Doctor) d).getId() : null;
+    }
+
+    private static AppointmentStatus status(String[] names, Object[] state) {
+        Object s = value(names, state, "status");
+        return s instanceof AppointmentStatus ? (AppointmentStatus) s : null;
+    }
+
+    private static Object value(String[] names, Object[] state, String property) {
+        if (state == null) return null;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return state[i];
+        }
+        return null;
+    }
+
+    // ---------- in-memory queue element ----------
+    private static final class Waiter {
+        final long id;
+        final Long patientId;
+        final Long doctorId;
+        final LocalDateTime notBefore;
+        final LocalDateTime notAfter;
+        final int priority;
+        final LocalDateTime createdAt;
+
+        Waiter(WaitlistEntry e) {
+            this(e.getId(), e.getPatientId(), e.getDoctorId(), e.getNotBefore(), e.getNotAfter(),
+                    e.getPriority(), e.getCreatedAt());
+        }
+
+        private Waiter(long id, Long patientId, Long doctorId, LocalDateTime notBefore, LocalDateTime notAfter,
+                       int priority, LocalDateTime createdAt) {
+            this.id = id;
+            this.patientId = patientId;
+            this.doctorId = doctorId;
+            this.notBefore = notBefore;
+            this.notAfter = notAfter;
+            this.priority = priority;
+            this.createdAt = createdAt;
+        }
+
+        Waiter withPriority(int p) {
+            return new Waiter(id, patientId, doctorId, notBefore, notAfter, p, createdAt);
+        }
+    }
+
+    // ---------- a slot held for one waiter ----------
+    private static final class Hold {
+        final Waiter waiter;
+        final LocalDateTime time;
+        final LocalDateTime expiresAt;
+        // entries this slot was already offered to
+        final Set<Long> tried;
+
+        Hold(Waiter waiter, LocalDateTime time, LocalDateTime expiresAt, Set<Long> tried) {
+            this.waiter = waiter;
+            this.time = time;
+            this.expiresAt = expiresAt != null ? expiresAt : LocalDateTime.now();
+            this.tried = tried;
+        }
+    }
+
+    // ---------- one list row with the other party's name ----------
+    public static class EntryView {
+        private final WaitlistEntry entry;
+        private final String name;
+
+        EntryView(WaitlistEntry entry, String name) {
+            this.entry = entry;
+            this.name = name;
+        }
+
+        public Long getId() { return entry.getId(); }
+        public String getName() { return name; }
+        public Long getDoctorId() { return entry.getDoctorId(); }
+        public LocalDateTime getNotBefore() { return entry.getNotBefore(); }
+        public LocalDateTime getNotAfter() { return entry.getNotAfter(); }
+        public int getPriority() { return entry.getPriority(); }
+        public String getStatus() { return entry.getStatus().name(); }
+        public boolean isOffered() { return entry.getStatus() == WaitlistStatus.OFFERED; }
+        public LocalDateTime getOfferedTime() { return entry.getOfferedTime(); }
+        public LocalDateTime getOfferExpiresAt() { return entry.getOfferExpiresAt(); }
+        public LocalDateTime getCreatedAt() { return entry.getCreatedAt(); }
+    }
+}
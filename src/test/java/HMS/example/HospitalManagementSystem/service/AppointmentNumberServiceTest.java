@@ -0,0 +1,96 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uniqueness under contention: many threads draw numbers from one node (and from two
+ * nodes side by side) at the same time. The DB lookup in init() is skipped, so each
+ * node starts from sequence 1 of today.
+ */
+class AppointmentNumberServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 50_000;
+
+    @Test
+    void numbersFromOneNodeAreDistinctAndIncreasing() throws Exception {
+        AppointmentNumberService numbers = node(3);
+
+        List<List<String>> perThread = draw(numbers, THREADS, PER_THREAD);
+
+        Set<String> all = new HashSet<>();
+        for (List<String> issued : perThread) {
+            for (int i = 0; i < issued.size(); i++) {
+                String n = issued.get(i);
+                assertTrue(n.matches("APT-\\d{8}-03-\\d{7,}"), n);
+                assertTrue(all.add(n), "duplicate " + n);
+                // later calls on one thread always see a later number
+                if (i > 0) assertTrue(issued.get(i - 1).compareTo(n) < 0, issued.get(i - 1) + " !< " + n);
+            }
+        }
+        assertEquals(THREADS * PER_THREAD, all.size());
+
+        // no gaps either: the counter issued exactly 1..total
+        String last = numbers.next();
+        assertEquals(THREADS * PER_THREAD + 1, Long.parseLong(last.substring(last.lastIndexOf('-') + 1)));
+    }
+
+    @Test
+    void twoNodesNeverIssueTheSameNumber() throws Exception {
+        AppointmentNumberService a = node(1);
+        AppointmentNumberService b = node(2);
+
+        Set<String> all = new HashSet<>();
+        for (List<String> issued : draw(a, THREADS / 2, PER_THREAD / 2)) all.addAll(issued);
+        for (List<String> issued : draw(b, THREADS / 2, PER_THREAD / 2)) {
+            for (String n : issued) assertTrue(all.add(n), "duplicate across nodes " + n);
+        }
+        assertEquals(THREADS * (PER_THREAD / 2), all.size());
+    }
+
+    private static AppointmentNumberService node(int nodeId) {
+        AppointmentNumberService s = new AppointmentNumberService();
+        ReflectionTestUtils.setField(s, "nodeId", nodeId);
+        return s;
+    }
+
+    // every thread starts together and keeps its numbers in issue order
+    private static List<List<String>> draw(AppointmentNumberService numbers, int threads, int perThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Callable<List<String>> task = () -> {
+                    List<String> issued = new ArrayList<>(perThread);
+                    start.await();
+                    for (int i = 0; i < perThread; i++) issued.add(numbers.next());
+                    return issued;
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+
+            List<List<String>> out = new ArrayList<>();
+            for (Future<List<String>> f : futures) out.add(f.get(60, TimeUnit.SECONDS));
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package HMS.example.HospitalManagementSystem.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+
+import HMS.example.HospitalManagementSystem.model.Appointment;
+import HMS.example.HospitalManagementSystem.model.Doctor;
+import HMS.example.HospitalManagementSystem.model.Patient;
+import jakarta.mail.internet.MimeMessage;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Booking confirmations against the fake SMTP server acting as a slow relay: the
+ * caller (the booking request) gets control back at once and the mail goes out on a
+ * mail-dispatch thread. Only the mail beans are started, so no database is needed.
+ */
+@SpringBootTest(classes = { EmailService.class, FakeSmtpServer.class },
+        properties = {
+                "app.mail.fake-smtp.enabled=true",
+                "app.mail.fake-smtp.port=0",
+                "app.mail.fake-smtp.delay-ms=1500",
+                "spring.mail.host=localhost",
+                "spring.mail.username=",
+                "spring.mail.password=",
+                "spring.mail.properties.mail.smtp.auth=false",
+                "spring.mail.properties.mail.smtp.starttls.enable=false",
+                "spring.mail.properties.mail.smtp.starttls.required=false",
+                "spring.mail.properties.mail.debug=false"
+        })
+@ImportAutoConfiguration(MailSenderAutoConfiguration.class)
+@ActiveProfiles("test")
+class EmailServiceTest {
+
+    private static final long WAIT_MS = 15_000;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private FakeSmtpServer smtp;
+
+    @SpyBean
+    private JavaMailSenderImpl mailSender;
+
+    @MockBean
+    private ReportStorageService reportStorage;
+
+    @MockBean
+    private ReportLinkService reportLinkService;
+
+    @Value("${app.mail.fake-smtp.delay-ms}")
+    private long relayDelayMs;
+
+    // thread that called send(), and when the relay acknowledged it, by recipient
+    private final Map<String, String> sentFrom = new ConcurrentHashMap<>();
+    private final Map<String, Long> acknowledgedAt = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void pointAtFakeServer() {
+        mailSender.setPort(smtp.getPort());
+        smtp.clear();
+        sentFrom.clear();
+        acknowledgedAt.clear();
+        doAnswer(inv -> {
+            String to = ((MimeMessage) inv.getArgument(0)).getAllRecipients()[0].toString();
+            sentFrom.put(to, Thread.currentThread().getName());
+            inv.callRealMethod();
+            acknowledgedAt.put(to, System.nanoTime());
+            return null;
+        }).when(mailSender).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void confirmationIsSentOnMailDispatchThread() throws Exception {
+        assertTrue(emailService.sendAppointmentConfirmationLater("thread@example.com", appointment()));
+
+        awaitAcknowledged("thread@example.com");
+        String thread = sentFrom.get("thread@example.com");
+        assertTrue(thread != null && thread.startsWith("mail-dispatch-"), "sent from " + thread);
+        assertEquals("Appointment Confirmed - APT-TEST-1", smtp.messages().get(0).getSubject());
+    }
+
+    @Test
+    void bookingDoesNotWaitForSlowRelay() throws Exception {
+        long start = System.nanoTime();
+        assertTrue(emailService.sendAppointmentConfirmationLater("latency@example.com", appointment()));
+        long queuedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(queuedMs < relayDelayMs, "caller waited " + queuedMs + " ms for a " + relayDelayMs + " ms relay");
+
+        // the relay delay is real: delivery itself takes at least that long
+        long deliveredMs = (awaitAcknowledged("latency@example.com") - start) / 1_000_000;
+        assertTrue(deliveredMs >= relayDelayMs, "delivered after " + deliveredMs + " ms");
+    }
+
+    // nanoTime at which the relay answered "250" for the recipient's message
+    private long awaitAcknowledged(String to) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        Long at;
+        while ((at = acknowledgedAt.get(to)) == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "mail to " + to + " not delivered within " + WAIT_MS + " ms");
+            Thread.sleep(20);
+        }
+        return at;
+    }
+
+    private static Appointment appointment() {
+        Doctor d = new Doctor();
+        d.setName("Test Doctor");
+        Patient p = new Patient();
+        p.setName("Test Patient");
+        Appointment a = new Appointment();
+        a.setDoctor(d);
+        a.setPatient(p);
+        a.setAppointmentNumber("APT-TEST-1");
+        a.setAppointmentTime(LocalDateTime.now().plusDays(1));
+        return a;
+    }
+}